@@ -0,0 +1,63 @@
+package com.project.imagetool.bench;
+
+import com.project.imagetool.filter.BlurFilter;
+import com.project.imagetool.filter.EdgeFilter;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.filter.HeartFilter;
+import com.project.imagetool.filter.RainbowFilter;
+import com.project.imagetool.filter.RoseFilter;
+import com.project.imagetool.filter.SingleColourFilter;
+import com.project.imagetool.model.FilterType;
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+
+import java.util.List;
+import java.util.Random;
+
+// Shared inputs for the benchmarks: deterministic test images and the filters with UI default parameters
+final class BenchImages {
+    private BenchImages() {}
+
+    // "1920x1080" -> smooth gradients with noise, so Edge and the encoders see realistic content
+    static PixelBuffer create(String size) {
+        String[] parts = size.split("x");
+        int width = Integer.parseInt(parts[0]);
+        int height = Integer.parseInt(parts[1]);
+        PixelBuffer image = new PixelBuffer(width, height);
+        byte[] data = image.getData();
+        Random random = new Random(42);
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, i += PixelBuffer.CHANNELS) {
+                int noise = random.nextInt(16);
+                data[i] = (byte) (x * 255 / width + noise);
+                data[i + 1] = (byte) (y * 255 / height + noise);
+                data[i + 2] = (byte) (((x / 64 + y / 64) % 2) * 160 + noise);
+            }
+        }
+        return image;
+    }
+
+    static ImageFilter filter(FilterType type) {
+        return switch (type) {
+            case GRAY -> new GrayFilter();
+            case BLUR -> new BlurFilter(9, 2.0);
+            case EDGE -> new EdgeFilter(50, 150);
+            case ROSE -> new RoseFilter();
+            case SINGLE_COLOR -> new SingleColourFilter(255, 192, 203);
+            case RAINBOW -> new RainbowFilter();
+            case HEART -> new HeartFilter();
+            case LUT -> throw new IllegalArgumentException("A LUT stage needs a .cube file");
+        };
+    }
+
+    static List<ImageFilter> chain(String name) {
+        return switch (name) {
+            case "colour" -> List.of(new GrayFilter(), new RainbowFilter(), new RoseFilter());
+            case "blurEdge" -> List.of(new GrayFilter(), new BlurFilter(9, 2.0), new EdgeFilter(50, 150));
+            case "all" -> List.of(new GrayFilter(), new BlurFilter(9, 2.0), new RainbowFilter(),
+                    new SingleColourFilter(255, 192, 203), new HeartFilter(), new EdgeFilter(50, 150));
+            default -> throw new IllegalArgumentException("Unknown chain: " + name);
+        };
+    }
+}
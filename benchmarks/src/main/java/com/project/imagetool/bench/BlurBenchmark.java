@@ -0,0 +1,91 @@
+package com.project.imagetool.bench;
+
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.BufferPool;
+import com.project.imagetool.processing.GaussianBlur;
+import com.project.imagetool.processing.Pixels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The separable, banded Gaussian blur with and without SIMD against a naive single-threaded
+ * 2-D convolution, the baseline the optimised kernels are measured from.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BlurBenchmark {
+    @Param({"9", "25"})
+    public int kernel;
+
+    @Param({"640x480", "1920x1080"})
+    public String size;
+
+    private PixelBuffer image;
+    private float[] weights;
+
+    @Setup
+    public void setUp() {
+        image = BenchImages.create(size);
+        // sigma 0 derives it from the kernel size, as cv::getGaussianKernel does
+        weights = GaussianBlur.kernel(kernel, 0);
+    }
+
+    @Benchmark
+    public void separable(Blackhole blackhole) {
+        PixelBuffer result = GaussianBlur.blur(image, kernel, 0);
+        blackhole.consume(result);
+        BufferPool.release(result);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Dimagetool.blur.vector=false"})
+    public void separableScalar(Blackhole blackhole) {
+        PixelBuffer result = GaussianBlur.blur(image, kernel, 0);
+        blackhole.consume(result);
+        BufferPool.release(result);
+    }
+
+    // ksize^2 taps per sample on one thread, with the same border handling
+    @Benchmark
+    public void naive2d(Blackhole blackhole) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int radius = kernel / 2;
+        byte[] in = image.getData();
+        PixelBuffer result = BufferPool.lease(width, height);
+        byte[] out = result.getData();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                for (int c = 0; c < PixelBuffer.CHANNELS; c++) {
+                    float sum = 0;
+                    for (int ky = 0; ky < kernel; ky++) {
+                        int row = GaussianBlur.reflect101(y + ky - radius, height) * width;
+                        for (int kx = 0; kx < kernel; kx++) {
+                            int i = (row + GaussianBlur.reflect101(x + kx - radius, width)) * PixelBuffer.CHANNELS + c;
+                            sum += (in[i] & 0xFF) * weights[ky] * weights[kx];
+                        }
+                    }
+                    out[(y * width + x) * PixelBuffer.CHANNELS + c] = (byte) Pixels.saturate(sum);
+                }
+            }
+        }
+        blackhole.consume(result);
+        BufferPool.release(result);
+    }
+}
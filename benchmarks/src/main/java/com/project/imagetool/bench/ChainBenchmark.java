@@ -0,0 +1,54 @@
+package com.project.imagetool.bench;
+
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.BufferPool;
+import com.project.imagetool.service.InProcessFilterEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Multi-filter chains through the in-process engine, with fusion and without the stage cache. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ChainBenchmark {
+    @Param({"colour", "blurEdge", "all"})
+    public String chain;
+
+    @Param({"1920x1080"})
+    public String size;
+
+    private final InProcessFilterEngine engine = new InProcessFilterEngine();
+    private List<ImageFilter> filters;
+    private PixelBuffer image;
+
+    @Setup
+    public void setUp() {
+        filters = BenchImages.chain(chain);
+        image = BenchImages.create(size);
+    }
+
+    // without a stage cache the result is not shared, so it can go back to the pool
+    @Benchmark
+    public void process(Blackhole blackhole) {
+        PixelBuffer result = engine.process(image, filters);
+        blackhole.consume(result);
+        if (result != image) BufferPool.release(result);
+    }
+}
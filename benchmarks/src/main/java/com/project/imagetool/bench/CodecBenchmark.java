@@ -0,0 +1,64 @@
+package com.project.imagetool.bench;
+
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.service.ImageCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/** Decode/encode of temp files in each intermediate format TempFileManager can use. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+    @Param({"640x480", "1920x1080", "4000x3000"})
+    public String size;
+
+    @Param({"png", "bmp", "pxb"})
+    public String format;
+
+    private PixelBuffer image;
+    private Path encoded;
+    private Path target;
+
+    @Setup
+    public void setUp() throws IOException {
+        image = BenchImages.create(size);
+        encoded = Files.createTempFile("imgtool_", "." + format);
+        target = Files.createTempFile("imgtool_", "." + format);
+        ImageCodec.write(image, encoded);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(encoded);
+        Files.deleteIfExists(target);
+    }
+
+    @Benchmark
+    public PixelBuffer decode() throws IOException {
+        return ImageCodec.read(encoded);
+    }
+
+    @Benchmark
+    public void encode() throws IOException {
+        ImageCodec.write(image, target);
+    }
+}
@@ -0,0 +1,52 @@
+package com.project.imagetool.bench;
+
+import com.project.imagetool.model.FilterType;
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.BufferPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** Each filter's in-process {@code apply} at several image sizes. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class FilterBenchmark {
+    @Param({"GRAY", "BLUR", "EDGE", "ROSE", "SINGLE_COLOR", "RAINBOW", "HEART"})
+    public FilterType filter;
+
+    @Param({"640x480", "1920x1080", "4000x3000"})
+    public String size;
+
+    private ImageFilter instance;
+    private PixelBuffer image;
+
+    @Setup
+    public void setUp() {
+        instance = BenchImages.filter(filter);
+        image = BenchImages.create(size);
+    }
+
+    // the result goes back to the pool as InProcessFilterEngine does, so leases hit after warmup
+    @Benchmark
+    public void apply(Blackhole blackhole) {
+        PixelBuffer result = instance.apply(image);
+        blackhole.consume(result);
+        if (result != image) BufferPool.release(result);
+    }
+}
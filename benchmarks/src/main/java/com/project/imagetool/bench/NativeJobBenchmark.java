@@ -0,0 +1,78 @@
+package com.project.imagetool.bench;
+
+import com.project.imagetool.filter.BlurFilter;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.model.ImageJob;
+import com.project.imagetool.service.CppApplicationService;
+import com.project.imagetool.service.ImageCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link CppApplicationService#run} latency: temp file in, native filters, temp file out.
+ * workers = 0 spawns cpp/main per job, 1 reuses a worker process. The executable is taken
+ * from -Dimagetool.cpp (default cpp/main relative to the working directory).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NativeJobBenchmark {
+    @Param({"0", "1"})
+    public int workers;
+
+    @Param({"640x480", "1920x1080"})
+    public String size;
+
+    // intermediate format of the job's input and output files
+    @Param({"png", "bmp", "pxb"})
+    public String format;
+
+    private CppApplicationService service;
+    private Path input;
+    private Path output;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path executable = Path.of(System.getProperty("imagetool.cpp", "cpp/main"));
+        if (!Files.isExecutable(executable)) {
+            throw new IllegalStateException("Native executable not found: " + executable.toAbsolutePath());
+        }
+        service = new CppApplicationService(executable, workers);
+        input = Files.createTempFile("imgtool_", "." + format);
+        output = Files.createTempFile("imgtool_", "." + format);
+        ImageCodec.write(BenchImages.create(size), input);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        service.close();
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public void grayBlur() throws IOException, InterruptedException {
+        ImageJob job = new ImageJob(input, output);
+        job.addFilter(new GrayFilter());
+        job.addFilter(new BlurFilter(9, 2.0));
+        service.run(job);
+    }
+}
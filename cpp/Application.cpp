@@ -30,7 +30,7 @@ int Application::getParamCount(FilterType type) {
     switch (type) {
         case FilterType::Gray: return 0;
         case FilterType::Blur: return 2;
-        case FilterType::Edge: return 2;
+        case FilterType::Edge: return 4;
         case FilterType::RoseBlush: return 0;
         case FilterType::SingleColourFilter: return 3;
         case FilterType::Rainbow: return 1;
@@ -39,6 +39,11 @@ int Application::getParamCount(FilterType type) {
     return 0;
 }
 
+// The edge pre-blur kernel and sigma may be left out
+int Application::getRequiredParamCount(FilterType type) {
+    return type == FilterType::Edge ? 2 : getParamCount(type);
+}
+
 Application::Application(int argc, char* argv[]){
     auto& log = FileLogger::getInstance();
 
@@ -62,17 +67,23 @@ Application::Application(int argc, char* argv[]){
             FilterWithParams fwp;
             fwp.type = type;
             
-            if (i + paramCount >= argc) {
+            // optional parameters end at the next filter
+            int given = 0;
+            while (given < paramCount && i + 1 + given < argc
+                   && std::string(argv[i + 1 + given]).substr(0, 2) != "--") {
+                given++;
+            }
+            if (given < getRequiredParamCount(type)) {
                 log << "ERROR: not enough parameters for filter " + arg;
                 throw std::string("Not enough parameters for filter " + arg);
             }
             
-            for (int j = 0; j < paramCount; j++) {
+            for (int j = 0; j < given; j++) {
                 fwp.params.push_back(argv[i + 1 + j]);
             }
             
             filters.push_back(fwp);
-            i += paramCount + 1;
+            i += given + 1;
         } else {
             i++;
         }
@@ -84,9 +95,14 @@ int Application::run(){
     auto& log = FileLogger::getInstance();
 
     try {
+        timings.clear();
+
         log << "Loading image";
+        Stopwatch decodeWatch;
         cv::Mat img = ImageFileReader::load(inputPath);
+        timings.emplace_back("decode", decodeWatch.elapsedMs());
         log << "Image loaded";
+        log.timing("decode", timings.back().second);
 
         log << "Applying filters";
         ImageProcessor im;
@@ -94,11 +110,15 @@ int Application::run(){
             im.addFilter(fwp.type, fwp.params);
         }
         im.process(img);
+        timings.insert(timings.end(), im.getTimings().begin(), im.getTimings().end());
         log <<"Filters applied";
 
         log << "Saving image";
+        Stopwatch encodeWatch;
         ImageFileReader::save(outputPath, img);
+        timings.emplace_back("encode", encodeWatch.elapsedMs());
         log << "Image saved";
+        log.timing("encode", timings.back().second);
 
         log << "Processing completed successfully";
         return 0;
@@ -108,3 +128,7 @@ int Application::run(){
         throw; 
     }
 }
+
+const StageTimings& Application::getTimings() const {
+    return timings;
+}
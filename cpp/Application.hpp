@@ -3,6 +3,7 @@
 #include <string>
 
 #include "FilterType.hpp"
+#include "Timing.hpp"
 
 struct FilterWithParams {
     FilterType type;
@@ -16,13 +17,17 @@ private:
     std::string inputPath;
     std::string outputPath;
     std::vector<FilterWithParams> filters;
+    StageTimings timings;
 
     void toLowercase(std::string& s);
     FilterType parseFilterType(const std::string& s0);
     int getParamCount(FilterType type);
+    int getRequiredParamCount(FilterType type);
 
 public:
 
     Application(int argc, char* argv[]);
     int run();
+    // decode, per-filter and encode durations of the last run()
+    const StageTimings& getTimings() const;
 };
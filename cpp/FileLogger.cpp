@@ -20,6 +20,11 @@ FileLogger& FileLogger::operator<<(const std::string& msg) {
     return *this;
 }
 
+void FileLogger::timing(const std::string& stage, double ms) {
+    file << "TIMING " << stage << " " << ms << " ms\n";
+    file.flush();
+}
+
 FileLogger::~FileLogger() {
     file << "=== Logger ended ===\n";
     file.close();
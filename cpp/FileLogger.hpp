@@ -14,6 +14,7 @@ public:
     static FileLogger& getInstance();
     void log(const std::string& msg);
     FileLogger& operator<<(const std::string& msg);
+    void timing(const std::string& stage, double ms);
     ~FileLogger();
 };
 
@@ -9,3 +9,17 @@ enum class FilterType {
     Rainbow,
     Heart
 };
+
+// Same names as the Java FilterType enum, used in timing reports
+inline const char* filterTypeName(FilterType type) {
+    switch (type) {
+        case FilterType::Gray: return "GRAY";
+        case FilterType::Blur: return "BLUR";
+        case FilterType::Edge: return "EDGE";
+        case FilterType::RoseBlush: return "ROSE";
+        case FilterType::SingleColourFilter: return "SINGLE_COLOR";
+        case FilterType::Rainbow: return "RAINBOW";
+        case FilterType::Heart: return "HEART";
+    }
+    return "UNKNOWN";
+}
@@ -0,0 +1,53 @@
+#pragma once
+#include <cstddef>
+#include <functional>
+#include <list>
+#include <memory>
+#include <mutex>
+
+// Geometry tables that only depend on the image size, e.g. the heart mask, kept across
+// the jobs of a worker process. Least recently used tables are dropped once the total
+// size passes maxBytes; the table in use is held by its shared_ptr until the job ends.
+template <typename Table>
+class GeometryCache {
+private:
+    struct Entry {
+        int width;
+        int height;
+        char mode;
+        std::shared_ptr<const Table> table;
+        size_t bytes;
+    };
+
+    size_t maxBytes;
+    size_t bytes = 0;
+    std::list<Entry> entries;
+    std::mutex lock;
+
+public:
+    explicit GeometryCache(size_t maxBytes) : maxBytes(maxBytes) {}
+
+    std::shared_ptr<const Table> get(int width, int height, char mode,
+                                     const std::function<Table()>& build,
+                                     const std::function<size_t(const Table&)>& sizeOf) {
+        std::lock_guard<std::mutex> guard(lock);
+        for (auto it = entries.begin(); it != entries.end(); ++it) {
+            if (it->width == width && it->height == height && it->mode == mode) {
+                entries.splice(entries.begin(), entries, it);
+                return it->table;
+            }
+        }
+
+        auto table = std::make_shared<const Table>(build());
+        size_t size = sizeOf(*table);
+        if (size > maxBytes) return table;
+
+        entries.push_front({width, height, mode, table, size});
+        bytes += size;
+        while (bytes > maxBytes) {
+            bytes -= entries.back().bytes;
+            entries.pop_back();
+        }
+        return table;
+    }
+};
@@ -1,6 +1,11 @@
 #include "ImageFileReader.hpp"
+#include "SharedPixelFile.hpp"
 
 cv::Mat ImageFileReader::load(const std::string& path) {
+    if (SharedPixelFile::isSharedPixelFile(path)) {
+        return SharedPixelFile::load(path);
+    }
+
     cv::Mat img = cv::imread(path);
 
     if (img.empty()) {
@@ -14,6 +19,11 @@ void ImageFileReader::save(const std::string& path, const cv::Mat& img) {
     if (img.empty()) {
         throw std::string("Image is empty");
     }
+
+    if (SharedPixelFile::isSharedPixelFile(path)) {
+        SharedPixelFile::save(path, img);
+        return;
+    }
     
     if (!cv::imwrite(path, img)) {
         throw std::string("Cannot save image at path: " + path);
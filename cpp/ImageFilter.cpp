@@ -24,18 +24,29 @@ void BlurFilter::process(cv::Mat& image) {
 }
 
 // EdgeFilter implementation
-EdgeFilter::EdgeFilter(int t1, int t2) : threshold1(t1), threshold2(t2) {
+EdgeFilter::EdgeFilter(int t1, int t2, int kernel, float sigma)
+    : threshold1(t1), threshold2(t2), blurKernel(kernel), blurSigma(sigma) {
     if (threshold1 < 0 || threshold2 < 0) {
         throw std::string("Thresholds for EdgeFilter must be non-negative.");
     }
     if (threshold1 >= threshold2) {
         throw std::string("Threshold1 must be less than threshold2 for EdgeFilter.");
     }
+    if (blurKernel < 0 || (blurKernel > 0 && blurKernel % 2 == 0)) {
+        throw std::string("Pre-blur kernel for EdgeFilter must be 0 or positive and odd.");
+    }
+    if (blurKernel > 0 && blurSigma <= 0) {
+        throw std::string("Pre-blur sigma for EdgeFilter must be positive.");
+    }
 }
 
 void EdgeFilter::process(cv::Mat& image) {
     cv::Mat imageBlur;
-    cv::GaussianBlur(image, imageBlur, cv::Size(3, 3), 5, 0);
+    if (blurKernel > 0) {
+        cv::GaussianBlur(image, imageBlur, cv::Size(blurKernel, blurKernel), blurSigma, 0);
+    } else {
+        imageBlur = image.clone();
+    }
     cv::Canny(imageBlur, image, threshold1, threshold2);
     auto& log = FileLogger::getInstance();
     log << "CannyFilter completed";
@@ -133,7 +144,7 @@ std::vector<float> RainbowFilter::rainbowColours(int num) {
     return {0, 0, 0};
 }
 
-std::vector<float> RainbowFilter::colour(int all, int current, std::vector<int> middles) {
+std::vector<float> RainbowFilter::colour(int all, int current, const std::vector<int>& middles) {
     float weight_sum = 0;
     std::vector<float> colour = {0, 0, 0};
 
@@ -154,6 +165,23 @@ std::vector<float> RainbowFilter::colour(int all, int current, std::vector<int>
     return colour;
 }
 
+std::vector<cv::Vec3f> RainbowFilter::colourTable(int all) {
+    std::vector<int> middles;
+    int lengthOfInterval = all / 5;
+    for (int i = 0; i <= 5; i++) {
+        middles.push_back(lengthOfInterval * i);
+    }
+
+    std::vector<cv::Vec3f> table(all);
+    for (int i = 0; i < all; i++) {
+        std::vector<float> c = colour(all, i, middles);
+        table[i] = cv::Vec3f(c[0], c[1], c[2]);
+    }
+    return table;
+}
+
+GeometryCache<std::vector<cv::Vec3f>> RainbowFilter::colourTables(16 << 20);
+
 RainbowFilter::RainbowFilter() {
     throw std::string("RainbowFilter requires a character argument 'r' or 'c'.");
 }
@@ -174,26 +202,18 @@ void RainbowFilter::process(cv::Mat& image) {
     } else {
         numOfPixels = img.cols;
     }
-    
-    std::vector<int> middles;
-    int lengthOfInterval = numOfPixels / 5;
-    for (int i = 0; i <= 5; i++) {
-        middles.push_back(lengthOfInterval * i);
-    }
+
+    // the mix only depends on the row or column, so it is computed once per index
+    auto table = colourTables.get(img.cols, img.rows, k,
+        [numOfPixels] { return colourTable(numOfPixels); },
+        [](const std::vector<cv::Vec3f>& t) { return t.size() * sizeof(cv::Vec3f); });
+    const std::vector<cv::Vec3f>& colours = *table;
 
     for (int y = 0; y < img.rows; y++) {
+        cv::Vec3f* row = img.ptr<cv::Vec3f>(y);
         for (int x = 0; x < img.cols; x++) {
-            cv::Vec3f& pixel = img.at<cv::Vec3f>(y, x);
-
-            std::vector<float> colourOfPixel;
-
-            if (k == 'r') {
-                std::vector<float> other = colour(numOfPixels, y, middles);
-                colourOfPixel.insert(colourOfPixel.end(), other.begin(), other.end());
-            } else {
-                std::vector<float> other = colour(numOfPixels, x, middles);
-                colourOfPixel.insert(colourOfPixel.end(), other.begin(), other.end());
-            }
+            cv::Vec3f& pixel = row[x];
+            const cv::Vec3f& colourOfPixel = colours[k == 'r' ? y : x];
 
             float B = pixel[0];
             float G = pixel[1];
@@ -218,8 +238,8 @@ void RainbowFilter::process(cv::Mat& image) {
 }
 
 // HeartFilter implementation
-std::vector<std::vector<int>> HeartFilter::heart(int width, int height) {
-    std::vector<std::vector<int>> grid(height, std::vector<int>(width, 0));
+std::vector<uchar> HeartFilter::heart(int width, int height) {
+    std::vector<uchar> grid(static_cast<size_t>(width) * height, 0);
 
     for (int y = 0; y < height; y++) {
         for (int x = 0; x < width; x++) {
@@ -229,12 +249,13 @@ std::vector<std::vector<int>> HeartFilter::heart(int width, int height) {
             float a = 5.0f / 4.0f * ny - std::sqrt(std::abs(nx));
             float value = nx * nx + a * a - 1.0f;
 
+            uchar& num = grid[static_cast<size_t>(y) * width + x];
             if (value <= 0.01f && value >= -0.01f) {
-                grid[y][x] = 3;
+                num = 3;
             } else if (value <= 0.03f && value >= -0.03f) {
-                grid[y][x] = 2;
+                num = 2;
             } else if (value <= 0.1f && value >= -0.1f) {
-                grid[y][x] = 1;
+                num = 1;
             }
         }
     }
@@ -252,15 +273,30 @@ std::vector<float> HeartFilter::heartColours(int num) {
     return {0, 0, 0};
 }
 
+// 64 MB holds the masks of a few large photos
+GeometryCache<std::vector<uchar>> HeartFilter::masks(64 << 20);
+
 void HeartFilter::process(cv::Mat& image) {
     cv::Mat img;
     image.convertTo(img, CV_32F, 1.0 / 255.0);
 
-    std::vector<std::vector<int>> grid = heart(img.cols, img.rows);
+    int width = img.cols;
+    int height = img.rows;
+    auto mask = masks.get(width, height, 0,
+        [width, height] { return heart(width, height); },
+        [](const std::vector<uchar>& m) { return m.size(); });
+    const uchar* grid = mask->data();
+
+    std::vector<float> colours[4];
+    for (int i = 0; i < 4; i++) {
+        colours[i] = heartColours(i);
+    }
 
     for (int y = 0; y < img.rows; y++) {
+        cv::Vec3f* row = img.ptr<cv::Vec3f>(y);
+        const uchar* maskRow = grid + static_cast<size_t>(y) * width;
         for (int x = 0; x < img.cols; x++) {
-            cv::Vec3f& pixel = img.at<cv::Vec3f>(y, x);
+            cv::Vec3f& pixel = row[x];
 
             float B = pixel[0];
             float G = pixel[1];
@@ -268,7 +304,7 @@ void HeartFilter::process(cv::Mat& image) {
 
             float brightness = 0.299 * R + 0.587 * G + 0.114 * B;
 
-            int num = grid[y][x];
+            int num = maskRow[x];
 
             if (num == 3) {
                 brightness *= 5;
@@ -280,7 +316,7 @@ void HeartFilter::process(cv::Mat& image) {
                 brightness *= 0.8;
             }
 
-            std::vector<float> colour = heartColours(num);
+            const std::vector<float>& colour = colours[num];
 
             if (num == 3 || num == 2) {
                 R = std::min(1.0f, brightness * colour[0]);
@@ -7,6 +7,7 @@
 #include <cstdlib>
 #include <opencv2/opencv.hpp>
 #include "FileLogger.hpp"
+#include "GeometryCache.hpp"
 
 //abstract class
 class ImageFilter {
@@ -35,9 +36,12 @@ class EdgeFilter : public ImageFilter {
 private:
     int threshold1;
     int threshold2;
+    // Gaussian applied before Canny; a kernel of 0 skips it
+    int blurKernel;
+    float blurSigma;
 
 public:
-    EdgeFilter(int t1 = 50, int t2 = 150);
+    EdgeFilter(int t1 = 50, int t2 = 150, int kernel = 3, float sigma = 5);
     void process(cv::Mat& image) override;
 };
 
@@ -61,9 +65,13 @@ class RainbowFilter : public ImageFilter {
 private:
     char k;
 
-    float weight(int middle, int current, int all);
-    std::vector<float> rainbowColours(int num);
-    std::vector<float> colour(int all, int current, std::vector<int> middles);
+    // RGB mix per row or column, keyed by image size and 'r'/'c'
+    static GeometryCache<std::vector<cv::Vec3f>> colourTables;
+
+    static float weight(int middle, int current, int all);
+    static std::vector<float> rainbowColours(int num);
+    static std::vector<float> colour(int all, int current, const std::vector<int>& middles);
+    static std::vector<cv::Vec3f> colourTable(int all);
 
 public:
     RainbowFilter();
@@ -73,8 +81,11 @@ public:
 
 class HeartFilter : public ImageFilter {
 private:
-    std::vector<std::vector<int>> heart(int width, int height);
-    std::vector<float> heartColours(int num);
+    // one byte per pixel, 0 background to 3 outline, keyed by image size
+    static GeometryCache<std::vector<uchar>> masks;
+
+    static std::vector<uchar> heart(int width, int height);
+    static std::vector<float> heartColours(int num);
 
 public:
     void process(cv::Mat& image) override;
@@ -12,7 +12,9 @@ std::unique_ptr<ImageFilter> ImageProcessor::createFilter(FilterType name, const
         case FilterType::Edge: {
             int t1 = params.size() > 0 ? std::stoi(params[0]) : 80;
             int t2 = params.size() > 1 ? std::stoi(params[1]) : 300;
-            return std::make_unique<EdgeFilter>(t1, t2);
+            int blurKernel = params.size() > 2 ? std::stoi(params[2]) : 3;
+            float blurSigma = params.size() > 3 ? std::stof(params[3]) : 5.0f;
+            return std::make_unique<EdgeFilter>(t1, t2, blurKernel, blurSigma);
         }
         case FilterType::RoseBlush: 
             return std::make_unique<RoseBlushFilter>();
@@ -45,6 +47,7 @@ ImageProcessor::ImageProcessor(const std::vector<FilterType> initialFilters) {
 void ImageProcessor::addFilter(FilterType name, const std::vector<std::string>& params) {
     try {
         filters.push_back(createFilter(name, params));
+        types.push_back(name);
     } catch (const std::string& e) {
         throw;
     }
@@ -52,7 +55,10 @@ void ImageProcessor::addFilter(FilterType name, const std::vector<std::string>&
 
 void ImageProcessor::process(cv::Mat& img) {
     try {
-        for (auto& f : filters) {
+        timings.clear();
+        for (size_t i = 0; i < filters.size(); i++) {
+            auto& f = filters[i];
+            Stopwatch watch;
             if (img.empty()) {
                 FileLogger::getInstance() << "ERROR: process() received empty image";
                 throw std::string("Cannot process empty image");
@@ -77,9 +83,17 @@ void ImageProcessor::process(cv::Mat& img) {
             if (img.empty()) {
                 throw std::string("Filter produced empty image");
             }
+
+            std::string stage = std::string("filter.") + filterTypeName(types[i]);
+            timings.emplace_back(stage, watch.elapsedMs());
+            FileLogger::getInstance().timing(stage, timings.back().second);
         }
     } catch (const std::string& e) {
         FileLogger::getInstance() << "ERROR: Image processing failed - " + e;
         throw;
     }
 }
+
+const StageTimings& ImageProcessor::getTimings() const {
+    return timings;
+}
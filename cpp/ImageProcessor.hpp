@@ -5,11 +5,14 @@
 #include "ImageFilter.hpp"
 #include "FilterType.hpp"
 #include "FileLogger.hpp"
+#include "Timing.hpp"
 
 class ImageProcessor {
 
 private:
     std::vector<std::unique_ptr<ImageFilter>> filters;
+    std::vector<FilterType> types;
+    StageTimings timings;
     std::unique_ptr<ImageFilter> createFilter(FilterType name, const std::vector<std::string>& params = {});
 
 public:
@@ -19,4 +22,5 @@ public:
     
     void addFilter(FilterType name, const std::vector<std::string>& params = {});
     void process(cv::Mat& img);
+    const StageTimings& getTimings() const;
 };
@@ -0,0 +1,107 @@
+#include "SharedPixelFile.hpp"
+#include <cstdint>
+#include <cstring>
+#include <fcntl.h>
+#include <sys/mman.h>
+#include <sys/stat.h>
+#include <unistd.h>
+
+namespace {
+    const char MAGIC[4] = {'P', 'X', 'B', '1'};
+
+    // header fields are little-endian regardless of the host
+    int32_t readInt(const unsigned char* p) {
+        return static_cast<int32_t>(p[0] | p[1] << 8 | p[2] << 16 | static_cast<uint32_t>(p[3]) << 24);
+    }
+
+    void writeInt(unsigned char* p, int32_t v) {
+        uint32_t u = static_cast<uint32_t>(v);
+        p[0] = u & 0xFF;
+        p[1] = (u >> 8) & 0xFF;
+        p[2] = (u >> 16) & 0xFF;
+        p[3] = (u >> 24) & 0xFF;
+    }
+}
+
+bool SharedPixelFile::isSharedPixelFile(const std::string& path) {
+    return path.size() > 4 && path.compare(path.size() - 4, 4, ".pxb") == 0;
+}
+
+cv::Mat SharedPixelFile::load(const std::string& path) {
+    int fd = open(path.c_str(), O_RDONLY);
+    if (fd < 0) {
+        throw std::string("Cannot open pixel buffer: " + path);
+    }
+
+    struct stat st;
+    if (fstat(fd, &st) != 0 || st.st_size < HEADER_SIZE) {
+        close(fd);
+        throw std::string("Not a pixel buffer file: " + path);
+    }
+
+    void* mapped = mmap(nullptr, st.st_size, PROT_READ, MAP_SHARED, fd, 0);
+    close(fd);
+    if (mapped == MAP_FAILED) {
+        throw std::string("Cannot map pixel buffer: " + path);
+    }
+
+    const unsigned char* base = static_cast<const unsigned char*>(mapped);
+    int width = readInt(base + 4);
+    int height = readInt(base + 8);
+    int channels = readInt(base + 12);
+    int stride = readInt(base + 16);
+
+    bool valid = std::memcmp(base, MAGIC, 4) == 0 && channels == 3 && width > 0 && height > 0
+        && stride >= width * channels
+        && HEADER_SIZE + static_cast<long long>(stride) * height <= st.st_size;
+    if (!valid) {
+        munmap(mapped, st.st_size);
+        throw std::string("Invalid pixel buffer header: " + path);
+    }
+
+    // filters work in place, so copy out of the read-only mapping
+    cv::Mat view(height, width, CV_8UC3, const_cast<unsigned char*>(base + HEADER_SIZE), stride);
+    cv::Mat img = view.clone();
+    munmap(mapped, st.st_size);
+    return img;
+}
+
+void SharedPixelFile::save(const std::string& path, const cv::Mat& input) {
+    cv::Mat img = input;
+    if (img.channels() == 1) {
+        cv::cvtColor(img, img, cv::COLOR_GRAY2BGR);
+    }
+    if (img.type() != CV_8UC3) {
+        throw std::string("Pixel buffers hold 8-bit BGR images only");
+    }
+
+    int stride = img.cols * 3;
+    size_t size = HEADER_SIZE + static_cast<size_t>(stride) * img.rows;
+
+    int fd = open(path.c_str(), O_RDWR | O_CREAT | O_TRUNC, 0600);
+    if (fd < 0) {
+        throw std::string("Cannot create pixel buffer: " + path);
+    }
+    if (ftruncate(fd, static_cast<off_t>(size)) != 0) {
+        close(fd);
+        throw std::string("Cannot size pixel buffer: " + path);
+    }
+
+    void* mapped = mmap(nullptr, size, PROT_READ | PROT_WRITE, MAP_SHARED, fd, 0);
+    close(fd);
+    if (mapped == MAP_FAILED) {
+        throw std::string("Cannot map pixel buffer: " + path);
+    }
+
+    unsigned char* base = static_cast<unsigned char*>(mapped);
+    std::memset(base, 0, HEADER_SIZE);
+    std::memcpy(base, MAGIC, 4);
+    writeInt(base + 4, img.cols);
+    writeInt(base + 8, img.rows);
+    writeInt(base + 12, 3);
+    writeInt(base + 16, stride);
+    for (int y = 0; y < img.rows; y++) {
+        std::memcpy(base + HEADER_SIZE + static_cast<size_t>(y) * stride, img.ptr(y), stride);
+    }
+    munmap(mapped, size);
+}
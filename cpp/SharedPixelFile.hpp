@@ -0,0 +1,18 @@
+#pragma once
+
+#include <string>
+#include <opencv2/opencv.hpp>
+
+// Raw 8-bit BGR image in a memory-mapped ".pxb" file, shared with the Java UI
+// (see SharedPixelFile.java) so jobs skip PNG encode/decode.
+//
+// Layout, little-endian: "PXB1", int32 width, height, channels, stride,
+// 12 reserved bytes, then height rows of stride bytes.
+class SharedPixelFile {
+public:
+    static const int HEADER_SIZE = 32;
+
+    static bool isSharedPixelFile(const std::string& path);
+    static cv::Mat load(const std::string& path);
+    static void save(const std::string& path, const cv::Mat& img);
+};
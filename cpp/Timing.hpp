@@ -0,0 +1,33 @@
+#pragma once
+#include <chrono>
+#include <sstream>
+#include <string>
+#include <utility>
+#include <vector>
+
+// Stage name and duration in milliseconds, e.g. {"filter.GRAY", 3.2}
+using StageTimings = std::vector<std::pair<std::string, double>>;
+
+class Stopwatch {
+private:
+    std::chrono::steady_clock::time_point start;
+
+public:
+    Stopwatch() : start(std::chrono::steady_clock::now()) {}
+
+    double elapsedMs() const {
+        return std::chrono::duration<double, std::milli>(std::chrono::steady_clock::now() - start).count();
+    }
+};
+
+// "decode=1.204 filter.GRAY=0.310 encode=2.950", the format the Java side parses
+inline std::string formatTimings(const StageTimings& timings) {
+    std::ostringstream s;
+    s.setf(std::ios::fixed);
+    s.precision(3);
+    for (size_t i = 0; i < timings.size(); i++) {
+        if (i > 0) s << " ";
+        s << timings[i].first << "=" << timings[i].second;
+    }
+    return s.str();
+}
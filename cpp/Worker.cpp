@@ -0,0 +1,77 @@
+#include "Worker.hpp"
+#include "Application.hpp"
+#include "FileLogger.hpp"
+#include <exception>
+
+Worker::Worker(std::istream& input, std::ostream& output) : in(input), out(output) {}
+
+bool Worker::readJob(std::vector<std::string>& args) {
+    std::string header;
+    if (!std::getline(in, header)) return false;
+    if (header == "QUIT") return false;
+
+    if (header.substr(0, 4) != "JOB ") {
+        throw std::string("Malformed request header: " + header);
+    }
+
+    int count = std::stoi(header.substr(4));
+    args.clear();
+    for (int i = 0; i < count; i++) {
+        std::string arg;
+        if (!std::getline(in, arg)) return false;
+        args.push_back(arg);
+    }
+    return true;
+}
+
+void Worker::reply(const std::string& status) {
+    out << status << "\n";
+    out.flush();
+}
+
+int Worker::runJob(const std::vector<std::string>& args, std::string& timings) {
+    // Application expects argv-style input, so rebuild it with a dummy program name
+    std::vector<std::string> argvStorage;
+    argvStorage.push_back("worker");
+    argvStorage.insert(argvStorage.end(), args.begin(), args.end());
+
+    std::vector<char*> argv;
+    for (auto& s : argvStorage) {
+        argv.push_back(&s[0]);
+    }
+
+    Application app(static_cast<int>(argv.size()), argv.data());
+    int code = app.run();
+    timings = formatTimings(app.getTimings());
+    return code;
+}
+
+int Worker::run() {
+    auto& log = FileLogger::getInstance();
+    log << "Worker started";
+    reply("READY");
+
+    std::vector<std::string> args;
+    std::string timings;
+    while (true) {
+        try {
+            if (!readJob(args)) break;
+            int code = runJob(args, timings);
+            if (code != 0) {
+                reply("ERR exit code " + std::to_string(code));
+            } else {
+                reply(timings.empty() ? "OK" : "OK " + timings);
+            }
+        }
+        catch (const std::string& err) {
+            reply("ERR " + err);
+        }
+        catch (const std::exception& ex) {
+            log << std::string("ERROR: ") + ex.what();
+            reply(std::string("ERR ") + ex.what());
+        }
+    }
+
+    log << "Worker stopped";
+    return 0;
+}
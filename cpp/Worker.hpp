@@ -0,0 +1,25 @@
+#pragma once
+#include <iostream>
+#include <string>
+#include <vector>
+
+// Long-lived worker: reads framed jobs from stdin and answers on stdout.
+//
+// Protocol (one line per token):
+//   worker -> "READY"                        once, after start-up
+//   client -> "JOB <n>" followed by n lines  the same arguments as the CLI: <input> <output> <filters...>
+//   worker -> "OK [<timings>]" | "ERR <msg>" one reply per job; timings like "decode=1.2 filter.GRAY=0.3" (ms)
+//   client -> "QUIT"                         worker exits
+class Worker {
+private:
+    std::istream& in;
+    std::ostream& out;
+
+    bool readJob(std::vector<std::string>& args);
+    void reply(const std::string& status);
+    int runJob(const std::vector<std::string>& args, std::string& timings);
+
+public:
+    Worker(std::istream& input, std::ostream& output);
+    int run();
+};
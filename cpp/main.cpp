@@ -1,13 +1,34 @@
-#include "Application.hpp"
-#include <iostream>
-
-int main(int argc, char* argv[]){
-    try {
-        Application app(argc, argv);
-        return app.run();
-    }
-    catch (const std::string& err) {
-        std::cerr << "Processing failed: " << err << "\n";
-        return 1;
-    }
-}
+#include "Application.hpp"
+#include "Worker.hpp"
+#include <iostream>
+
+int main(int argc, char* argv[]){
+    if (argc == 2 && std::string(argv[1]) == "--worker") {
+        Worker worker(std::cin, std::cout);
+        return worker.run();
+    }
+
+    // intermediate formats the UI may use for temp files, fastest first
+    if (argc == 2 && std::string(argv[1]) == "--formats") {
+        std::cout << "FORMATS pxb bmp png\n";
+        return 0;
+    }
+
+    // options newer than the first release, so the UI can tell an outdated build from a current one
+    if (argc == 2 && std::string(argv[1]) == "--features") {
+        std::cout << "FEATURES edge-preblur\n";
+        return 0;
+    }
+
+    try {
+        Application app(argc, argv);
+        int code = app.run();
+        // picked up by CppApplicationService for its stage metrics
+        std::cout << "TIMINGS " << formatTimings(app.getTimings()) << "\n";
+        return code;
+    }
+    catch (const std::string& err) {
+        std::cerr << "Processing failed: " << err << "\n";
+        return 1;
+    }
+}
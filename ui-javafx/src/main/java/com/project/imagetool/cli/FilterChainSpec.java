@@ -0,0 +1,145 @@
+package com.project.imagetool.cli;
+
+import com.project.imagetool.filter.BlurFilter;
+import com.project.imagetool.filter.EdgeFilter;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.filter.HeartFilter;
+import com.project.imagetool.filter.LutFilter;
+import com.project.imagetool.filter.RainbowFilter;
+import com.project.imagetool.filter.RoseFilter;
+import com.project.imagetool.filter.SingleColourFilter;
+import com.project.imagetool.model.ImageFilter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses a filter chain such as {@code gray,blur:9:2.0,edge:50:150,rainbow:cols,singlecolour:255:0:0}.
+ * Filters run in the order given; parameters follow the filter name separated by colons.
+ */
+public final class FilterChainSpec {
+    public static final String SYNTAX = "gray | heart | rose | blur:<odd kernel>:<sigma>"
+            + " | edge:<low>:<high>[:<pre-blur kernel, 0 for none>:<sigma>]"
+            + " | rainbow[:rows|cols] | singlecolour:<r>:<g>:<b> | lut:<file.cube> (java engine only)";
+
+    private FilterChainSpec() {}
+
+    public static List<ImageFilter> parse(String spec) {
+        List<ImageFilter> filters = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty()) continue;
+            filters.add(parseFilter(trimmed));
+        }
+        if (filters.isEmpty()) {
+            throw new IllegalArgumentException("Filter chain is empty");
+        }
+        return filters;
+    }
+
+    private static ImageFilter parseFilter(String text) {
+        String[] parts = text.split(":");
+        String name = parts[0].toLowerCase(Locale.ROOT);
+        switch (name) {
+            case "gray", "grey" -> {
+                expectArgs(text, parts, 0);
+                return new GrayFilter();
+            }
+            case "heart" -> {
+                expectArgs(text, parts, 0);
+                return new HeartFilter();
+            }
+            case "rose" -> {
+                expectArgs(text, parts, 0);
+                return new RoseFilter();
+            }
+            case "blur" -> {
+                expectArgs(text, parts, 2);
+                int kernel = parseInt(text, parts[1]);
+                if (kernel <= 0 || kernel % 2 == 0) {
+                    throw new IllegalArgumentException("Blur kernel must be a positive odd integer: " + text);
+                }
+                return new BlurFilter(kernel, parseDouble(text, parts[2]));
+            }
+            case "edge" -> {
+                if (parts.length == 3) return new EdgeFilter(parseDouble(text, parts[1]), parseDouble(text, parts[2]));
+                if (parts.length != 5) {
+                    throw new IllegalArgumentException("Expected 2 or 4 parameter(s) for edge: " + text);
+                }
+                int kernel = parseInt(text, parts[3]);
+                if (kernel < 0 || (kernel > 0 && kernel % 2 == 0)) {
+                    throw new IllegalArgumentException("Edge pre-blur kernel must be 0 (off) or a positive odd integer: " + text);
+                }
+                double sigma = parseDouble(text, parts[4]);
+                if (kernel > 0 && sigma <= 0) {
+                    throw new IllegalArgumentException("Edge pre-blur sigma must be positive: " + text);
+                }
+                return new EdgeFilter(parseDouble(text, parts[1]), parseDouble(text, parts[2]), kernel, sigma);
+            }
+            case "rainbow" -> {
+                if (parts.length == 1) return new RainbowFilter();
+                expectArgs(text, parts, 1);
+                return switch (parts[1].toLowerCase(Locale.ROOT)) {
+                    case "rows", "r" -> new RainbowFilter(RainbowFilter.Mode.ROW);
+                    case "cols", "columns", "c" -> new RainbowFilter(RainbowFilter.Mode.COLUMN);
+                    default -> throw new IllegalArgumentException("Rainbow direction must be rows or cols: " + text);
+                };
+            }
+            case "singlecolour", "singlecolor" -> {
+                expectArgs(text, parts, 3);
+                return new SingleColourFilter(parseChannel(text, parts[1]), parseChannel(text, parts[2]),
+                        parseChannel(text, parts[3]));
+            }
+            case "lut" -> {
+                // everything after the first colon, so Windows paths keep their drive letter
+                String file = text.substring(text.indexOf(':') + 1).trim();
+                if (parts.length < 2 || file.isEmpty()) {
+                    throw new IllegalArgumentException("Expected a .cube file for lut: " + text);
+                }
+                if (!Files.isRegularFile(Path.of(file))) {
+                    throw new IllegalArgumentException("No such LUT file: " + file);
+                }
+                try {
+                    return new LutFilter(Path.of(file));
+                } catch (IOException | RuntimeException e) {
+                    throw new IllegalArgumentException("Cannot read LUT " + file + ": " + e.getMessage());
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown filter: " + parts[0]);
+        }
+    }
+
+    private static void expectArgs(String text, String[] parts, int count) {
+        if (parts.length - 1 != count) {
+            throw new IllegalArgumentException("Expected " + count + " parameter(s) for " + parts[0] + ": " + text);
+        }
+    }
+
+    private static int parseInt(String text, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an integer '" + value + "' in " + text);
+        }
+    }
+
+    private static double parseDouble(String text, String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number '" + value + "' in " + text);
+        }
+    }
+
+    private static int parseChannel(String text, String value) {
+        int channel = parseInt(text, value);
+        if (channel < 0 || channel > 255) {
+            throw new IllegalArgumentException("Colour channels must be between 0 and 255: " + text);
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,419 @@
+package com.project.imagetool.cli;
+
+import com.project.imagetool.filter.LutFilter;
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.ImageJob;
+import com.project.imagetool.processing.BufferPool;
+import com.project.imagetool.processing.ColourLut;
+import com.project.imagetool.processing.CubeFile;
+import com.project.imagetool.processing.LutCompiler;
+import com.project.imagetool.processing.PointOperation;
+import com.project.imagetool.server.ImageServer;
+import com.project.imagetool.service.BatchProcessor;
+import com.project.imagetool.service.BatchSummary;
+import com.project.imagetool.service.ChainOptimizer;
+import com.project.imagetool.service.CppApplicationService;
+import com.project.imagetool.service.ImageJobRunner;
+import com.project.imagetool.service.InProcessFilterEngine;
+import com.project.imagetool.service.OptimizingJobRunner;
+import com.project.imagetool.service.SequenceProcessor;
+import com.project.imagetool.service.SequenceSummary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Command-line batch runner. Only uses the model, filter and service classes, so it
+ * starts without JavaFX on the classpath:
+ * <pre>
+ * java -cp ui-javafx/target/classes com.project.imagetool.cli.HeadlessMain \
+ *     --filters gray,blur:9:2.0 photos/ out/
+ * </pre>
+ */
+public final class HeadlessMain {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED_IMAGES = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_NO_INPUT = 3;
+    public static final int EXIT_ENGINE_UNAVAILABLE = 4;
+    public static final int EXIT_INTERRUPTED = 130;
+
+    private static final int CUBE_SIZE = 33;
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: HeadlessMain --filters <chain> [options] <input> <output>",
+            "       HeadlessMain --serve <port> [options]",
+            "       HeadlessMain --filters <chain> --sequence [options] <frames> <output>",
+            "       HeadlessMain --filters <chain> --export-cube <file.cube>",
+            "  <input>   image file, directory or glob such as 'photos/*.jpg'",
+            "  <output>  output file for a single input, otherwise a directory",
+            "Options:",
+            "  -f, --filters <chain>  comma-separated filters: " + FilterChainSpec.SYNTAX,
+            "  --engine <name>        auto (default, native with Java fallback), native or java",
+            "  --cpp <path>           cpp/main executable (default: searched from the working directory)",
+            "  --parallel <n>         images processed at once (default: available processors)",
+            "  --workers <n>          long-lived native processes, 0 spawns one per image (default: parallel)",
+            "  --tile-size <px>       tile size for large images with the java engine, 0 disables (default)",
+            "  --optimize <mode>      chain rewrites: off, exact (default, identical output) or approximate",
+            "  --explain              print the rewrites applied to each job",
+            "  -q, --quiet            only print the summary",
+            "  --serve <port>         run the HTTP service on 127.0.0.1 (0 picks a free port);",
+            "                         --parallel limits concurrent jobs",
+            "  --queue <n>            requests waiting for a job slot before 429 is returned (default 16)",
+            "  --max-upload-mb <n>    largest accepted image in MB (default 64)",
+            "  --sequence             pipelined decode, filter and encode of a frame folder or animated GIF,",
+            "                         in frame order, with the java engine; the output is a folder or a .gif;",
+            "                         --parallel sets the filter threads, --queue the frames between stages",
+            "  --frame-delay <ms>     GIF frame delay when the input frames have none (default 40)",
+            "  --export-cube <file>   write the chain as a 33^3 .cube LUT; only gray qualifies, since heart, rose",
+            "                         and singlecolour end in a glow and rainbow depends on position;",
+            "                         lut:<file.cube> applies such a file with the java engine",
+            "Exit codes: 0 all images processed, 1 some images failed, 2 usage error or an output",
+            "            that would overwrite an input, 3 no input images, 4 engine unavailable");
+
+    private HeadlessMain() {}
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        List<ImageFilter> filters;
+        try {
+            options = Options.parse(args);
+            if (options.help) {
+                out.println(USAGE);
+                return EXIT_OK;
+            }
+            filters = options.serve ? List.of() : FilterChainSpec.parse(options.filters);
+            if ("native".equals(options.engine) && needsInProcessEngine(filters)) {
+                throw new IllegalArgumentException("lut stages need --engine java or auto");
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        if (options.serve) {
+            return serve(options, out, err);
+        }
+        if (options.exportCube != null) {
+            return exportCube(options, filters, out, err);
+        }
+        if (options.sequence) {
+            return sequence(options, filters, out, err);
+        }
+
+        List<Path> inputs;
+        Path inputPath = Path.of(options.input);
+        try {
+            inputs = Files.isRegularFile(inputPath) ? List.of(inputPath) : BatchProcessor.collectInputs(options.input);
+        } catch (IOException | RuntimeException e) {
+            err.println("Cannot read input " + options.input + ": " + e.getMessage());
+            return EXIT_NO_INPUT;
+        }
+        if (inputs.isEmpty()) {
+            err.println("No input images match " + options.input);
+            return EXIT_NO_INPUT;
+        }
+
+        ImageJobRunner runner;
+        try {
+            runner = withOptimizer(createRunner(options, filters, err), options, out);
+        } catch (RuntimeException e) {
+            err.println(e.getMessage());
+            return EXIT_ENGINE_UNAVAILABLE;
+        }
+
+        try {
+            BatchSummary summary = process(options, inputs, filters, runner, out);
+            out.print(summary.format());
+            out.println(BufferPool.format());
+            return summary.getFailed() == 0 ? EXIT_OK : EXIT_FAILED_IMAGES;
+        } catch (IllegalArgumentException e) {
+            // an output that would overwrite an input; nothing was processed
+            err.println(e.getMessage());
+            return EXIT_USAGE;
+        } catch (IOException e) {
+            err.println("Cannot write output " + options.output + ": " + e.getMessage());
+            return EXIT_FAILED_IMAGES;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return EXIT_INTERRUPTED;
+        } finally {
+            closeRunner(runner, err);
+        }
+    }
+
+    private static BatchSummary process(Options options, List<Path> inputs, List<ImageFilter> filters,
+                                        ImageJobRunner runner, PrintStream out)
+            throws IOException, InterruptedException {
+        BatchProcessor processor = new BatchProcessor(runner, options.parallel);
+        int total = inputs.size();
+        AtomicInteger done = new AtomicInteger();
+        Consumer<BatchSummary.FileResult> progress = options.quiet ? null : result -> {
+            int n = done.incrementAndGet();
+            if (result.isSuccess()) {
+                out.printf(Locale.ROOT, "[%d/%d] OK %s -> %s (%.1f ms)%n", n, total,
+                        result.getInput(), result.getOutput(), result.getLatencyNanos() / 1e6);
+            } else {
+                out.printf(Locale.ROOT, "[%d/%d] FAILED %s: %s%n", n, total,
+                        result.getInput(), result.getError().getMessage());
+            }
+        };
+
+        Path output = Path.of(options.output);
+        boolean singleFile = total == 1 && Files.isRegularFile(Path.of(options.input)) && !Files.isDirectory(output)
+                && !options.output.endsWith("/") && !options.output.endsWith(File.separator);
+        if (singleFile) {
+            Path parent = output.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            return processor.process(inputs, input -> output, filters, progress);
+        }
+        return processor.process(inputs, output, filters, progress);
+    }
+
+    // Native workers are file to file, so frames are filtered in process
+    private static int sequence(Options options, List<ImageFilter> filters, PrintStream out, PrintStream err) {
+        Path input = Path.of(options.input);
+        if (!Files.exists(input)) {
+            err.println("No frames at " + options.input);
+            return EXIT_NO_INPUT;
+        }
+        ChainOptimizer.Result optimized = ChainOptimizer.optimize(filters, options.optimize);
+        if (options.explain && optimized.changed()) out.println(ChainOptimizer.explain(filters, optimized));
+
+        ImageJob job = new ImageJob(input, Path.of(options.output));
+        optimized.filters().forEach(job::addFilter);
+        // --queue 0 still needs room for one frame between stages
+        SequenceProcessor processor = new SequenceProcessor(options.parallel, Math.max(1, options.queue),
+                options.frameDelay);
+        try {
+            SequenceSummary summary = processor.process(job, options.quiet ? null : n -> {
+                if (n % 10 == 0) out.println("[" + n + "] frames written");
+            });
+            out.print(summary.format());
+            out.println(BufferPool.format());
+            return EXIT_OK;
+        } catch (IOException e) {
+            err.println("Sequence failed: " + e.getMessage());
+            return EXIT_FAILED_IMAGES;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return EXIT_INTERRUPTED;
+        }
+    }
+
+    private static int exportCube(Options options, List<ImageFilter> filters, PrintStream out, PrintStream err) {
+        List<PointOperation> ops = new ArrayList<>();
+        for (ImageFilter filter : filters) {
+            if (!(filter instanceof PointOperation op) || op.glowKernelSize() > 0) {
+                err.println(filter.getType() + " is not a pure colour mapping and cannot be exported as a LUT");
+                return EXIT_USAGE;
+            }
+            ops.add(op);
+        }
+        // any frame with more than one row and column shows whether the chain depends on position
+        ColourLut lut = LutCompiler.compile(ops, 64, 64, CUBE_SIZE);
+        if (lut == null || lut.getClassCount() != 1) {
+            err.println("The chain depends on pixel position and cannot be exported as a LUT");
+            return EXIT_USAGE;
+        }
+        Path target = Path.of(options.exportCube);
+        try {
+            CubeFile.write(lut, target, options.filters);
+        } catch (IOException e) {
+            err.println("Cannot write " + target + ": " + e.getMessage());
+            return EXIT_FAILED_IMAGES;
+        }
+        if (!options.quiet) out.println("Wrote " + target);
+        return EXIT_OK;
+    }
+
+    private static int serve(Options options, PrintStream out, PrintStream err) {
+        ImageJobRunner runner;
+        try {
+            runner = withOptimizer(createRunner(options, List.of(), err), options, out);
+        } catch (RuntimeException e) {
+            err.println(e.getMessage());
+            return EXIT_ENGINE_UNAVAILABLE;
+        }
+
+        ImageServer server;
+        try {
+            server = new ImageServer(runner, options.port, options.parallel, options.queue,
+                    options.maxUploadMb * 1024L * 1024L);
+        } catch (IOException e) {
+            err.println("Cannot listen on port " + options.port + ": " + e.getMessage());
+            closeRunner(runner, err);
+            return EXIT_ENGINE_UNAVAILABLE;
+        }
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            closeRunner(runner, err);
+            stopped.countDown();
+        }, "ImageServerShutdown"));
+        server.start();
+        out.println("Listening on http://127.0.0.1:" + server.getPort());
+
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return EXIT_INTERRUPTED;
+    }
+
+    private static void closeRunner(ImageJobRunner runner, PrintStream err) {
+        if (runner instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                err.println("Failed to stop the engine: " + e.getMessage());
+            }
+        }
+    }
+
+    private static ImageJobRunner withOptimizer(ImageJobRunner runner, Options options, PrintStream out) {
+        if (options.optimize == ChainOptimizer.Mode.OFF) return runner;
+        return new OptimizingJobRunner(runner, options.optimize, options.explain ? out::println : null);
+    }
+
+    // .cube LUT stages have no native counterpart
+    private static boolean needsInProcessEngine(List<ImageFilter> filters) {
+        return filters.stream().anyMatch(filter -> filter instanceof LutFilter);
+    }
+
+    private static ImageJobRunner createRunner(Options options, List<ImageFilter> filters, PrintStream err) {
+        if ("java".equals(options.engine) || needsInProcessEngine(filters)) {
+            return new InProcessFilterEngine(null, options.tileSize);
+        }
+
+        try {
+            Path executable = options.cpp != null
+                    ? Path.of(options.cpp)
+                    : CppApplicationService.findExecutable(Path.of(System.getProperty("user.dir")));
+            if (!Files.isExecutable(executable)) {
+                throw new RuntimeException("Native executable not found: " + executable);
+            }
+            int workers = options.workers >= 0 ? options.workers : options.parallel;
+            return new CppApplicationService(executable, workers);
+        } catch (RuntimeException e) {
+            if ("native".equals(options.engine)) throw e;
+            err.println(e.getMessage() + " - using the in-process filter engine");
+            return new InProcessFilterEngine(null, options.tileSize);
+        }
+    }
+
+    private static final class Options {
+        String filters;
+        String input;
+        String output;
+        String engine = "auto";
+        String cpp;
+        int parallel = Runtime.getRuntime().availableProcessors();
+        int workers = -1;
+        int tileSize;
+        boolean quiet;
+        ChainOptimizer.Mode optimize = ChainOptimizer.configuredMode();
+        boolean explain;
+        boolean serve;
+        int port;
+        int queue = 16;
+        int maxUploadMb = 64;
+        String exportCube;
+        boolean sequence;
+        int frameDelay = 40;
+        boolean help;
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            List<String> positional = new ArrayList<>();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-h", "--help" -> o.help = true;
+                    case "-q", "--quiet" -> o.quiet = true;
+                    case "--optimize" -> {
+                        String mode = value(args, ++i, arg);
+                        try {
+                            o.optimize = ChainOptimizer.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("Unknown optimizer mode: " + mode);
+                        }
+                    }
+                    case "--explain" -> o.explain = true;
+                    case "-f", "--filters" -> o.filters = value(args, ++i, arg);
+                    case "--engine" -> {
+                        o.engine = value(args, ++i, arg).toLowerCase(Locale.ROOT);
+                        if (!List.of("auto", "native", "java").contains(o.engine)) {
+                            throw new IllegalArgumentException("Unknown engine: " + o.engine);
+                        }
+                    }
+                    case "--cpp" -> o.cpp = value(args, ++i, arg);
+                    case "--parallel" -> o.parallel = intAtLeast(args, ++i, arg, 1);
+                    case "--workers" -> o.workers = intAtLeast(args, ++i, arg, 0);
+                    case "--tile-size" -> o.tileSize = intAtLeast(args, ++i, arg, 0);
+                    case "--serve" -> {
+                        o.serve = true;
+                        o.port = intAtLeast(args, ++i, arg, 0);
+                    }
+                    case "--queue" -> o.queue = intAtLeast(args, ++i, arg, 0);
+                    case "--max-upload-mb" -> o.maxUploadMb = intAtLeast(args, ++i, arg, 1);
+                    case "--export-cube" -> o.exportCube = value(args, ++i, arg);
+                    case "--sequence" -> o.sequence = true;
+                    case "--frame-delay" -> o.frameDelay = intAtLeast(args, ++i, arg, 0);
+                    default -> {
+                        if (arg.startsWith("-") && arg.length() > 1) {
+                            throw new IllegalArgumentException("Unknown option: " + arg);
+                        }
+                        positional.add(arg);
+                    }
+                }
+            }
+            if (o.help) return o;
+            if (o.serve) {
+                if (!positional.isEmpty()) throw new IllegalArgumentException("--serve takes no input or output paths");
+                return o;
+            }
+            if (o.filters == null) throw new IllegalArgumentException("Missing --filters");
+            if (o.exportCube != null) {
+                if (!positional.isEmpty()) throw new IllegalArgumentException("--export-cube takes no input or output paths");
+                return o;
+            }
+            if (positional.size() != 2) throw new IllegalArgumentException("Expected <input> and <output>");
+            o.input = positional.get(0);
+            o.output = positional.get(1);
+            return o;
+        }
+
+        private static String value(String[] args, int i, String option) {
+            if (i >= args.length) throw new IllegalArgumentException("Missing value for " + option);
+            return args[i];
+        }
+
+        private static int intAtLeast(String[] args, int i, String option, int min) {
+            String text = value(args, i, option);
+            try {
+                int v = Integer.parseInt(text);
+                if (v >= min) return v;
+            } catch (NumberFormatException ignored) {
+                // reported below
+            }
+            throw new IllegalArgumentException(option + " must be an integer >= " + min + ": " + text);
+        }
+    }
+}
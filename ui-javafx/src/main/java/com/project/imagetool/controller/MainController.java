@@ -1,31 +1,53 @@
 package com.project.imagetool.controller;
 
 import com.project.imagetool.filter.*;
+import com.project.imagetool.metrics.StageMetrics;
+import com.project.imagetool.model.ImageFilter;
 import com.project.imagetool.model.ImageJob;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.BufferPool;
+import com.project.imagetool.processing.StageCache;
+import com.project.imagetool.service.BatchProcessor;
+import com.project.imagetool.service.BatchSummary;
+import com.project.imagetool.service.CachingJobRunner;
+import com.project.imagetool.service.ChainOptimizer;
 import com.project.imagetool.service.CppApplicationService;
-import javafx.concurrent.Task;
+import com.project.imagetool.service.ImageJobRunner;
+import com.project.imagetool.service.InProcessFilterEngine;
+import com.project.imagetool.service.JobScheduler;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.paint.Color;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 import javafx.scene.layout.VBox;
 import javafx.application.Platform;
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.io.IOException;
 import com.project.imagetool.service.LogManager;
+import com.project.imagetool.service.OptimizingJobRunner;
+import com.project.imagetool.service.PreviewService;
+import com.project.imagetool.service.EditHistory;
+import com.project.imagetool.service.ImageCodec;
+import com.project.imagetool.service.ResultCache;
 import com.project.imagetool.service.TempFileManager;
+import com.project.imagetool.util.FxImages;
+import com.project.imagetool.util.ImageDisplayService;
 import com.project.imagetool.util.InputFormatters;
 import com.project.imagetool.util.ValidationUtil;
 
 public class MainController {
     @FXML private ImageView imageView;
+    @FXML private ScrollPane imageScrollPane;
     @FXML private Label placeholderLabel;
 
     @FXML private CheckBox grayCheckBox;
@@ -37,7 +59,9 @@ public class MainController {
     @FXML private CheckBox singleColourCheckBox;
 
     @FXML private Button processBtn;
+    @FXML private Button cancelBtn;
     @FXML private Button revertImageBtn;
+    @FXML private Button redoImageBtn;
 
     @FXML private ColorPicker singleColourPicker;
 
@@ -50,9 +74,40 @@ public class MainController {
     @FXML private ToggleButton logsToggleButton;
     @FXML private VBox logScrollPane;
     @FXML private TextArea logTextArea;
+    @FXML private CheckBox previewCheckBox;
 
     private File inputImage;
+    // temp outputs use the job runner's fastest intermediate format; PNG is only written on Save
     private final TempFileManager tempFileManager = new TempFileManager();
+    private CppApplicationService cppService;
+    private ImageJobRunner jobRunner;
+    private ResultCache resultCache;
+    private StageCache stageCache;
+    private PreviewService previewService;
+    // decodes shown images off the FX thread at view size; the preview covers it while previewShown
+    private ImageDisplayService display;
+    private boolean previewShown;
+    private double baseFitWidth;
+    private double baseFitHeight;
+    private double zoom = 1;
+    private LogManager logManager;
+
+    // interactive work and batch images share the scheduler; batch gets the threads interactive jobs leave free
+    private final JobScheduler scheduler = new JobScheduler(
+            Integer.getInteger("imagetool.scheduler.threads", Runtime.getRuntime().availableProcessors()));
+    private ProcessRun processRun;
+    private JobScheduler.Job<BatchSummary> batchJob;
+
+    // the running undo, redo or recording of an undo step; Process and history steps never overlap
+    private HistoryRun historyRun;
+
+    // output only becomes the temp output once the job has written it
+    private record ProcessRun(JobScheduler.Job<Void> job, Path input, Path output, String label, StageMetrics.Timer timer) {}
+    private record HistoryRun(JobScheduler.Job<Path> job, String action, Consumer<Path> onSucceeded) {}
+    // undo/redo deltas: kept in memory up to the budget, older ones spill to disk
+    private final EditHistory history = new EditHistory(
+            Long.getLong("imagetool.history.memoryMB", 64) * 1024 * 1024,
+            Integer.getInteger("imagetool.history.steps", 20));
 
     @FXML
     public void initialize() {
@@ -60,6 +115,24 @@ public class MainController {
         rainbowDirectionChoice.setValue("Rows");
         singleColourPicker.setValue(Color.WHITE);
 
+        display = new ImageDisplayService(imageView, () -> previewShown);
+        baseFitWidth = imageView.getFitWidth();
+        baseFitHeight = imageView.getFitHeight();
+        if (imageScrollPane != null) {
+            // Ctrl+scroll zooms, plain scrolling pans
+            imageScrollPane.addEventFilter(ScrollEvent.SCROLL, event -> {
+                if (!event.isControlDown() || event.getDeltaY() == 0) return;
+                setZoom(zoom * (event.getDeltaY() > 0 ? 1.25 : 0.8));
+                event.consume();
+            });
+        }
+
+        // the log pane keeps at most this many lines
+        logManager = new LogManager(logTextArea, Integer.getInteger("imagetool.log.maxLines", 2000));
+        logManager.startWatching();
+
+        scheduler.addListener((job, state) -> Platform.runLater(() -> onJobChanged(job, state)));
+
         if (logsToggleButton != null && logScrollPane != null && logTextArea != null) {
             logsToggleButton.setSelected(false);
             logScrollPane.setVisible(false);
@@ -90,19 +163,48 @@ public class MainController {
 
         for (CheckBox cb : filterBoxes) {
             if (cb != null) {
-                cb.selectedProperty().addListener((obs, oldV, newV) -> updateProcessButtonState());
+                cb.selectedProperty().addListener((obs, oldV, newV) -> {
+                    updateProcessButtonState();
+                    schedulePreview();
+                });
             }
         }
 
+        // Live preview follows every parameter change
+        for (TextField field : new TextField[] { blurKernelField, blurSigmaField, edgeLowField, edgeHighField }) {
+            field.textProperty().addListener((obs, oldV, newV) -> schedulePreview());
+        }
+        rainbowDirectionChoice.valueProperty().addListener((obs, oldV, newV) -> schedulePreview());
+        singleColourPicker.valueProperty().addListener((obs, oldV, newV) -> schedulePreview());
+        if (previewCheckBox != null) {
+            previewCheckBox.selectedProperty().addListener((obs, oldV, newV) -> {
+                if (newV) {
+                    refreshPreviewSource();
+                    schedulePreview();
+                } else {
+                    if (previewService != null) previewService.cancel();
+                    previewShown = false;
+                    display.restore();
+                }
+            });
+        }
+
         // Set initial state
         updateProcessButtonState();
 
         // Register shutdown hook to clean up temporary files when the JVM exits - destructor
         try {
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                // kills native processes still working for us before their temp files go
+                scheduler.close();
                 try {
                     tempFileManager.cleanupAll();
                 } catch (Exception ignore) {}
+                history.close();
+                logManager.close();
+                if (cppService != null) cppService.close();
+                if (previewService != null) previewService.close();
+                display.close();
             }));
         } catch (Exception ignore) {}
     }
@@ -116,7 +218,11 @@ public class MainController {
                 || (edgeCheckBox != null && edgeCheckBox.isSelected())
                 || (rainbowCheckBox != null && rainbowCheckBox.isSelected())
                 || (singleColourCheckBox != null && singleColourCheckBox.isSelected());
-        processBtn.setDisable(!anySelected);
+        processBtn.setDisable(!anySelected || editing());
+    }
+
+    private boolean editing() {
+        return processRun != null || historyRun != null;
     }
 
     @FXML
@@ -125,13 +231,22 @@ public class MainController {
         chooser.getExtensionFilters().add(
                 new FileChooser.ExtensionFilter("Images", "*.png", "*.jpg")
         );
+        if (editing()) {
+            showError("Wait for the current step to finish");
+            return;
+        }
         inputImage = chooser.showOpenDialog(null);
 
         if (inputImage != null) {
-            // discard any previous temp output when loading a new image
+            // discard any previous temp output and history when loading a new image
             try { tempFileManager.deleteTempOutput(); } catch (Exception ignore) {}
-            imageView.setImage(new Image(inputImage.toURI().toString()));
+            history.restart();
+            updateHistoryButtons();
+            setZoom(1);
+            showImage(inputImage.toPath(), null);
             placeholderLabel.setVisible(false);
+            refreshPreviewSource();
+            schedulePreview();
         }
     }
 
@@ -141,7 +256,8 @@ public class MainController {
             showError("No image loaded");
             return;
         }
-        
+        if (editing()) return;
+
         processBtn.setDisable(true);
         
         try {
@@ -150,37 +266,13 @@ public class MainController {
                     : inputImage.toPath();
 
             // validate parameters before creating temp files
-            if (!ValidationUtil.validateParameters(
-                    (blurCheckBox != null && blurCheckBox.isSelected()),
-                    blurKernelField.getText(),
-                    blurSigmaField.getText(),
-                    (edgeCheckBox != null && edgeCheckBox.isSelected()),
-                    edgeLowField.getText(),
-                    edgeHighField.getText(),
-                    this::showError
-            )) {
+            if (!parametersValid()) {
                 processBtn.setDisable(false);
                 return;
             }
 
-                // prepare previous output: if there's a temp output, create prev from it, otherwise from the original input
-                try {
-                    if (tempFileManager.getPrevOutputImage() != null && Files.exists(tempFileManager.getPrevOutputImage())) {
-                        try { Files.delete(tempFileManager.getPrevOutputImage()); } catch (Exception ignore) {}
-                    }
-
-                    if (tempFileManager.getTempOutputImage() != null && Files.exists(tempFileManager.getTempOutputImage())) {
-                        tempFileManager.createPrevFrom(tempFileManager.getTempOutputImage());
-                        if (revertImageBtn != null) revertImageBtn.setDisable(false);
-                    } else if (inputImage != null) {
-                        tempFileManager.createPrevFrom(inputImage.toPath());
-                        if (revertImageBtn != null) revertImageBtn.setDisable(false);
-                    }
-                } catch (Exception ex) {
-                    System.err.println("Could not create prev temp output: " + ex.getMessage());
-                }
-
-                Path oldOutput = tempFileManager.getTempOutputImage();
+                ImageJobRunner service = getJobRunner();
+                List<ImageFilter> filters = buildFilters();
                 Path newTemp = tempFileManager.createTempOutput();
 
                 ImageJob job = new ImageJob(
@@ -188,116 +280,353 @@ public class MainController {
                     newTemp
                 );
 
-            if (grayCheckBox.isSelected()) {
-                job.addFilter(new GrayFilter());
+            for (ImageFilter filter : filters) {
+                job.addFilter(filter);
             }
+            String label = ResultCache.canonicalChain(job.getFilters());
 
-            if (heartCheckBox.isSelected()) {
-                job.addFilter(new HeartFilter());
-            }
+            StageMetrics.Timer jobTimer = StageMetrics.start();
 
-            if (roseCheckBox.isSelected()) {
-                job.addFilter(new RoseFilter());
-            }
+            JobScheduler.Job<Void> scheduled = scheduler.submit("Process " + label, JobScheduler.Priority.INTERACTIVE, () -> {
+                service.run(job);
+                return null;
+            }, () -> deleteQuietly(newTemp));
+            processRun = new ProcessRun(scheduled, inputPath, newTemp, label, jobTimer);
+            updateCancelButton();
+            updateHistoryButtons();
+            
+        } catch (NumberFormatException e) {
+            showError("Invalid numeric parameter");
+            updateProcessButtonState();
+        } catch (Exception e) {
+            showError("Failed to start processing:\n" + e.getMessage());
+            e.printStackTrace();
+            updateProcessButtonState();
+        }
+    }
 
-            if (blurCheckBox.isSelected()) {
-                job.addFilter(new BlurFilter(
-                        Integer.parseInt(blurKernelField.getText()),
-                        Double.parseDouble(blurSigmaField.getText())
-                ));
-            }
+    @FXML
+    private void onCancel() {
+        ProcessRun run = processRun;
+        if (run != null) {
+            run.job().cancel();
+        } else if (batchJob != null) {
+            batchJob.cancel();
+        }
+    }
 
-            if (edgeCheckBox.isSelected()) {
-                job.addFilter(new EdgeFilter(
-                        Double.parseDouble(edgeLowField.getText()),
-                        Double.parseDouble(edgeHighField.getText())
-                ));
+    // Called on the FX thread for every scheduler state change
+    private void onJobChanged(JobScheduler.Job<?> job, JobScheduler.State state) {
+        ProcessRun run = processRun;
+        if (run != null && run.job() == job && job.isDone()) {
+            processRun = null;
+            switch (state) {
+                case SUCCEEDED -> processSucceeded(run);
+                case FAILED -> processFailed(run, job.getError());
+                default -> processCancelled(run);
             }
-
-            if (rainbowCheckBox.isSelected()) {
-                RainbowFilter.Mode dir = rainbowDirectionChoice.getValue().equals("Rows")
-                        ? RainbowFilter.Mode.ROW
-                        : RainbowFilter.Mode.COLUMN;
-                job.addFilter(new RainbowFilter(dir));
+        }
+        JobScheduler.Job<BatchSummary> batch = batchJob;
+        if (batch != null && batch == job && job.isDone()) {
+            batchJob = null;
+            batchFinished(batch, state);
+        }
+        HistoryRun step = historyRun;
+        if (step != null && step.job() == job && job.isDone()) {
+            historyRun = null;
+            switch (state) {
+                case SUCCEEDED -> step.onSucceeded().accept(step.job().getResult());
+                case FAILED -> showError(step.action() + " failed:\n" + job.getError().getMessage());
+                default -> appendLog(step.action() + " cancelled");
             }
+        }
+        updateCancelButton();
+        updateHistoryButtons();
+        updateProcessButtonState();
+    }
+
+    private void updateCancelButton() {
+        if (cancelBtn != null) cancelBtn.setDisable(processRun == null && batchJob == null);
+    }
+
+    private void processSucceeded(ProcessRun run) {
+        try {
+            Path previous = tempFileManager.replaceTempOutput(run.output());
+            // Load and display the new processed image; the job ends once it is on screen
+            StageMetrics.Timer displayTimer = StageMetrics.start();
+            showImage(run.output(), () -> {
+                displayTimer.stop("display");
+                run.timer().stop("job.total");
+            });
+            // the preview now starts from the processed image; it refreshes on the next change
+            refreshPreviewSource();
+            // Append any new log lines from processing_log.txt to the log view
+            logManager.appendProcessingLog();
+            recordStep(run, previous);
+        } catch (Exception ex) {
+            showError("Failed to load processed image: " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
 
-            if (singleColourCheckBox.isSelected()) {
-                Color color = singleColourPicker.getValue();
-                int red = (int) (color.getRed() * 255);
-                int green = (int) (color.getGreen() * 255);
-                int blue = (int) (color.getBlue() * 255);
-                job.addFilter(new SingleColourFilter(red, green, blue));
+    // The delta needs both images at full size; decoding them after the result is shown keeps
+    // that out of the job's latency. previous is this step's input, so it is deleted only here.
+    private void recordStep(ProcessRun run, Path previous) {
+        JobScheduler.Job<Path> job = scheduler.submit("Record " + run.label(), JobScheduler.Priority.INTERACTIVE, () -> {
+            try {
+                history.record(ImageCodec.read(run.input()), ImageCodec.read(run.output()), run.label());
+            } catch (Exception ex) {
+                // older steps cannot be reached across the missing one
+                System.err.println("Could not record undo step, history cleared: " + ex.getMessage());
+                history.clear();
+            } finally {
+                if (previous != null) deleteQuietly(previous);
             }
+            return null;
+        }, () -> {
+            history.clear();
+            if (previous != null) deleteQuietly(previous);
+        });
+        historyRun = new HistoryRun(job, "Recording the undo step", result -> {});
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            System.err.println("Could not delete temp file " + file + ": " + ex.getMessage());
+        }
+    }
 
-            Path cppExe = findCppExecutable();
-            CppApplicationService service = new CppApplicationService(cppExe);
+    // Log the error, clean up temp files and re-enable UI
+    private void processFailed(ProcessRun run, Throwable exception) {
+        if (logTextArea != null) {
+            appendLog("Processing failed: " + exception.getMessage());
+            logManager.appendProcessingLog();
+        } else {
+            System.err.println("Processing failed: " + exception.getMessage());
+            exception.printStackTrace();
+        }
 
-            Task<Void> processTask = new Task<Void>() {
-                @Override
-                protected Void call() throws Exception {
-                    service.run(job);
-                    return null;
-                }
-            };
+        Platform.runLater(() -> showError("Processing failed:\n" + exception.getMessage()));
 
-            // Update UI on success
-            processTask.setOnSucceeded(e -> {
-                try {
-                    // Delete old temp file if it exists (from previous processing)
-                    if (oldOutput != null && Files.exists(oldOutput) && !oldOutput.equals(tempFileManager.getTempOutputImage())) {
-                        try {
-                            Files.delete(oldOutput);
-                        } catch (Exception deleteEx) {
-                            System.err.println("Could not delete old temp file: " + deleteEx.getMessage());
-                        }
+        // the output never became the temp output, so the previous result stays current
+        deleteQuietly(run.output());
+    }
+
+    private void processCancelled(ProcessRun run) {
+        appendLog("Processing cancelled");
+        deleteQuietly(run.output());
+    }
+
+    // Decoded in the background at view size; the preview may temporarily replace it in the view
+    private void showImage(Path path, Runnable onShown) {
+        previewShown = false;
+        display.show(path, onShown, e -> showError("Failed to load image: " + e.getMessage()));
+    }
+
+    // Scales the view; the display service decodes a larger level only when the zoom needs it
+    private void setZoom(double value) {
+        zoom = Math.max(1, Math.min(8, value));
+        imageView.setFitWidth(baseFitWidth * zoom);
+        imageView.setFitHeight(baseFitHeight * zoom);
+        display.update();
+    }
+
+    private boolean previewEnabled() {
+        return previewCheckBox != null && previewCheckBox.isSelected() && inputImage != null;
+    }
+
+    private PreviewService getPreviewService() {
+        if (previewService == null) {
+            previewService = new PreviewService(new InProcessFilterEngine(getStageCache()), 250);
+        }
+        return previewService;
+    }
+
+    private void refreshPreviewSource() {
+        if (!previewEnabled()) return;
+        Path base = (tempFileManager.getTempOutputImage() != null && Files.exists(tempFileManager.getTempOutputImage()))
+                ? tempFileManager.getTempOutputImage()
+                : inputImage.toPath();
+        getPreviewService().setSource(base, (int) baseFitWidth, (int) baseFitHeight);
+    }
+
+    private void schedulePreview() {
+        if (!previewEnabled()) return;
+
+        // invalid or half-typed parameters just skip the preview, errors are shown on Process
+        List<ImageFilter> filters;
+        try {
+            if (!ValidationUtil.validateParameters(blurCheckBox.isSelected(), blurKernelField.getText(),
+                    blurSigmaField.getText(), edgeCheckBox.isSelected(), edgeLowField.getText(),
+                    edgeHighField.getText(), msg -> {})) {
+                return;
+            }
+            filters = buildFilters();
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        getPreviewService().request(filters,
+                result -> Platform.runLater(() -> {
+                    if (previewEnabled()) {
+                        previewShown = true;
+                        imageView.setImage(FxImages.toFxImage(result));
                     }
-                    // Load and display the new processed image
-                    imageView.setImage(new Image(tempFileManager.getTempOutputImage().toUri().toString()));
-                    // Append any new log lines from processing_log.txt to the log view
-                    LogManager.appendProcessingLog(logTextArea);
-                    processBtn.setDisable(false);
-                } catch (Exception ex) {
-                    showError("Failed to load processed image: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            });
+                }),
+                error -> Platform.runLater(() -> appendLog("Preview failed: " + error.getMessage())));
+    }
+
+    private boolean parametersValid() {
+        return ValidationUtil.validateParameters(
+                (blurCheckBox != null && blurCheckBox.isSelected()),
+                blurKernelField.getText(),
+                blurSigmaField.getText(),
+                (edgeCheckBox != null && edgeCheckBox.isSelected()),
+                edgeLowField.getText(),
+                edgeHighField.getText(),
+                this::showError
+        );
+    }
 
-            // Handle errors: log to UI, clean up temp files and re-enable UI
-            processTask.setOnFailed(e -> {
-                Throwable exception = processTask.getException();
+    // Filter chain in the order the checkboxes are applied
+    private List<ImageFilter> buildFilters() {
+        List<ImageFilter> filters = new ArrayList<>();
 
-                StringWriter sw = new StringWriter();
-                exception.printStackTrace(new PrintWriter(sw));
-                String trace = sw.toString();
+        if (grayCheckBox.isSelected()) {
+            filters.add(new GrayFilter());
+        }
 
-                if (logTextArea != null) {
-                    logTextArea.appendText("Processing failed: " + exception.getMessage() + System.lineSeparator());
-                    LogManager.appendProcessingLog(logTextArea);
-                    logTextArea.positionCaret(logTextArea.getLength());
-                } else {
-                    System.err.println("Processing failed: " + exception.getMessage());
-                    exception.printStackTrace();
-                }
+        if (heartCheckBox.isSelected()) {
+            filters.add(new HeartFilter());
+        }
 
-                Platform.runLater(() -> showError("Processing failed:\n" + exception.getMessage()));
+        if (roseCheckBox.isSelected()) {
+            filters.add(new RoseFilter());
+        }
 
-                // Attempt to remove the temporary output file created for this run so future runs don't reuse a corrupted file
-                try { tempFileManager.deleteTempOutput(); } catch (Exception ignore) {}
+        if (blurCheckBox.isSelected()) {
+            filters.add(new BlurFilter(
+                    Integer.parseInt(blurKernelField.getText()),
+                    Double.parseDouble(blurSigmaField.getText())
+            ));
+        }
 
-                if (processBtn != null) processBtn.setDisable(false);
-            });
+        if (edgeCheckBox.isSelected()) {
+            filters.add(new EdgeFilter(
+                    Double.parseDouble(edgeLowField.getText()),
+                    Double.parseDouble(edgeHighField.getText())
+            ));
+        }
 
-            // Start the background task
-            new Thread(processTask).start();
-            
+        if (rainbowCheckBox.isSelected()) {
+            RainbowFilter.Mode dir = rainbowDirectionChoice.getValue().equals("Rows")
+                    ? RainbowFilter.Mode.ROW
+                    : RainbowFilter.Mode.COLUMN;
+            filters.add(new RainbowFilter(dir));
+        }
+
+        if (singleColourCheckBox.isSelected()) {
+            Color color = singleColourPicker.getValue();
+            int red = (int) (color.getRed() * 255);
+            int green = (int) (color.getGreen() * 255);
+            int blue = (int) (color.getBlue() * 255);
+            filters.add(new SingleColourFilter(red, green, blue));
+        }
+
+        return filters;
+    }
+
+    @FXML
+    private void onBatch() {
+        if (batchJob != null) {
+            showError("A batch is already running");
+            return;
+        }
+        if (!parametersValid()) return;
+
+        List<ImageFilter> filters;
+        try {
+            filters = buildFilters();
         } catch (NumberFormatException e) {
             showError("Invalid numeric parameter");
-        } catch (Exception e) {
-            showError("Failed to start processing:\n" + e.getMessage());
-            e.printStackTrace();
+            return;
+        }
+        if (filters.isEmpty()) {
+            showError("Select at least one filter for the batch");
+            return;
+        }
+
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Batch input folder");
+        File inputDir = chooser.showDialog(null);
+        if (inputDir == null) return;
+        chooser.setTitle("Batch output folder");
+        File outputDir = chooser.showDialog(null);
+        if (outputDir == null) return;
+
+        int parallelism = Integer.getInteger("imagetool.batch.parallelism", Runtime.getRuntime().availableProcessors());
+
+        // waits on the per-image jobs, so it runs as a coordinator rather than on a worker they need;
+        // cancelling it interrupts the wait, which cancels the jobs still queued or running
+        batchJob = scheduler.submitCoordinator("Batch " + inputDir.getName(), () -> {
+            List<Path> inputs = BatchProcessor.collectInputs(inputDir.getPath());
+            // dedicated runner so native workers match the batch parallelism
+            ImageJobRunner runner = withOptimizer(withResultCache(createJobRunner(parallelism)));
+            try {
+                // every image is a batch job, so interactive processing overtakes the queued ones
+                ImageJobRunner scheduled = scheduler.asRunner(runner, JobScheduler.Priority.BATCH);
+                return new BatchProcessor(scheduled, parallelism).process(inputs, outputDir.toPath(), filters,
+                        r -> Platform.runLater(() -> appendLog((r.isSuccess() ? "Done " : "FAILED ")
+                                + r.getInput().getFileName())));
+            } finally {
+                if (runner instanceof AutoCloseable closeable) closeable.close();
+            }
+        }, null);
+
+        appendLog("Batch started: " + inputDir + " -> " + outputDir + " (parallelism " + parallelism + ")");
+        updateCancelButton();
+    }
+
+    private void batchFinished(JobScheduler.Job<BatchSummary> job, JobScheduler.State state) {
+        switch (state) {
+            case SUCCEEDED -> {
+                appendLog(job.getResult().format());
+                if (resultCache != null) appendLog("Result " + resultCache.getStats());
+            }
+            case FAILED -> showError("Batch failed:\n" + job.getError().getMessage());
+            default -> appendLog("Batch cancelled");
+        }
+    }
+
+    @FXML
+    private void onShowMetrics() {
+        appendLog(StageMetrics.format());
+        appendLog(BufferPool.format());
+    }
+
+    @FXML
+    private void onExportMetrics() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export stage metrics");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON", "*.json"));
+        chooser.setInitialFileName("stage-metrics.json");
+        File target = chooser.showSaveDialog(null);
+        if (target == null) return;
+
+        try {
+            StageMetrics.exportJson(target.toPath());
+            appendLog("Stage metrics exported to " + target);
+        } catch (IOException ex) {
+            showError("Failed to export metrics:\n" + ex.getMessage());
         }
     }
 
+    private void appendLog(String line) {
+        logManager.append(line);
+    }
+
     @FXML
     private void onSave() {
         if (tempFileManager.getTempOutputImage() == null) {
@@ -314,8 +643,13 @@ public class MainController {
 
         if (target != null) {
             try {
-                Files.copy(tempFileManager.getTempOutputImage(), target.toPath(),
-                        java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                Path temp = tempFileManager.getTempOutputImage();
+                if (!temp.getFileName().toString().endsWith(".png")) {
+                    // intermediate format: transcode to a real PNG
+                    ImageCodec.write(ImageCodec.read(temp), target.toPath());
+                } else {
+                    Files.copy(temp, target.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                }
             } catch (Exception e) {
                 showError("Failed to save file");
             }
@@ -329,39 +663,131 @@ public class MainController {
         alert.showAndWait();
     }
 
-    private Path findCppExecutable() {
-        Path currentDir = Path.of(System.getProperty("user.dir"));
-        Path searchDir = currentDir;
-        
-        for (int i = 0; i < 5; i++) {
-            Path cppMain = searchDir.resolve("cpp/main");
-            if (Files.exists(cppMain)) {
-                return cppMain.toAbsolutePath();
-            }
-            
-            Path parent = searchDir.getParent();
-            if (parent == null) {
-                break;
+    private ImageJobRunner getJobRunner() {
+        if (jobRunner == null) {
+            // number of long-lived native workers; 0 spawns a new process per job
+            ImageJobRunner runner = createJobRunner(Integer.getInteger("imagetool.workers", 1));
+            if (runner instanceof CppApplicationService service) cppService = service;
+            jobRunner = withOptimizer(withResultCache(runner));
+            tempFileManager.setSuffix("." + chooseTempFormat(jobRunner));
+        }
+        return jobRunner;
+    }
+
+    private String chooseTempFormat(ImageJobRunner runner) {
+        // "auto" negotiates with the runner; pxb, bmp or png force a format (transport=shm means pxb)
+        String legacy = "shm".equalsIgnoreCase(System.getProperty("imagetool.transport")) ? "pxb" : "auto";
+        String wanted = System.getProperty("imagetool.tempFormat", legacy).toLowerCase(Locale.ROOT);
+        List<String> supported = runner.intermediateFormats();
+        if ("auto".equals(wanted)) return supported.get(0);
+        if (!supported.contains(wanted)) {
+            System.err.println("Temp format " + wanted + " not supported by the engine, using " + supported.get(0));
+            return supported.get(0);
+        }
+        return wanted;
+    }
+
+    // Outside the result cache, so chains that optimise to the same one share entries
+    private ImageJobRunner withOptimizer(ImageJobRunner runner) {
+        ChainOptimizer.Mode mode = ChainOptimizer.configuredMode();
+        if (mode == ChainOptimizer.Mode.OFF) return runner;
+        // -Dimagetool.optimizer.explain=true logs every rewrite in the log pane
+        boolean explain = Boolean.getBoolean("imagetool.optimizer.explain");
+        return new OptimizingJobRunner(runner, mode,
+                explain ? line -> Platform.runLater(() -> appendLog("Optimizer: " + line)) : null);
+    }
+
+    private ImageJobRunner withResultCache(ImageJobRunner runner) {
+        if (resultCache == null) {
+            long memoryMb = Long.getLong("imagetool.cache.memoryMB", 64);
+            long diskMb = Long.getLong("imagetool.cache.diskMB", 512);
+            if (memoryMb <= 0 && diskMb <= 0) return runner;
+            try {
+                resultCache = new ResultCache(Path.of(System.getProperty("java.io.tmpdir"), "imgtool_cache"),
+                        memoryMb * 1024 * 1024, diskMb * 1024 * 1024);
+            } catch (IOException ex) {
+                System.err.println("Result cache disabled: " + ex.getMessage());
+                return runner;
             }
-            searchDir = parent;
         }
-        
-        throw new RuntimeException("Could not find cpp/main executable. Searched from: " + currentDir.toAbsolutePath());
+        return new CachingJobRunner(runner, resultCache);
     }
-    
 
-    @FXML
-    private void onRevertImage() {
-        if (tempFileManager.getPrevOutputImage() == null || !Files.exists(tempFileManager.getPrevOutputImage())) return;
+    private ImageJobRunner createJobRunner(int workers) {
+        // "native" (default) runs cpp/main, "java" filters inside the JVM
+        String engine = System.getProperty("imagetool.engine", "native");
+        if ("java".equalsIgnoreCase(engine)) {
+            return createInProcessEngine();
+        }
+
         try {
-            Path restored = tempFileManager.restorePrevToTemp();
-            if (revertImageBtn != null) revertImageBtn.setDisable(true);
+            return new CppApplicationService(CppApplicationService.findExecutable(Path.of(System.getProperty("user.dir"))), workers);
+        } catch (RuntimeException ex) {
+            System.err.println(ex.getMessage() + " - using the in-process filter engine");
+            return createInProcessEngine();
+        }
+    }
 
-            // load into UI
-            if (restored != null) imageView.setImage(new Image(restored.toUri().toString()));
-        } catch (IOException ex) {
-            System.err.println("Failed to revert image: " + ex.getMessage());
+    private InProcessFilterEngine createInProcessEngine() {
+        // images larger than this are processed in tiles to bound memory; 0 processes whole images
+        return new InProcessFilterEngine(getStageCache(), Integer.getInteger("imagetool.tileSize", 0));
+    }
+
+    private StageCache getStageCache() {
+        if (stageCache == null) {
+            // intermediate results per filter prefix, so tweaking the last filter only reruns that filter
+            long budgetMb = Long.getLong("imagetool.stageCache.memoryMB", 256);
+            stageCache = new StageCache(budgetMb * 1024 * 1024);
         }
+        return stageCache;
+    }
+
+    @FXML
+    private void onRevertImage() {
+        stepHistory(true);
+    }
+
+    @FXML
+    private void onRedoImage() {
+        stepHistory(false);
+    }
+
+    private void stepHistory(boolean back) {
+        if (inputImage == null || editing() || (back ? !history.canUndo() : !history.canRedo())) return;
+
+        Path current = tempFileManager.getTempOutputImage() != null ? tempFileManager.getTempOutputImage() : inputImage.toPath();
+        String label = back ? history.peekUndoLabel() : history.peekRedoLabel();
+        String action = back ? "Undo" : "Redo";
+        // the restored image is written before it becomes the temp output; null means back at the loaded
+        // image, which is only known when no step was dropped or cleared since it was loaded
+        JobScheduler.Job<Path> job = scheduler.submit(action + " " + label, JobScheduler.Priority.INTERACTIVE, () -> {
+            PixelBuffer image = ImageCodec.read(current);
+            PixelBuffer restored = back ? history.undo(image) : history.redo(image);
+            if (history.isAtStart()) return null;
+            try {
+                return tempFileManager.createTempOutput(restored);
+            } catch (IOException | RuntimeException ex) {
+                // keep the history in step with the image that is still shown
+                if (back) history.redo(restored); else history.undo(restored);
+                throw ex;
+            }
+        }, null);
+        historyRun = new HistoryRun(job, action, restored -> {
+            Path previous = tempFileManager.replaceTempOutput(restored);
+            if (previous != null) deleteQuietly(previous);
+            // back at the loaded image: use the original file rather than a re-encoded copy
+            showImage(restored != null ? restored : inputImage.toPath(), null);
+            refreshPreviewSource();
+            schedulePreview();
+            appendLog((back ? "Undone: " : "Redone: ") + label);
+        });
+        updateHistoryButtons();
+        updateProcessButtonState();
+    }
+
+    private void updateHistoryButtons() {
+        revertImageBtn.setDisable(editing() || !history.canUndo());
+        redoImageBtn.setDisable(editing() || !history.canRedo());
     }
 
 }
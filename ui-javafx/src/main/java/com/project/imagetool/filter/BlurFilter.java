@@ -2,6 +2,8 @@ package com.project.imagetool.filter;
 
 import com.project.imagetool.model.FilterType;
 import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.GaussianBlur;
 
 import java.util.List;
 
@@ -15,6 +17,14 @@ public class BlurFilter implements ImageFilter {
         this.sigma = sigma;
     }
 
+    public int getKernelSize() {
+        return kernelSize;
+    }
+
+    public double getSigma() {
+        return sigma;
+    }
+
     @Override
     public FilterType getType() {
         return FilterType.BLUR;
@@ -28,5 +38,27 @@ public class BlurFilter implements ImageFilter {
                 String.valueOf(sigma)
         );
     }
+
+    // every channel is blurred with the same kernel
+    @Override
+    public boolean preservesGray() {
+        return true;
+    }
+
+    @Override
+    public int haloRadius() {
+        return kernelSize / 2;
+    }
+
+    @Override
+    public PixelBuffer apply(PixelBuffer source) {
+        if (kernelSize <= 0 || kernelSize % 2 == 0) {
+            throw new IllegalArgumentException("Invalid kernel size for BlurFilter, make sure it's positive and odd.");
+        }
+        if (sigma <= 0) {
+            throw new IllegalArgumentException("Invalid sigma for BlurFilter, make sure it's positive.");
+        }
+        return GaussianBlur.blur(source, kernelSize, sigma);
+    }
 }
 
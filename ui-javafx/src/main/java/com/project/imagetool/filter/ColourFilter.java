@@ -0,0 +1,66 @@
+package com.project.imagetool.filter;
+
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.Pixels;
+import com.project.imagetool.processing.PointOperation;
+import com.project.imagetool.processing.PointPass;
+
+import java.util.List;
+
+/**
+ * Shared in-process path of the colour filters: map every pixel on normalised
+ * floats, optionally add the soft glow, convert back to 8 bits.
+ *
+ * The glow is measured in pixels. A preview rendered on a downscaled proxy uses
+ * {@link #withGlowScale} so the glow keeps its size relative to the image.
+ */
+public abstract class ColourFilter implements ImageFilter, PointOperation, Cloneable {
+
+    private double glowScale = 1;
+
+    // Glow kernel size at full resolution, 0 when there is none
+    protected int unscaledGlowKernelSize() {
+        return 0;
+    }
+
+    /** A copy of this filter whose glow kernel and sigma are multiplied by scale. */
+    public ColourFilter withGlowScale(double scale) {
+        try {
+            ColourFilter copy = (ColourFilter) clone();
+            copy.glowScale = glowScale * scale;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // rounded to an odd size like the preview's blur kernels
+    @Override
+    public final int glowKernelSize() {
+        int size = unscaledGlowKernelSize();
+        if (size == 0 || glowScale == 1) return size;
+        return Math.max(1, (int) Math.round(size * glowScale) | 1);
+    }
+
+    @Override
+    public final double glowSigma() {
+        return Math.max(0.1, Pixels.GLOW_SIGMA * glowScale);
+    }
+
+    @Override
+    public String signature() {
+        String signature = ImageFilter.super.signature();
+        return glowScale == 1 ? signature : signature + "@glow" + glowScale;
+    }
+
+    @Override
+    public int haloRadius() {
+        return glowKernelSize() / 2;
+    }
+
+    @Override
+    public PixelBuffer apply(PixelBuffer source) {
+        return PointPass.apply(source, List.of(this));
+    }
+}
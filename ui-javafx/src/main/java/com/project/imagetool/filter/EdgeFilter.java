@@ -2,17 +2,51 @@ package com.project.imagetool.filter;
 
 import com.project.imagetool.model.FilterType;
 import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.BufferPool;
+import com.project.imagetool.processing.CannyEdgeDetector;
+import com.project.imagetool.processing.GaussianBlur;
+import com.project.imagetool.processing.Pixels;
 
 import java.util.List;
 
 public class EdgeFilter implements ImageFilter {
 
+    // pre-blur applied before Canny when none is given, as in EdgeFilter::process
+    public static final int DEFAULT_PRE_BLUR_KERNEL = 3;
+    public static final double DEFAULT_PRE_BLUR_SIGMA = 5;
+
     private final double low;
     private final double high;
+    private final int preBlurKernel;
+    private final double preBlurSigma;
 
     public EdgeFilter(double low, double high) {
+        this(low, high, DEFAULT_PRE_BLUR_KERNEL, DEFAULT_PRE_BLUR_SIGMA);
+    }
+
+    // a pre-blur kernel of 0 runs Canny on the input as it is
+    public EdgeFilter(double low, double high, int preBlurKernel, double preBlurSigma) {
         this.low = low;
         this.high = high;
+        this.preBlurKernel = preBlurKernel;
+        this.preBlurSigma = preBlurSigma;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public int getPreBlurKernel() {
+        return preBlurKernel;
+    }
+
+    public double getPreBlurSigma() {
+        return preBlurSigma;
     }
 
     @Override
@@ -20,13 +54,62 @@ public class EdgeFilter implements ImageFilter {
         return FilterType.EDGE;
     }
 
+    public boolean hasDefaultPreBlur() {
+        return preBlurKernel == DEFAULT_PRE_BLUR_KERNEL && preBlurSigma == DEFAULT_PRE_BLUR_SIGMA;
+    }
+
+    // the default pre-blur is left out, so builds that predate the option still get what they expect
     @Override
     public List<String> toCliArgs() {
+        if (hasDefaultPreBlur()) {
+            return List.of("--edge", String.valueOf(low), String.valueOf(high));
+        }
         return List.of(
                 "--edge",
                 String.valueOf(low),
-                String.valueOf(high)
+                String.valueOf(high),
+                String.valueOf(preBlurKernel),
+                String.valueOf(preBlurSigma)
         );
     }
+
+    // a 0/255 mask replicated to all channels
+    @Override
+    public boolean producesGray() {
+        return true;
+    }
+
+    // hysteresis can follow an edge across the whole image
+    @Override
+    public int haloRadius() {
+        return -1;
+    }
+
+    @Override
+    public PixelBuffer apply(PixelBuffer source) {
+        // the native filter receives the thresholds as ints
+        int t1 = (int) low;
+        int t2 = (int) high;
+        if (t1 < 0 || t2 < 0) {
+            throw new IllegalArgumentException("Thresholds for EdgeFilter must be non-negative.");
+        }
+        if (t1 >= t2) {
+            throw new IllegalArgumentException("Threshold1 must be less than threshold2 for EdgeFilter.");
+        }
+        if (preBlurKernel < 0 || (preBlurKernel > 0 && preBlurKernel % 2 == 0)) {
+            throw new IllegalArgumentException("Pre-blur kernel for EdgeFilter must be 0 or positive and odd.");
+        }
+        if (preBlurKernel > 0 && preBlurSigma <= 0) {
+            throw new IllegalArgumentException("Pre-blur sigma for EdgeFilter must be positive.");
+        }
+
+        if (preBlurKernel == 0) {
+            return Pixels.fromMask(CannyEdgeDetector.detect(source, t1, t2), source.getWidth(), source.getHeight());
+        }
+        PixelBuffer blurred = GaussianBlur.blur(source, preBlurKernel, preBlurSigma);
+        byte[] edges = CannyEdgeDetector.detect(blurred, t1, t2);
+        BufferPool.release(blurred);
+        return Pixels.fromMask(edges, source.getWidth(), source.getHeight());
+    }
 }
 
@@ -0,0 +1,50 @@
+package com.project.imagetool.filter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Tables that only depend on the image size and a mode, such as the heart mask, shared
+ * across jobs and tiles and evicted least-recently-used under a byte budget.
+ * Cached tables are shared, callers must not modify them.
+ */
+class GeometryCache<T> {
+    private final long maxBytes;
+    private final ToLongFunction<T> sizeOf;
+    private final LinkedHashMap<String, T> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    GeometryCache(long maxBytes, ToLongFunction<T> sizeOf) {
+        this.maxBytes = maxBytes;
+        this.sizeOf = sizeOf;
+    }
+
+    // Built outside the lock, so two threads may build the same table once; either result is equal
+    T get(int width, int height, Object mode, Supplier<T> build) {
+        String key = width + "x" + height + ":" + mode;
+        synchronized (this) {
+            T cached = entries.get(key);
+            if (cached != null) return cached;
+        }
+
+        T table = build.get();
+        long size = sizeOf.applyAsLong(table);
+        if (size > maxBytes) return table;
+
+        synchronized (this) {
+            T previous = entries.put(key, table);
+            if (previous != null) bytes -= sizeOf.applyAsLong(previous);
+            bytes += size;
+
+            Iterator<Map.Entry<String, T>> it = entries.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                bytes -= sizeOf.applyAsLong(it.next().getValue());
+                it.remove();
+            }
+        }
+        return table;
+    }
+}
@@ -2,10 +2,16 @@ package com.project.imagetool.filter;
 
 import com.project.imagetool.model.FilterType;
 import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.BufferPool;
+import com.project.imagetool.processing.ColourClasses;
+import com.project.imagetool.processing.PixelMapper;
+import com.project.imagetool.processing.Pixels;
+import com.project.imagetool.processing.PointOperation;
 
 import java.util.List;
 
-public class GrayFilter implements ImageFilter {
+public class GrayFilter implements ImageFilter, PointOperation {
 
     @Override
     public FilterType getType() {
@@ -16,4 +22,48 @@ public class GrayFilter implements ImageFilter {
     public List<String> toCliArgs() {
         return List.of("--gray");
     }
+
+    @Override
+    public boolean producesGray() {
+        return true;
+    }
+
+    // luma(g, g, g) == g, since the fixed-point weights sum to exactly 1
+    @Override
+    public boolean identityOnGray() {
+        return true;
+    }
+
+    @Override
+    public boolean readsLumaOnly() {
+        return true;
+    }
+
+    @Override
+    public PixelBuffer apply(PixelBuffer source) {
+        byte[] in = source.getData();
+        PixelBuffer result = BufferPool.lease(source.getWidth(), source.getHeight());
+        byte[] out = result.getData();
+        for (int i = 0; i < in.length; i += PixelBuffer.CHANNELS) {
+            byte gray = (byte) Pixels.luma(in[i] & 0xFF, in[i + 1] & 0xFF, in[i + 2] & 0xFF);
+            out[i] = gray;
+            out[i + 1] = gray;
+            out[i + 2] = gray;
+        }
+        return result;
+    }
+
+    @Override
+    public PixelMapper createMapper(int width, int height) {
+        return (x, y, bgr) -> {
+            int gray = Pixels.luma(Pixels.saturate(bgr[0] * 255f), Pixels.saturate(bgr[1] * 255f),
+                    Pixels.saturate(bgr[2] * 255f));
+            bgr[0] = bgr[1] = bgr[2] = gray / 255f;
+        };
+    }
+
+    @Override
+    public ColourClasses colourClasses(int width, int height) {
+        return ColourClasses.UNIFORM;
+    }
 }
@@ -1,11 +1,23 @@
 package com.project.imagetool.filter;
 
 import com.project.imagetool.model.FilterType;
-import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.processing.ColourClasses;
+import com.project.imagetool.processing.PixelMapper;
 
 import java.util.List;
 
-public class HeartFilter implements ImageFilter {
+public class HeartFilter extends ColourFilter {
+
+    // indexed by mask class: 0 background, 1 outer glow, 2 inner glow, 3 outline (RGB)
+    private static final float[][] HEART_COLOURS = {
+            {0.49f, 0.337f, 0.749f},
+            {0.969f, 0.345f, 0.71f},
+            {0.98f, 0.345f, 0.525f},
+            {1, 1, 1}
+    };
+    private static final double[] BRIGHTNESS = {0.8, 0.9, 4, 5};
+    // a byte per pixel; 64 MB holds the masks of a few large photos
+    private static final GeometryCache<byte[]> MASKS = new GeometryCache<>(64L << 20, mask -> mask.length);
 
     @Override
     public FilterType getType() {
@@ -16,4 +28,64 @@ public class HeartFilter implements ImageFilter {
     public List<String> toCliArgs() {
         return List.of("--heart");
     }
+
+    @Override
+    public PixelMapper createMapper(int width, int height) {
+        byte[] mask = MASKS.get(width, height, "heart", () -> heart(width, height));
+
+        return (x, y, bgr) -> {
+            int num = mask[y * width + x];
+            float brightness = (float) (0.299 * bgr[2] + 0.587 * bgr[1] + 0.114 * bgr[0]);
+            brightness = (float) (brightness * BRIGHTNESS[num]);
+            float[] colour = HEART_COLOURS[num];
+
+            if (num >= 2) {
+                bgr[2] = Math.min(1.0f, brightness * colour[0]);
+                bgr[1] = Math.min(1.0f, brightness * colour[1]);
+                bgr[0] = Math.min(1.0f, brightness * colour[2]);
+            } else {
+                float keep = num == 1 ? 0.1f : 0.2f;
+                bgr[2] = Math.min(1.0f, brightness * colour[0] + bgr[2] * keep);
+                bgr[1] = Math.min(1.0f, brightness * colour[1] + bgr[1] * keep);
+                bgr[0] = Math.min(1.0f, brightness * colour[2] + bgr[0] * keep);
+            }
+        };
+    }
+
+    @Override
+    protected int unscaledGlowKernelSize() {
+        return 45;
+    }
+
+    // The inner glow and outline multiply brightness by 4 and 5 and clip; a 33-point grid smooths
+    // that corner by up to 8 levels, so Heart always runs on the exact mappers
+    @Override
+    public ColourClasses colourClasses(int width, int height) {
+        return null;
+    }
+
+    // Mask class per pixel from the distance to the heart curve, as HeartFilter::heart
+    private static byte[] heart(int width, int height) {
+        byte[] mask = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                float nx = ((2.0f * x / width) - 1.0f) * (-1.5f);
+                float ny = ((2.0f * y / height) - 1.0f) * (-1.5f) + 0.3f;
+
+                float a = 5.0f / 4.0f * ny - (float) Math.sqrt(Math.abs(nx));
+                float value = nx * nx + a * a - 1.0f;
+
+                byte num = 0;
+                if (value <= 0.01f && value >= -0.01f) {
+                    num = 3;
+                } else if (value <= 0.03f && value >= -0.03f) {
+                    num = 2;
+                } else if (value <= 0.1f && value >= -0.1f) {
+                    num = 1;
+                }
+                mask[y * width + x] = num;
+            }
+        }
+        return mask;
+    }
 }
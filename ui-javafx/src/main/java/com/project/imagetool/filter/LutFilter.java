@@ -0,0 +1,54 @@
+package com.project.imagetool.filter;
+
+import com.project.imagetool.model.FilterType;
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.ColourLut;
+import com.project.imagetool.processing.CubeFile;
+import com.project.imagetool.util.Hashing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Applies a 3D LUT read from a {@code .cube} file, e.g. one written with --export-cube.
+ * The native executable has no LUT stage, so chains with one run in process only.
+ */
+public class LutFilter implements ImageFilter {
+
+    private final Path file;
+    private final ColourLut lut;
+    // the table, not the path, decides the output, so cache keys use the file's hash
+    private final String contentHash;
+
+    public LutFilter(Path file) throws IOException {
+        this.file = file;
+        this.lut = CubeFile.read(file);
+        this.contentHash = Hashing.sha256Hex(file);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public FilterType getType() {
+        return FilterType.LUT;
+    }
+
+    @Override
+    public List<String> toCliArgs() {
+        return List.of("--lut", file.toString());
+    }
+
+    @Override
+    public String signature() {
+        return getType().name() + "(" + contentHash + ")";
+    }
+
+    @Override
+    public PixelBuffer apply(PixelBuffer source) {
+        return lut.apply(source);
+    }
+}
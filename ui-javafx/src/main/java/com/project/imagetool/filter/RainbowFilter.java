@@ -1,13 +1,22 @@
 package com.project.imagetool.filter;
 import com.project.imagetool.model.FilterType;
-import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.processing.ColourClasses;
+import com.project.imagetool.processing.PixelMapper;
 
 import java.util.List;
 
-public class RainbowFilter implements ImageFilter {
+public class RainbowFilter extends ColourFilter {
 
     public enum Mode { ROW, COLUMN }
 
+    // red, orange, yellow, green, blue, magenta as RGB
+    private static final float[][] RAINBOW = {
+            {1, 0, 0}, {1, 0.5f, 0}, {1, 1, 0}, {0, 1, 0}, {0, 0, 1}, {1, 0, 1}
+    };
+
+    // RGB mix per row or column
+    private static final GeometryCache<float[][]> COLOURS = new GeometryCache<>(16L << 20, table -> 12L * table.length);
+
     private final Mode mode;
 
     public RainbowFilter() {
@@ -27,5 +36,70 @@ public class RainbowFilter implements ImageFilter {
     public List<String> toCliArgs() {
         return List.of("--rainbow", mode == Mode.ROW ? "r" : "c");
     }
-}
 
+    @Override
+    public PixelMapper createMapper(int width, int height) {
+        float[][] colours = COLOURS.get(width, height, mode, () -> colours(mode == Mode.ROW ? height : width));
+
+        return (x, y, bgr) -> {
+            float[] c = colours[mode == Mode.ROW ? y : x];
+            float brightness = (float) (0.299 * bgr[2] + 0.587 * bgr[1] + 0.114 * bgr[0]);
+            brightness = (float) (brightness * 1.2);
+
+            bgr[2] = Math.min(1.0f, brightness * c[0]);
+            bgr[1] = Math.min(1.0f, brightness * c[1]);
+            bgr[0] = Math.min(1.0f, brightness * c[2]);
+        };
+    }
+
+    @Override
+    public boolean readsLumaOnly() {
+        return true;
+    }
+
+    // One class per row or column; usually too many for a table per class
+    @Override
+    public ColourClasses colourClasses(int width, int height) {
+        int count = mode == Mode.ROW ? height : width;
+        return new ColourClasses() {
+            @Override
+            public int count() {
+                return count;
+            }
+
+            @Override
+            public int classOf(int x, int y) {
+                return mode == Mode.ROW ? y : x;
+            }
+        };
+    }
+
+    private static float[][] colours(int count) {
+        float[][] colours = new float[count][];
+        for (int i = 0; i < count; i++) {
+            colours[i] = colour(count, i);
+        }
+        return colours;
+    }
+
+    // Weighted mix of the rainbow colours for one row/column, as RainbowFilter::colour
+    private static float[] colour(int all, int current) {
+        int lengthOfInterval = all / 5;
+        float weightSum = 0;
+        float[] colour = new float[3];
+
+        for (int i = 0; i < RAINBOW.length; i++) {
+            float dis = Math.abs(lengthOfInterval * i - current);
+            float w = (float) Math.pow(all - dis, 3);
+            weightSum += w;
+            colour[0] += w * RAINBOW[i][0];
+            colour[1] += w * RAINBOW[i][1];
+            colour[2] += w * RAINBOW[i][2];
+        }
+
+        colour[0] /= weightSum;
+        colour[1] /= weightSum;
+        colour[2] /= weightSum;
+        return colour;
+    }
+}
@@ -1,11 +1,12 @@
 package com.project.imagetool.filter;
 
 import com.project.imagetool.model.FilterType;
-import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.processing.ColourClasses;
+import com.project.imagetool.processing.PixelMapper;
 
 import java.util.List;
 
-public class RoseFilter implements ImageFilter {
+public class RoseFilter extends ColourFilter {
 
     @Override
     public FilterType getType() {
@@ -16,4 +17,23 @@ public class RoseFilter implements ImageFilter {
     public List<String> toCliArgs() {
         return List.of("--rose");
     }
+
+    @Override
+    public PixelMapper createMapper(int width, int height) {
+        return (x, y, bgr) -> {
+            bgr[2] = Math.min(1.0f, bgr[2] * 1.4f + 0.1f);
+            bgr[0] = Math.min(1.0f, bgr[0] * 1.2f + 0.05f);
+            bgr[1] = Math.max(0.0f, bgr[1] * 0.7f - 0.05f);
+        };
+    }
+
+    @Override
+    protected int unscaledGlowKernelSize() {
+        return 25;
+    }
+
+    @Override
+    public ColourClasses colourClasses(int width, int height) {
+        return ColourClasses.UNIFORM;
+    }
 }
@@ -1,11 +1,12 @@
 package com.project.imagetool.filter;
 
 import com.project.imagetool.model.FilterType;
-import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.processing.ColourClasses;
+import com.project.imagetool.processing.PixelMapper;
 
 import java.util.List;
 
-public class SingleColourFilter implements ImageFilter {
+public class SingleColourFilter extends ColourFilter {
 
     private final int red;
     private final int green;
@@ -31,5 +32,42 @@ public class SingleColourFilter implements ImageFilter {
                 String.valueOf(blue)
         );
     }
-}
 
+    @Override
+    public PixelMapper createMapper(int width, int height) {
+        if (red < 0 || red > 255 || green < 0 || green > 255 || blue < 0 || blue > 255) {
+            throw new IllegalArgumentException("RGB values must be in range 0-255 for SingleColourFilter.");
+        }
+        float r = red / 255.0f;
+        float g = green / 255.0f;
+        float b = blue / 255.0f;
+
+        return (x, y, bgr) -> {
+            float brightness = (float) (0.299 * bgr[2] + 0.587 * bgr[1] + 0.114 * bgr[0]);
+            bgr[1] = Math.min(1.0f, brightness * g);
+            bgr[2] = Math.min(1.0f, brightness * r);
+            bgr[0] = Math.min(1.0f, brightness * b);
+        };
+    }
+
+    // a gray tint scales all channels alike, and so does the glow
+    @Override
+    public boolean producesGray() {
+        return red == green && green == blue;
+    }
+
+    @Override
+    public boolean readsLumaOnly() {
+        return true;
+    }
+
+    @Override
+    protected int unscaledGlowKernelSize() {
+        return 25;
+    }
+
+    @Override
+    public ColourClasses colourClasses(int width, int height) {
+        return ColourClasses.UNIFORM;
+    }
+}
@@ -0,0 +1,22 @@
+package com.project.imagetool.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// A stage timed inside cpp/main and reported back after the job
+@Name("com.project.imagetool.NativeStage")
+@Label("Image Tool Native Stage")
+@Category("Image Tool")
+@Description("Stage duration reported by the native executable")
+class NativeStageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Reported Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long reportedDuration;
+}
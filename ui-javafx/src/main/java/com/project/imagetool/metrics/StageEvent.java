@@ -0,0 +1,17 @@
+package com.project.imagetool.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A stage timed in this JVM; the event's own duration is the stage duration
+@Name("com.project.imagetool.Stage")
+@Label("Image Tool Stage")
+@Category("Image Tool")
+@Description("Decode, filter, encode, native job or display stage of an image job")
+class StageEvent extends Event {
+    @Label("Stage")
+    String stage;
+}
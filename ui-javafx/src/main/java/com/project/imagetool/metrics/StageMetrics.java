@@ -0,0 +1,138 @@
+package com.project.imagetool.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Application-wide per-stage timings. Every sample is emitted as a JDK Flight Recorder
+ * event and added to a histogram per stage name ("decode", "filter.BLUR",
+ * "native.filter.GRAY", "display", ...), from which count and p50/p95/p99 are reported.
+ * Each stage keeps its most recent {@value #MAX_SAMPLES} samples.
+ */
+public final class StageMetrics {
+    private static final int MAX_SAMPLES = 10_000;
+    private static final Map<String, Samples> STAGES = new ConcurrentSkipListMap<>();
+
+    private StageMetrics() {}
+
+    // The stage is named when it ends, so a timer can cover work whose label is only known afterwards
+    public static final class Timer {
+        private final StageEvent event = new StageEvent();
+        private final long start = System.nanoTime();
+
+        private Timer() {
+            event.begin();
+        }
+
+        public void stop(String stage) {
+            long nanos = System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage;
+                event.commit();
+            }
+            add(stage, nanos);
+        }
+    }
+
+    public static Timer start() {
+        return new Timer();
+    }
+
+    // Parses "decode=1.204 filter.GRAY=0.310 ..." (milliseconds) as reported by cpp/main
+    public static void recordNative(String timings) {
+        for (String token : timings.trim().split("\\s+")) {
+            int eq = token.indexOf('=');
+            if (eq <= 0) continue;
+            try {
+                String stage = "native." + token.substring(0, eq);
+                long nanos = Math.round(Double.parseDouble(token.substring(eq + 1)) * 1_000_000);
+
+                NativeStageEvent event = new NativeStageEvent();
+                if (event.shouldCommit()) {
+                    event.stage = stage;
+                    event.reportedDuration = nanos;
+                    event.commit();
+                }
+                add(stage, nanos);
+            } catch (NumberFormatException ex) {
+                System.err.println("Ignoring malformed native timing: " + token);
+            }
+        }
+    }
+
+    private static void add(String stage, long nanos) {
+        STAGES.computeIfAbsent(stage, s -> new Samples()).add(nanos);
+    }
+
+    public static void reset() {
+        STAGES.clear();
+    }
+
+    public static String format() {
+        if (STAGES.isEmpty()) return "No stage timings recorded yet";
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%-28s %7s %10s %10s %10s%n",
+                "Stage", "Count", "p50 ms", "p95 ms", "p99 ms"));
+        for (Map.Entry<String, Samples> entry : STAGES.entrySet()) {
+            long[] sorted = entry.getValue().sorted();
+            sb.append(String.format(Locale.ROOT, "%-28s %7d %10.2f %10.2f %10.2f%n",
+                    entry.getKey(), entry.getValue().count(),
+                    percentileMillis(sorted, 50), percentileMillis(sorted, 95), percentileMillis(sorted, 99)));
+        }
+        return sb.toString().stripTrailing();
+    }
+
+    public static String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"stages\": [");
+        boolean first = true;
+        for (Map.Entry<String, Samples> entry : STAGES.entrySet()) {
+            long[] sorted = entry.getValue().sorted();
+            sb.append(first ? "\n" : ",\n");
+            first = false;
+            sb.append(String.format(Locale.ROOT,
+                    "    {\"stage\": \"%s\", \"count\": %d, \"p50Ms\": %.3f, \"p95Ms\": %.3f, \"p99Ms\": %.3f}",
+                    entry.getKey().replace("\\", "\\\\").replace("\"", "\\\""), entry.getValue().count(),
+                    percentileMillis(sorted, 50), percentileMillis(sorted, 95), percentileMillis(sorted, 99)));
+        }
+        return sb.append(first ? "]\n}\n" : "\n  ]\n}\n").toString();
+    }
+
+    public static void exportJson(Path target) throws IOException {
+        Files.writeString(target, toJson(), StandardCharsets.UTF_8);
+    }
+
+    // Nearest-rank percentile, like BatchSummary
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        int index = Math.min(Math.max(rank - 1, 0), sorted.length - 1);
+        return sorted[index] / 1e6;
+    }
+
+    // Ring of the most recent samples plus the total count
+    private static final class Samples {
+        private final long[] ring = new long[MAX_SAMPLES];
+        private long count;
+
+        synchronized void add(long nanos) {
+            ring[(int) (count % MAX_SAMPLES)] = nanos;
+            count++;
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(ring, (int) Math.min(count, MAX_SAMPLES));
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -7,5 +7,6 @@ public enum FilterType {
     ROSE,
     SINGLE_COLOR,
     RAINBOW,
-    HEART
+    HEART,
+    LUT
 }
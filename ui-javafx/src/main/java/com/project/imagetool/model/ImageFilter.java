@@ -5,4 +5,39 @@ import java.util.List;
 public interface ImageFilter {
     FilterType getType();
     List<String> toCliArgs();
+
+    // In-process execution; returns the filtered image and leaves source untouched
+    PixelBuffer apply(PixelBuffer source);
+
+    // Pixels of context needed on each side for exact output, -1 if the output depends on the whole image
+    default int haloRadius() {
+        return 0;
+    }
+
+    // Algebraic properties the chain optimiser relies on; all false unless a filter declares them
+
+    // Every output pixel has B == G == R
+    default boolean producesGray() {
+        return false;
+    }
+
+    // Gray input gives gray output, e.g. a per-channel blur
+    default boolean preservesGray() {
+        return false;
+    }
+
+    // Returns gray input unchanged, bit for bit
+    default boolean identityOnGray() {
+        return false;
+    }
+
+    // Output depends on the input only through its luma, up to rounding
+    default boolean readsLumaOnly() {
+        return false;
+    }
+
+    // Canonical encoding of type and parameters, used for cache keys, e.g. "BLUR(--blur,9,2.0)"
+    default String signature() {
+        return getType().name() + "(" + String.join(",", toCliArgs()) + ")";
+    }
 }
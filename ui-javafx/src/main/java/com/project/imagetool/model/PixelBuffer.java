@@ -0,0 +1,53 @@
+package com.project.imagetool.model;
+
+/**
+ * 8-bit, 3-channel image stored as interleaved BGR bytes, the same layout the
+ * native side works on ({@code CV_8UC3}).
+ */
+public class PixelBuffer {
+    public static final int CHANNELS = 3;
+
+    private final int width;
+    private final int height;
+    private final byte[] data;
+
+    public PixelBuffer(int width, int height) {
+        this(width, height, new byte[checkedSize(width, height)]);
+    }
+
+    public PixelBuffer(int width, int height, byte[] data) {
+        if (data.length != checkedSize(width, height)) {
+            throw new IllegalArgumentException("Pixel data does not match " + width + "x" + height + "x" + CHANNELS);
+        }
+        this.width = width;
+        this.height = height;
+        this.data = data;
+    }
+
+    private static int checkedSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive: " + width + "x" + height);
+        }
+        return Math.multiplyExact(Math.multiplyExact(width, height), CHANNELS);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getStride() {
+        return width * CHANNELS;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public PixelBuffer copy() {
+        return new PixelBuffer(width, height, data.clone());
+    }
+}
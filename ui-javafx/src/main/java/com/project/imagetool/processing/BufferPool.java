@@ -0,0 +1,192 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.PixelBuffer;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recycles the full-size pixel and float arrays that jobs allocate for every image.
+ * Buffers are pooled by exact length, since a {@link PixelBuffer} must match its size;
+ * batch and sequence runs mostly repeat one size, so they hit after the first image.
+ *
+ * A lease is owned by whoever holds it: release it once nothing reads it any more, or
+ * {@link #detach} it when it is handed to code that keeps it, such as a cache or the UI.
+ * Leased contents are not cleared, so every byte must be written before it is read.
+ *
+ * -Dimagetool.pool.mb bounds the pooled memory (default 256, 0 disables pooling).
+ * With -Dimagetool.pool.debug=true every lease remembers where it was taken, and a
+ * leased buffer that is garbage collected without being released or detached is reported.
+ */
+public final class BufferPool {
+    private static final long MAX_BYTES = Long.getLong("imagetool.pool.mb", 256) * 1024 * 1024;
+    private static final boolean DEBUG = Boolean.getBoolean("imagetool.pool.debug");
+
+    private record SizeClass(boolean floats, int length) {
+        long bytes() {
+            return floats ? 4L * length : length;
+        }
+    }
+
+    // least recently used size class first
+    private static final LinkedHashMap<SizeClass, ArrayDeque<Object>> FREE = new LinkedHashMap<>(16, 0.75f, true);
+    private static long pooledBytes;
+
+    private static final AtomicLong LEASES = new AtomicLong();
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong RELEASES = new AtomicLong();
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final AtomicLong LEAKS = new AtomicLong();
+
+    // debug mode only: an outstanding lease with the stack that took it
+    private static final class Lease extends WeakReference<Object> {
+        final Throwable site;
+        final long bytes;
+
+        Lease(Object array, long bytes, ReferenceQueue<Object> queue) {
+            super(array, queue);
+            this.site = new Throwable("Leased here");
+            this.bytes = bytes;
+        }
+    }
+
+    // leases compare by their own identity; identity hash codes of the arrays may collide
+    private static final Set<Lease> OUTSTANDING = ConcurrentHashMap.newKeySet();
+    private static final ReferenceQueue<Object> COLLECTED = new ReferenceQueue<>();
+
+    private BufferPool() {}
+
+    public static PixelBuffer lease(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive: " + width + "x" + height);
+        }
+        int length = Math.multiplyExact(Math.multiplyExact(width, height), PixelBuffer.CHANNELS);
+        byte[] data = (byte[]) take(new SizeClass(false, length));
+        if (data == null) data = new byte[length];
+        track(data, length);
+        return new PixelBuffer(width, height, data);
+    }
+
+    public static float[] leaseFloats(int length) {
+        float[] data = (float[]) take(new SizeClass(true, length));
+        if (data == null) data = new float[length];
+        track(data, 4L * length);
+        return data;
+    }
+
+    // Any buffer may be released, also one that was not leased; it must not be used afterwards
+    public static void release(PixelBuffer buffer) {
+        if (buffer != null) put(buffer.getData(), new SizeClass(false, buffer.getData().length));
+    }
+
+    public static void release(float[] data) {
+        if (data != null) put(data, new SizeClass(true, data.length));
+    }
+
+    // The caller keeps buffer for good; it leaves leak tracking and is never released
+    public static PixelBuffer detach(PixelBuffer buffer) {
+        if (DEBUG && buffer != null) untrack(buffer.getData());
+        return buffer;
+    }
+
+    public static long getLeases() {
+        return LEASES.get();
+    }
+
+    public static double getHitRate() {
+        long leases = LEASES.get();
+        return leases == 0 ? 0 : 100.0 * HITS.get() / leases;
+    }
+
+    public static synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    public static String format() {
+        String line = String.format(Locale.ROOT,
+                "Buffer pool: %d leases, %.1f%% hits, %d released, %d dropped, %.1f MB pooled",
+                LEASES.get(), getHitRate(), RELEASES.get(), DROPPED.get(), getPooledBytes() / (1024.0 * 1024.0));
+        if (DEBUG) {
+            pollCollected();
+            line += String.format(Locale.ROOT, ", %d outstanding, %d leaked", OUTSTANDING.size(), LEAKS.get());
+        }
+        return line;
+    }
+
+    private static Object take(SizeClass size) {
+        LEASES.incrementAndGet();
+        if (DEBUG) pollCollected();
+        synchronized (BufferPool.class) {
+            ArrayDeque<Object> free = FREE.get(size);
+            if (free == null || free.isEmpty()) return null;
+            Object array = free.pop();
+            pooledBytes -= size.bytes();
+            HITS.incrementAndGet();
+            return array;
+        }
+    }
+
+    private static void put(Object array, SizeClass size) {
+        if (DEBUG) untrack(array);
+        RELEASES.incrementAndGet();
+        if (size.bytes() > MAX_BYTES) {
+            DROPPED.incrementAndGet();
+            return;
+        }
+        synchronized (BufferPool.class) {
+            ArrayDeque<Object> free = FREE.computeIfAbsent(size, s -> new ArrayDeque<>());
+            // a second owner of the same array would see its pixels overwritten
+            for (Object pooled : free) {
+                if (pooled == array) throw new IllegalStateException("Buffer released twice");
+            }
+            free.push(array);
+            pooledBytes += size.bytes();
+
+            // evict from the size classes used longest ago, which may be this one
+            Iterator<Map.Entry<SizeClass, ArrayDeque<Object>>> it = FREE.entrySet().iterator();
+            while (pooledBytes > MAX_BYTES && it.hasNext()) {
+                Map.Entry<SizeClass, ArrayDeque<Object>> entry = it.next();
+                while (pooledBytes > MAX_BYTES && !entry.getValue().isEmpty()) {
+                    entry.getValue().removeLast();
+                    pooledBytes -= entry.getKey().bytes();
+                    DROPPED.incrementAndGet();
+                }
+                if (entry.getValue().isEmpty()) it.remove();
+            }
+        }
+    }
+
+    private static void track(Object array, long bytes) {
+        if (!DEBUG) return;
+        OUTSTANDING.add(new Lease(array, bytes, COLLECTED));
+    }
+
+    // Only a few leases are outstanding at a time, so a scan is cheap enough for debug mode
+    private static void untrack(Object array) {
+        for (Lease lease : OUTSTANDING) {
+            if (lease.get() == array) {
+                OUTSTANDING.remove(lease);
+                return;
+            }
+        }
+    }
+
+    private static void pollCollected() {
+        for (Object ref; (ref = COLLECTED.poll()) != null; ) {
+            Lease lease = (Lease) ref;
+            if (OUTSTANDING.remove(lease)) {
+                LEAKS.incrementAndGet();
+                System.err.println("Pooled buffer of " + lease.bytes + " bytes was never released or detached");
+                lease.site.printStackTrace();
+            }
+        }
+    }
+}
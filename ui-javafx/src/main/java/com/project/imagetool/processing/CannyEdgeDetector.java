@@ -0,0 +1,229 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.PixelBuffer;
+
+import java.util.Arrays;
+
+/**
+ * Port of {@code cv::Canny} with aperture 3 and the L1 gradient norm.
+ * Multi-channel input uses the channel with the strongest gradient, like OpenCV.
+ *
+ * Gradient and non-maximum suppression run in parallel row bands, each recomputing the
+ * gradient row above it. Hysteresis labels the candidate pixels of each band with a
+ * union-find, then joins the labels across the band seams; a component is an edge if any
+ * of its pixels is strong, which is exactly what growing from the strong pixels gives.
+ */
+public final class CannyEdgeDetector {
+    private static final int PARALLELISM = Integer.getInteger("imagetool.edge.threads",
+            Runtime.getRuntime().availableProcessors());
+
+    // tan(22.5 deg) in Q15, as in OpenCV
+    private static final int TG22 = 13573;
+
+    private static final byte NONE = 0;
+    private static final byte WEAK = 1;
+    private static final byte STRONG = 2;
+
+    private CannyEdgeDetector() {}
+
+    // Returns a single-channel mask with 255 on edges and 0 elsewhere
+    public static byte[] detect(PixelBuffer src, double lowThreshold, double highThreshold) {
+        return detect(src, lowThreshold, highThreshold, PARALLELISM);
+    }
+
+    // The result does not depend on parallelism
+    public static byte[] detect(PixelBuffer src, double lowThreshold, double highThreshold, int parallelism) {
+        if (lowThreshold > highThreshold) {
+            double t = lowThreshold;
+            lowThreshold = highThreshold;
+            highThreshold = t;
+        }
+        int low = (int) Math.floor(lowThreshold);
+        int high = (int) Math.floor(highThreshold);
+
+        int width = src.getWidth();
+        int height = src.getHeight();
+        byte[] map = new byte[width * height];
+        int[] parent = new int[width * height];
+        int[] bounds = RowBands.split(width, height, parallelism);
+
+        RowBands.forEach(bounds, (y0, y1) -> {
+            suppressBand(src, map, y0, y1, low, high);
+            labelBand(map, parent, width, y0, y1);
+        });
+        for (int b = 1; b < bounds.length - 1; b++) {
+            joinSeam(map, parent, width, bounds[b]);
+        }
+
+        byte[] mask = new byte[map.length];
+        RowBands.forEach(bounds, (y0, y1) -> {
+            for (int i = y0 * width; i < y1 * width; i++) {
+                if (map[i] != NONE && map[root(parent, i)] == STRONG) mask[i] = (byte) 255;
+            }
+        });
+        return mask;
+    }
+
+    private static void suppressBand(PixelBuffer src, byte[] map, int y0, int y1, int low, int high) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+
+        // rolling window of magnitude rows, padded by one zero column on each side
+        int[] magPrev = new int[width + 2];
+        int[] magCur = new int[width + 2];
+        int[] magNext = new int[width + 2];
+        short[] dxCur = new short[width];
+        short[] dyCur = new short[width];
+        short[] dxNext = new short[width];
+        short[] dyNext = new short[width];
+
+        // the row above the band only supplies magnitudes; above the image they are zero
+        if (y0 > 0) gradientRow(src, y0 - 1, dxNext, dyNext, magPrev);
+        gradientRow(src, y0, dxCur, dyCur, magCur);
+        for (int y = y0; y < y1; y++) {
+            if (y + 1 < height) {
+                gradientRow(src, y + 1, dxNext, dyNext, magNext);
+            } else {
+                Arrays.fill(magNext, 0);
+            }
+
+            suppressRow(map, y * width, width, magPrev, magCur, magNext, dxCur, dyCur, low, high);
+
+            int[] m = magPrev; magPrev = magCur; magCur = magNext; magNext = m;
+            short[] s = dxCur; dxCur = dxNext; dxNext = s;
+            s = dyCur; dyCur = dyNext; dyNext = s;
+        }
+    }
+
+    // 3x3 Sobel with BORDER_REPLICATE, keeping the channel with the largest |dx| + |dy|
+    static void gradientRow(PixelBuffer src, int y, short[] dxOut, short[] dyOut, int[] magOut) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        int stride = src.getStride();
+        byte[] p = src.getData();
+        int above = Math.max(y - 1, 0) * stride;
+        int row = y * stride;
+        int below = Math.min(y + 1, height - 1) * stride;
+
+        for (int x = 0; x < width; x++) {
+            int left = Math.max(x - 1, 0) * PixelBuffer.CHANNELS;
+            int centre = x * PixelBuffer.CHANNELS;
+            int right = Math.min(x + 1, width - 1) * PixelBuffer.CHANNELS;
+
+            int bestMag = -1;
+            int bestDx = 0;
+            int bestDy = 0;
+            for (int c = 0; c < PixelBuffer.CHANNELS; c++) {
+                int tl = p[above + left + c] & 0xFF, tc = p[above + centre + c] & 0xFF, tr = p[above + right + c] & 0xFF;
+                int ml = p[row + left + c] & 0xFF, mr = p[row + right + c] & 0xFF;
+                int bl = p[below + left + c] & 0xFF, bc = p[below + centre + c] & 0xFF, br = p[below + right + c] & 0xFF;
+
+                int dx = (tr - tl) + 2 * (mr - ml) + (br - bl);
+                int dy = (bl + 2 * bc + br) - (tl + 2 * tc + tr);
+                int mag = Math.abs(dx) + Math.abs(dy);
+                if (mag > bestMag) {
+                    bestMag = mag;
+                    bestDx = dx;
+                    bestDy = dy;
+                }
+            }
+            dxOut[x] = (short) bestDx;
+            dyOut[x] = (short) bestDy;
+            magOut[x + 1] = bestMag;
+        }
+        magOut[0] = 0;
+        magOut[width + 1] = 0;
+    }
+
+    // Non-maximum suppression for one row; magnitude rows are indexed with a +1 offset
+    static void suppressRow(byte[] map, int offset, int width,
+                            int[] magPrev, int[] magCur, int[] magNext,
+                            short[] dx, short[] dy, int low, int high) {
+        for (int x = 0; x < width; x++) {
+            int j = x + 1;
+            int m = magCur[j];
+            byte state = NONE;
+
+            if (m > low) {
+                int xs = dx[x];
+                int ys = dy[x];
+                int ax = Math.abs(xs);
+                int ay = Math.abs(ys) << 15;
+                int tg22x = ax * TG22;
+
+                boolean peak;
+                if (ay < tg22x) {
+                    peak = m > magCur[j - 1] && m >= magCur[j + 1];
+                } else {
+                    int tg67x = tg22x + (ax << 16);
+                    if (ay > tg67x) {
+                        peak = m > magPrev[j] && m >= magNext[j];
+                    } else {
+                        int s = (xs ^ ys) < 0 ? -1 : 1;
+                        peak = m > magPrev[j - s] && m > magNext[j + s];
+                    }
+                }
+                if (peak) {
+                    state = m > high ? STRONG : WEAK;
+                }
+            }
+            map[offset + x] = state;
+        }
+    }
+
+    // Joins each candidate pixel with its 8-connected candidate neighbours inside the band
+    private static void labelBand(byte[] map, int[] parent, int width, int y0, int y1) {
+        for (int y = y0; y < y1; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                if (map[i] == NONE) continue;
+                parent[i] = i;
+                if (x > 0 && map[i - 1] != NONE) union(map, parent, i, i - 1);
+                if (y > y0) {
+                    int above = i - width;
+                    if (x > 0 && map[above - 1] != NONE) union(map, parent, i, above - 1);
+                    if (map[above] != NONE) union(map, parent, i, above);
+                    if (x + 1 < width && map[above + 1] != NONE) union(map, parent, i, above + 1);
+                }
+            }
+        }
+    }
+
+    // Joins the first row of a band with the last row of the band above
+    private static void joinSeam(byte[] map, int[] parent, int width, int y) {
+        for (int x = 0; x < width; x++) {
+            int i = y * width + x;
+            if (map[i] == NONE) continue;
+            int above = i - width;
+            if (x > 0 && map[above - 1] != NONE) union(map, parent, i, above - 1);
+            if (map[above] != NONE) union(map, parent, i, above);
+            if (x + 1 < width && map[above + 1] != NONE) union(map, parent, i, above + 1);
+        }
+    }
+
+    // The smaller index becomes the root, and a root is STRONG if any pixel of its component is
+    private static void union(byte[] map, int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra == rb) return;
+        int root = Math.min(ra, rb);
+        int child = Math.max(ra, rb);
+        parent[child] = root;
+        if (map[child] == STRONG) map[root] = STRONG;
+    }
+
+    // With path halving; only used while one thread owns all pixels of the tree
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // Read-only find, safe to run from several bands at once
+    private static int root(int[] parent, int i) {
+        while (parent[i] != i) i = parent[i];
+        return i;
+    }
+}
@@ -0,0 +1,26 @@
+package com.project.imagetool.processing;
+
+/**
+ * Partition of a frame into classes of pixels that share one colour mapping,
+ * e.g. the mask areas of the heart. Within a class the mapping depends on the
+ * input colour only, so it can be compiled into a {@link ColourLut}.
+ */
+public interface ColourClasses {
+
+    // Every pixel maps the same way
+    ColourClasses UNIFORM = new ColourClasses() {
+        @Override
+        public int count() {
+            return 1;
+        }
+
+        @Override
+        public int classOf(int x, int y) {
+            return 0;
+        }
+    };
+
+    int count();
+
+    int classOf(int x, int y);
+}
@@ -0,0 +1,161 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.PixelBuffer;
+
+/**
+ * 3D colour lookup table with tetrahedral interpolation, one table per colour class.
+ *
+ * Entries are 8.8 fixed point (value * 256, 0..65280) in BGR order, with red varying
+ * fastest, then green, then blue, like the lines of a {@code .cube} file. Mapping a
+ * pixel takes four table reads and integer arithmetic only.
+ */
+public final class ColourLut {
+    public static final int MAX_ENTRY = 255 * 256;
+
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private final int size;
+    private final int[][] tables;
+    // class per frame pixel, null when there is a single class
+    private final byte[] classMap;
+    private final int frameWidth;
+
+    // table offset of the lower grid point per channel and 0..256 fraction towards the next one, per 8-bit value
+    private final int[] offsetR = new int[256];
+    private final int[] offsetG = new int[256];
+    private final int[] offsetB = new int[256];
+    private final int[] frac = new int[256];
+
+    ColourLut(int size, int[][] tables, byte[] classMap, int frameWidth) {
+        if (size < 2 || size > 256) throw new IllegalArgumentException("LUT size must be between 2 and 256: " + size);
+        for (int[] table : tables) {
+            if (table != null && table.length != size * size * size * PixelBuffer.CHANNELS) {
+                throw new IllegalArgumentException("LUT table does not match size " + size);
+            }
+        }
+        this.size = size;
+        this.tables = tables;
+        this.classMap = classMap;
+        this.frameWidth = frameWidth;
+
+        for (int v = 0; v < 256; v++) {
+            int pos = (v * (size - 1) * 256 + 127) / 255;
+            int b = Math.min(pos >> 8, size - 2);
+            offsetR[v] = b * PixelBuffer.CHANNELS;
+            offsetG[v] = b * PixelBuffer.CHANNELS * size;
+            offsetB[v] = b * PixelBuffer.CHANNELS * size * size;
+            frac[v] = pos - (b << 8);
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getClassCount() {
+        return tables.length;
+    }
+
+    // Table of one class, null for classes that do not occur in the frame
+    int[] table(int colourClass) {
+        return tables[colourClass];
+    }
+
+    // Bytes held by the tables and the class map
+    public long getMemoryBytes() {
+        long bytes = classMap == null ? 0 : classMap.length;
+        for (int[] table : tables) {
+            if (table != null) bytes += 4L * table.length;
+        }
+        return bytes;
+    }
+
+    public PixelBuffer apply(PixelBuffer source) {
+        return apply(source, 0, 0, Region.whole(source));
+    }
+
+    /**
+     * Maps source, which covers the part of the frame described by region. With glow > 0
+     * the mapped image goes through the soft glow on floats before it is rounded to 8 bits.
+     */
+    public PixelBuffer apply(PixelBuffer source, int glow, double glowSigma, Region region) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        byte[] in = source.getData();
+        PixelBuffer result = glow > 0 ? null : BufferPool.lease(width, height);
+        byte[] out = glow > 0 ? null : result.getData();
+        float[] glowImage = glow > 0 ? BufferPool.leaseFloats(in.length) : null;
+
+        RowBands.forEach(width, height, PARALLELISM, (y0, y1) -> {
+            int[] rgb = new int[PixelBuffer.CHANNELS];
+            for (int y = y0; y < y1; y++) {
+                int i = y * width * PixelBuffer.CHANNELS;
+                int mapRow = (region.getOriginY() + y) * frameWidth + region.getOriginX();
+                for (int x = 0; x < width; x++, i += PixelBuffer.CHANNELS) {
+                    int[] table = tables[classMap == null ? 0 : classMap[mapRow + x]];
+                    lookup(table, in[i + 2] & 0xFF, in[i + 1] & 0xFF, in[i] & 0xFF, rgb);
+                    if (glow > 0) {
+                        glowImage[i] = rgb[2] * (1f / (255f * 65536f));
+                        glowImage[i + 1] = rgb[1] * (1f / (255f * 65536f));
+                        glowImage[i + 2] = rgb[0] * (1f / (255f * 65536f));
+                    } else {
+                        out[i] = (byte) ((rgb[2] + 32768) >> 16);
+                        out[i + 1] = (byte) ((rgb[1] + 32768) >> 16);
+                        out[i + 2] = (byte) ((rgb[0] + 32768) >> 16);
+                    }
+                }
+            }
+        });
+
+        if (glow > 0) {
+            Pixels.glow(glowImage, width, height, glow, glowSigma);
+            PixelBuffer glowed = Pixels.fromUnitFloat(glowImage, width, height);
+            BufferPool.release(glowImage);
+            return glowed;
+        }
+        return result;
+    }
+
+    // Tetrahedral interpolation; out receives R, G, B in 16.16 fixed point (value * 65536)
+    private void lookup(int[] t, int r, int g, int b, int[] out) {
+        int fr = frac[r];
+        int fg = frac[g];
+        int fb = frac[b];
+        int sr = PixelBuffer.CHANNELS;
+        int sg = sr * size;
+        int sb = sg * size;
+        int c000 = offsetB[b] + offsetG[g] + offsetR[r];
+        int c111 = c000 + sr + sg + sb;
+
+        // the corners between c000 and c111 follow the order of the three fractions
+        int c1, c2, w0, w1, w2, w3;
+        if (fr >= fg) {
+            if (fg >= fb) {
+                c1 = c000 + sr; c2 = c000 + sr + sg;
+                w0 = 256 - fr; w1 = fr - fg; w2 = fg - fb; w3 = fb;
+            } else if (fr >= fb) {
+                c1 = c000 + sr; c2 = c000 + sr + sb;
+                w0 = 256 - fr; w1 = fr - fb; w2 = fb - fg; w3 = fg;
+            } else {
+                c1 = c000 + sb; c2 = c000 + sr + sb;
+                w0 = 256 - fb; w1 = fb - fr; w2 = fr - fg; w3 = fg;
+            }
+        } else {
+            if (fb >= fg) {
+                c1 = c000 + sb; c2 = c000 + sg + sb;
+                w0 = 256 - fb; w1 = fb - fg; w2 = fg - fr; w3 = fr;
+            } else if (fb >= fr) {
+                c1 = c000 + sg; c2 = c000 + sg + sb;
+                w0 = 256 - fg; w1 = fg - fb; w2 = fb - fr; w3 = fr;
+            } else {
+                c1 = c000 + sg; c2 = c000 + sr + sg;
+                w0 = 256 - fg; w1 = fg - fr; w2 = fr - fb; w3 = fb;
+            }
+        }
+
+        // entries are stored B, G, R
+        out[0] = w0 * t[c000 + 2] + w1 * t[c1 + 2] + w2 * t[c2 + 2] + w3 * t[c111 + 2];
+        out[1] = w0 * t[c000 + 1] + w1 * t[c1 + 1] + w2 * t[c2 + 1] + w3 * t[c111 + 1];
+        out[2] = w0 * t[c000] + w1 * t[c1] + w2 * t[c2] + w3 * t[c111];
+    }
+}
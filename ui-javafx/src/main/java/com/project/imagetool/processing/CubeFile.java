@@ -0,0 +1,110 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.PixelBuffer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Reads and writes 3D LUTs in the Adobe/Resolve {@code .cube} text format:
+ * {@code LUT_3D_SIZE n} followed by n^3 lines of "R G B" in 0..1, red varying fastest.
+ */
+public final class CubeFile {
+
+    private CubeFile() {}
+
+    public static ColourLut read(Path path) throws IOException {
+        int size = 0;
+        int[] table = null;
+        int entries = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String[] parts = line.split("\\s+");
+                String keyword = parts[0].toUpperCase(Locale.ROOT);
+                if (keyword.equals("TITLE")) continue;
+                if (keyword.equals("LUT_1D_SIZE")) {
+                    throw new IOException("1D LUTs are not supported: " + path);
+                }
+                if (keyword.equals("LUT_3D_SIZE")) {
+                    try {
+                        size = Integer.parseInt(parts[parts.length - 1]);
+                    } catch (NumberFormatException ex) {
+                        throw new IOException("Invalid LUT_3D_SIZE at line " + lineNumber + " of " + path);
+                    }
+                    if (size < 2 || size > 256) throw new IOException("Unsupported LUT_3D_SIZE " + size + " in " + path);
+                    table = new int[size * size * size * PixelBuffer.CHANNELS];
+                    continue;
+                }
+                if (keyword.equals("DOMAIN_MIN") || keyword.equals("DOMAIN_MAX")) {
+                    // 8-bit input always spans 0..1
+                    double expected = keyword.equals("DOMAIN_MIN") ? 0 : 1;
+                    for (int i = 1; i < parts.length; i++) {
+                        if (parseValue(parts[i], lineNumber, path) != expected) {
+                            throw new IOException("Only the 0..1 input domain is supported: " + line);
+                        }
+                    }
+                    continue;
+                }
+
+                if (table == null) throw new IOException("Data before LUT_3D_SIZE at line " + lineNumber + " of " + path);
+                if (parts.length != 3) throw new IOException("Expected R G B at line " + lineNumber + " of " + path);
+                if (entries == size * size * size) throw new IOException("Too many entries in " + path);
+                int e = entries * PixelBuffer.CHANNELS;
+                table[e + 2] = toEntry(parseValue(parts[0], lineNumber, path));
+                table[e + 1] = toEntry(parseValue(parts[1], lineNumber, path));
+                table[e] = toEntry(parseValue(parts[2], lineNumber, path));
+                entries++;
+            }
+        }
+
+        if (table == null) throw new IOException("Missing LUT_3D_SIZE in " + path);
+        if (entries != size * size * size) {
+            throw new IOException("Expected " + size * size * size + " entries but found " + entries + " in " + path);
+        }
+        return new ColourLut(size, new int[][] { table }, null, 0);
+    }
+
+    // Only single-class tables can be expressed in the format
+    public static void write(ColourLut lut, Path path, String title) throws IOException {
+        if (lut.getClassCount() != 1) {
+            throw new IllegalArgumentException("A position-dependent LUT cannot be written as .cube");
+        }
+        int size = lut.getSize();
+        int[] table = lut.table(0);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            if (title != null) writer.write("TITLE \"" + title.replace("\"", "'") + "\"\n");
+            writer.write("LUT_3D_SIZE " + size + "\n");
+            for (int e = 0; e < table.length; e += PixelBuffer.CHANNELS) {
+                writer.write(String.format(Locale.ROOT, "%.6f %.6f %.6f\n",
+                        table[e + 2] / (double) ColourLut.MAX_ENTRY,
+                        table[e + 1] / (double) ColourLut.MAX_ENTRY,
+                        table[e] / (double) ColourLut.MAX_ENTRY));
+            }
+        }
+    }
+
+    private static double parseValue(String text, int lineNumber, Path path) throws IOException {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid number '" + text + "' at line " + lineNumber + " of " + path);
+        }
+    }
+
+    private static int toEntry(double value) {
+        long v = Math.round(value * ColourLut.MAX_ENTRY);
+        return (int) Math.max(0, Math.min(ColourLut.MAX_ENTRY, v));
+    }
+}
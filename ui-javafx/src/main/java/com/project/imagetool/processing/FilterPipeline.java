@@ -0,0 +1,174 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A filter chain compiled for in-process execution: consecutive point operations
+ * are fused into one pass, anything else (blur, edge, a glow) is a fusion barrier.
+ */
+public class FilterPipeline {
+
+    // Notified after each stage with the number of filters applied so far
+    public interface StageListener {
+        void stageCompleted(int filtersApplied, PixelBuffer result);
+    }
+
+    private interface StageOp {
+        PixelBuffer apply(PixelBuffer image, Region region);
+    }
+
+    private static class Stage {
+        final StageOp op;
+        final int filterCount;
+        final int haloRadius;
+
+        Stage(StageOp op, int filterCount, int haloRadius) {
+            this.op = op;
+            this.filterCount = filterCount;
+            this.haloRadius = haloRadius;
+        }
+    }
+
+    // A run of point operations; mappers or the compiled LUT are built once per frame size and reused across tiles
+    private static class PointRun implements StageOp {
+        // exactly one of lut and mappers is set
+        private record Binding(int width, int height, ColourLut lut, PixelMapper[] mappers) {}
+
+        private final List<PointOperation> ops;
+        private final int glow;
+        private final double glowSigma;
+        private volatile Binding bound;
+
+        PointRun(List<PointOperation> ops) {
+            this.ops = ops;
+            this.glow = ops.get(ops.size() - 1).glowKernelSize();
+            this.glowSigma = ops.get(ops.size() - 1).glowSigma();
+        }
+
+        @Override
+        public PixelBuffer apply(PixelBuffer image, Region region) {
+            Binding b = bound;
+            int width = region.getFrameWidth();
+            int height = region.getFrameHeight();
+            if (b == null || b.width() != width || b.height() != height) {
+                ColourLut lut = LutCompiler.compile(ops, width, height);
+                b = new Binding(width, height, lut, lut == null ? PointPass.createMappers(ops, width, height) : null);
+                bound = b;
+            }
+            if (b.lut() != null) {
+                return b.lut().apply(image, glow, glowSigma, region);
+            }
+            return PointPass.apply(image, b.mappers(), glow, glowSigma, region);
+        }
+    }
+
+    private final List<Stage> stages;
+    private final String description;
+
+    private FilterPipeline(List<Stage> stages, String description) {
+        this.stages = stages;
+        this.description = description;
+    }
+
+    public static FilterPipeline compile(List<ImageFilter> filters) {
+        List<Stage> stages = new ArrayList<>();
+        StringBuilder description = new StringBuilder();
+        List<PointOperation> run = new ArrayList<>();
+        List<ImageFilter> runFilters = new ArrayList<>();
+
+        for (ImageFilter filter : filters) {
+            if (filter instanceof PointOperation op) {
+                run.add(op);
+                runFilters.add(filter);
+                if (op.glowKernelSize() > 0) {
+                    flush(run, runFilters, stages, description);
+                }
+            } else {
+                flush(run, runFilters, stages, description);
+                stages.add(new Stage((image, region) -> filter.apply(image), 1, filter.haloRadius()));
+                append(description, filter.getType().name());
+            }
+        }
+        flush(run, runFilters, stages, description);
+        return new FilterPipeline(stages, description.toString());
+    }
+
+    private static void flush(List<PointOperation> run, List<ImageFilter> runFilters,
+                              List<Stage> stages, StringBuilder description) {
+        if (run.isEmpty()) return;
+
+        List<PointOperation> ops = List.copyOf(run);
+        int halo = 0;
+        for (ImageFilter f : runFilters) halo += f.haloRadius();
+        stages.add(new Stage(new PointRun(ops), ops.size(), halo));
+
+        if (run.size() == 1) {
+            append(description, runFilters.get(0).getType().name());
+        } else {
+            List<String> names = new ArrayList<>();
+            for (ImageFilter f : runFilters) names.add(f.getType().name());
+            append(description, "fused(" + String.join("+", names) + ")");
+        }
+        run.clear();
+        runFilters.clear();
+    }
+
+    private static void append(StringBuilder description, String stage) {
+        if (description.length() > 0) description.append(" -> ");
+        description.append(stage);
+    }
+
+    public int getStageCount() {
+        return stages.size();
+    }
+
+    public PixelBuffer run(PixelBuffer image) {
+        return run(image, null);
+    }
+
+    // Context each pixel needs on every side for exact output, -1 if some stage needs the whole image
+    public int getHaloRadius() {
+        int halo = 0;
+        for (Stage stage : stages) {
+            if (stage.haloRadius < 0) return -1;
+            halo += stage.haloRadius;
+        }
+        return halo;
+    }
+
+    // Runs on a part of a larger image; exact wherever the part has getHaloRadius() of context
+    public PixelBuffer runRegion(PixelBuffer tile, Region region) {
+        return run(tile, region, null);
+    }
+
+    /**
+     * The result belongs to the caller. Without a listener, intermediate images are
+     * released to the {@link BufferPool} as soon as the next stage has read them; a
+     * listener sees every intermediate and decides itself whether to keep it.
+     */
+    public PixelBuffer run(PixelBuffer image, StageListener listener) {
+        return run(image, Region.whole(image), listener);
+    }
+
+    private PixelBuffer run(PixelBuffer input, Region region, StageListener listener) {
+        PixelBuffer image = input;
+        int applied = 0;
+        for (Stage stage : stages) {
+            PixelBuffer result = stage.op.apply(image, region);
+            if (listener == null && image != input && image != result) BufferPool.release(image);
+            image = result;
+            applied += stage.filterCount;
+            if (listener != null) listener.stageCompleted(applied, image);
+        }
+        return image;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
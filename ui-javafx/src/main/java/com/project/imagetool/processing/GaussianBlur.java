@@ -0,0 +1,194 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.PixelBuffer;
+
+import java.util.Arrays;
+
+/**
+ * Separable Gaussian blur matching {@code cv::GaussianBlur} with sigmaY = sigmaX
+ * and the default {@code BORDER_REFLECT_101}.
+ *
+ * Rows are split into bands that run in parallel, and the row kernels use the
+ * Vector API when {@code jdk.incubator.vector} is available (run with
+ * {@code --add-modules jdk.incubator.vector}). Both paths add the taps in the
+ * same order, so results are identical with or without SIMD.
+ */
+public final class GaussianBlur {
+    private static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    // -Dimagetool.blur.vector=false forces the scalar kernels
+    private static volatile boolean vectorized =
+            Boolean.parseBoolean(System.getProperty("imagetool.blur.vector", "true")) && VECTOR_AVAILABLE;
+    private static final int PARALLELISM = Integer.getInteger("imagetool.blur.threads",
+            Runtime.getRuntime().availableProcessors());
+
+    private GaussianBlur() {}
+
+    public static boolean isVectorized() {
+        return vectorized;
+    }
+
+    // Lets tests run both paths; returns the previous setting. Without the module only the scalar path exists
+    static boolean setVectorized(boolean enabled) {
+        boolean previous = vectorized;
+        vectorized = enabled && VECTOR_AVAILABLE;
+        return previous;
+    }
+
+    // Same formula as cv::getGaussianKernel
+    public static float[] kernel(int ksize, double sigma) {
+        if (ksize <= 0 || ksize % 2 == 0) {
+            throw new IllegalArgumentException("Gaussian kernel size must be positive and odd: " + ksize);
+        }
+        double sigmaX = sigma > 0 ? sigma : ((ksize - 1) * 0.5 - 1) * 0.3 + 0.8;
+        double scale2X = -0.5 / (sigmaX * sigmaX);
+
+        double[] values = new double[ksize];
+        double sum = 0;
+        for (int i = 0; i < ksize; i++) {
+            double x = i - (ksize - 1) * 0.5;
+            values[i] = Math.exp(scale2X * x * x);
+            sum += values[i];
+        }
+
+        float[] kernel = new float[ksize];
+        for (int i = 0; i < ksize; i++) {
+            kernel[i] = (float) (values[i] / sum);
+        }
+        return kernel;
+    }
+
+    // 8-bit blur that keeps only ksize horizontally filtered rows per band instead of a float copy of the image
+    public static PixelBuffer blur(PixelBuffer src, int ksize, double sigma) {
+        float[] kernel = kernel(ksize, sigma);
+        int width = src.getWidth();
+        int height = src.getHeight();
+        byte[] in = src.getData();
+        PixelBuffer result = BufferPool.lease(width, height);
+        byte[] out = result.getData();
+        forEachBand(width, height, (y0, y1) -> blurBand(in, out, width, height, kernel, y0, y1));
+        return result;
+    }
+
+    private static void blurBand(byte[] in, byte[] out, int width, int height, float[] kernel, int y0, int y1) {
+        int ksize = kernel.length;
+        int radius = ksize / 2;
+        int channels = PixelBuffer.CHANNELS;
+        int stride = width * channels;
+
+        // ring of filtered rows, slot = row % ksize; a window of ksize rows never collides
+        float[][] ring = new float[ksize][stride];
+        int[] rowInSlot = new int[ksize];
+        Arrays.fill(rowInSlot, -1);
+        float[] line = new float[(width + 2 * radius) * channels];
+        float[] acc = new float[stride];
+        float[][] rows = new float[ksize][];
+        int[] offsets = new int[ksize];
+
+        for (int y = y0; y < y1; y++) {
+            for (int k = 0; k < ksize; k++) {
+                int srcY = reflect101(y + k - radius, height);
+                int slot = srcY % ksize;
+                if (rowInSlot[slot] != srcY) {
+                    int rowStart = srcY * stride;
+                    for (int px = -radius; px < width + radius; px++) {
+                        int from = rowStart + reflect101(px, width) * channels;
+                        int to = (px + radius) * channels;
+                        for (int c = 0; c < channels; c++) {
+                            line[to + c] = in[from + c] & 0xFF;
+                        }
+                    }
+                    horizontal(line, kernel, channels, ring[slot], 0, stride);
+                    rowInSlot[slot] = srcY;
+                }
+                rows[k] = ring[slot];
+            }
+            vertical(rows, offsets, kernel, acc, 0, stride);
+            int rowOut = y * stride;
+            for (int i = 0; i < stride; i++) {
+                out[rowOut + i] = (byte) Pixels.saturate(acc[i]);
+            }
+        }
+    }
+
+    // Blurs interleaved float data in place
+    public static void blur(float[] data, int width, int height, int channels, int ksize, double sigma) {
+        float[] kernel = kernel(ksize, sigma);
+        int radius = ksize / 2;
+        int stride = width * channels;
+        float[] tmp = BufferPool.leaseFloats(data.length);
+
+        // horizontal pass: data -> tmp
+        forEachBand(width, height, (y0, y1) -> {
+            float[] line = new float[(width + 2 * radius) * channels];
+            for (int y = y0; y < y1; y++) {
+                int rowStart = y * stride;
+                for (int px = -radius; px < width + radius; px++) {
+                    int srcX = reflect101(px, width);
+                    System.arraycopy(data, rowStart + srcX * channels, line, (px + radius) * channels, channels);
+                }
+                horizontal(line, kernel, channels, tmp, rowStart, stride);
+            }
+        });
+
+        // vertical pass: tmp -> data
+        forEachBand(width, height, (y0, y1) -> {
+            float[][] rows = new float[ksize][];
+            Arrays.fill(rows, tmp);
+            int[] offsets = new int[ksize];
+            for (int y = y0; y < y1; y++) {
+                for (int k = 0; k < ksize; k++) {
+                    offsets[k] = reflect101(y + k - radius, height) * stride;
+                }
+                vertical(rows, offsets, kernel, data, y * stride, stride);
+            }
+        });
+        BufferPool.release(tmp);
+    }
+
+    // out[outOff + i] = sum over k of line[i + k * channels] * kernel[k]
+    private static void horizontal(float[] line, float[] kernel, int channels, float[] out, int outOff, int len) {
+        if (vectorized) {
+            VectorKernels.horizontal(line, kernel, channels, out, outOff, len);
+            return;
+        }
+        // tap-major loops so C2 can auto-vectorise them; each element still sums the taps in order
+        Arrays.fill(out, outOff, outOff + len, 0f);
+        for (int k = 0; k < kernel.length; k++) {
+            int from = k * channels;
+            float w = kernel[k];
+            for (int i = 0; i < len; i++) {
+                out[outOff + i] += line[from + i] * w;
+            }
+        }
+    }
+
+    // out[outOff + i] = sum over k of rows[k][offsets[k] + i] * kernel[k]
+    private static void vertical(float[][] rows, int[] offsets, float[] kernel, float[] out, int outOff, int len) {
+        if (vectorized) {
+            VectorKernels.vertical(rows, offsets, kernel, out, outOff, len);
+            return;
+        }
+        Arrays.fill(out, outOff, outOff + len, 0f);
+        for (int k = 0; k < kernel.length; k++) {
+            float[] row = rows[k];
+            int from = offsets[k];
+            float w = kernel[k];
+            for (int i = 0; i < len; i++) {
+                out[outOff + i] += row[from + i] * w;
+            }
+        }
+    }
+
+    private static void forEachBand(int width, int height, RowBands.Band band) {
+        RowBands.forEach(width, height, PARALLELISM, band);
+    }
+
+    // cv::borderInterpolate for BORDER_REFLECT_101 (gfedcb|abcdefgh|gfedcba)
+    public static int reflect101(int p, int len) {
+        if (len == 1) return 0;
+        while (p < 0 || p >= len) {
+            p = p < 0 ? -p : 2 * len - 2 - p;
+        }
+        return p;
+    }
+}
@@ -0,0 +1,63 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.PixelBuffer;
+
+import java.util.Arrays;
+
+public final class ImageScaler {
+    private ImageScaler() {}
+
+    // Largest size with the same aspect ratio that fits into maxWidth x maxHeight, never upscaled
+    public static int[] fitSize(int width, int height, int maxWidth, int maxHeight) {
+        double scale = Math.min(1.0, Math.min((double) maxWidth / width, (double) maxHeight / height));
+        return new int[] {
+                Math.max(1, (int) Math.round(width * scale)),
+                Math.max(1, (int) Math.round(height * scale))
+        };
+    }
+
+    // Box-filter (area average) downscale, like cv::resize with INTER_AREA
+    public static PixelBuffer downscale(PixelBuffer src, int dstWidth, int dstHeight) {
+        int srcWidth = src.getWidth();
+        int srcHeight = src.getHeight();
+        if (dstWidth >= srcWidth && dstHeight >= srcHeight) return src.copy();
+
+        byte[] in = src.getData();
+        byte[] out = new byte[dstWidth * dstHeight * PixelBuffer.CHANNELS];
+        long[] acc = new long[dstWidth * PixelBuffer.CHANNELS];
+        int[] count = new int[dstWidth];
+
+        for (int dy = 0; dy < dstHeight; dy++) {
+            int y0 = (int) ((long) dy * srcHeight / dstHeight);
+            int y1 = Math.max(y0 + 1, (int) ((long) (dy + 1) * srcHeight / dstHeight));
+            Arrays.fill(acc, 0);
+            Arrays.fill(count, 0);
+
+            for (int y = y0; y < y1; y++) {
+                int row = y * srcWidth * PixelBuffer.CHANNELS;
+                for (int dx = 0; dx < dstWidth; dx++) {
+                    int x0 = (int) ((long) dx * srcWidth / dstWidth);
+                    int x1 = Math.max(x0 + 1, (int) ((long) (dx + 1) * srcWidth / dstWidth));
+                    int a = dx * PixelBuffer.CHANNELS;
+                    for (int x = x0; x < x1; x++) {
+                        int i = row + x * PixelBuffer.CHANNELS;
+                        acc[a] += in[i] & 0xFF;
+                        acc[a + 1] += in[i + 1] & 0xFF;
+                        acc[a + 2] += in[i + 2] & 0xFF;
+                    }
+                    count[dx] += x1 - x0;
+                }
+            }
+
+            int o = dy * dstWidth * PixelBuffer.CHANNELS;
+            for (int dx = 0; dx < dstWidth; dx++) {
+                int n = count[dx];
+                int a = dx * PixelBuffer.CHANNELS;
+                out[o + a] = (byte) ((acc[a] + n / 2) / n);
+                out[o + a + 1] = (byte) ((acc[a + 1] + n / 2) / n);
+                out[o + a + 2] = (byte) ((acc[a + 2] + n / 2) / n);
+            }
+        }
+        return new PixelBuffer(dstWidth, dstHeight, out);
+    }
+}
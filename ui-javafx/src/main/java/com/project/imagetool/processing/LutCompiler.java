@@ -0,0 +1,151 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a run of point operations into a {@link ColourLut} by evaluating the
+ * mappers on every grid colour, exactly as {@link PointPass} would per pixel.
+ * Compiled tables are cached by chain signature, grid size and, for chains with
+ * more than one colour class, frame size.
+ */
+public final class LutCompiler {
+    // -Dimagetool.lut=<grid points per axis>, e.g. 33, replaces fused colour runs with a table; 0 keeps the exact path
+    private static final int GRID_SIZE = Integer.getInteger("imagetool.lut", 0);
+    // more classes than this (e.g. a rainbow row per class) cost more to compile than they save
+    private static final int MAX_CLASSES = 16;
+    private static final int CACHE_ENTRIES = 32;
+
+    private static final Map<String, ColourLut> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ColourLut> eldest) {
+            return size() > CACHE_ENTRIES;
+        }
+    };
+
+    private LutCompiler() {}
+
+    public static boolean isEnabled() {
+        return GRID_SIZE > 0;
+    }
+
+    // Uses the configured grid size; null when disabled or the run cannot be tabulated
+    public static ColourLut compile(List<? extends PointOperation> ops, int frameWidth, int frameHeight) {
+        return isEnabled() ? compile(ops, frameWidth, frameHeight, GRID_SIZE) : null;
+    }
+
+    public static ColourLut compile(List<? extends PointOperation> ops, int frameWidth, int frameHeight, int gridSize) {
+        List<ColourClasses> classes = new ArrayList<>();
+        int classCount = 1;
+        for (PointOperation op : ops) {
+            ColourClasses c = op.colourClasses(frameWidth, frameHeight);
+            if (c == null) return null;
+            classCount *= c.count();
+            if (classCount > MAX_CLASSES) return null;
+            classes.add(c);
+        }
+
+        String key = cacheKey(ops, classCount > 1 ? frameWidth + "x" + frameHeight : "", gridSize);
+        if (key != null) {
+            synchronized (CACHE) {
+                ColourLut cached = CACHE.get(key);
+                if (cached != null) return cached;
+            }
+        }
+
+        ColourLut lut = build(ops, classes, classCount, frameWidth, frameHeight, gridSize);
+        if (key != null) {
+            synchronized (CACHE) {
+                CACHE.put(key, lut);
+            }
+        }
+        return lut;
+    }
+
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    // Signature of every filter in the run, null if some operation is not a filter and has none
+    private static String cacheKey(List<? extends PointOperation> ops, String frame, int gridSize) {
+        StringBuilder key = new StringBuilder().append(gridSize).append('|').append(frame);
+        for (PointOperation op : ops) {
+            if (!(op instanceof ImageFilter filter)) return null;
+            key.append('|').append(filter.signature());
+        }
+        return key.toString();
+    }
+
+    private static ColourLut build(List<? extends PointOperation> ops, List<ColourClasses> classes, int classCount,
+                                   int frameWidth, int frameHeight, int gridSize) {
+        // one representative pixel per combined class, which the position-aware mappers are evaluated at
+        int[] repX = new int[classCount];
+        int[] repY = new int[classCount];
+        Arrays.fill(repX, -1);
+        byte[] classMap = null;
+        if (classCount == 1) {
+            repX[0] = 0;
+            repY[0] = 0;
+        } else {
+            classMap = new byte[frameWidth * frameHeight];
+            for (int y = 0, i = 0; y < frameHeight; y++) {
+                for (int x = 0; x < frameWidth; x++, i++) {
+                    int c = 0;
+                    for (ColourClasses cc : classes) {
+                        c = c * cc.count() + cc.classOf(x, y);
+                    }
+                    classMap[i] = (byte) c;
+                    if (repX[c] < 0) {
+                        repX[c] = x;
+                        repY[c] = y;
+                    }
+                }
+            }
+        }
+
+        PixelMapper[] mappers = PointPass.createMappers(ops, frameWidth, frameHeight);
+        boolean glow = ops.get(ops.size() - 1).glowKernelSize() > 0;
+        int[][] tables = new int[classCount][];
+        for (int c = 0; c < classCount; c++) {
+            if (repX[c] >= 0) tables[c] = tabulate(mappers, glow, repX[c], repY[c], gridSize);
+        }
+        return new ColourLut(gridSize, tables, classMap, frameWidth);
+    }
+
+    private static int[] tabulate(PixelMapper[] mappers, boolean glow, int x, int y, int gridSize) {
+        int[] table = new int[gridSize * gridSize * gridSize * PixelBuffer.CHANNELS];
+        float[] bgr = new float[PixelBuffer.CHANNELS];
+        float step = 1f / (gridSize - 1);
+        int e = 0;
+        for (int bi = 0; bi < gridSize; bi++) {
+            for (int gi = 0; gi < gridSize; gi++) {
+                for (int ri = 0; ri < gridSize; ri++, e += PixelBuffer.CHANNELS) {
+                    bgr[0] = bi * step;
+                    bgr[1] = gi * step;
+                    bgr[2] = ri * step;
+                    for (int k = 0; k < mappers.length; k++) {
+                        mappers[k].map(x, y, bgr);
+                        if (k == mappers.length - 1 && glow) break;
+                        // the next operation sees 8-bit input, as in PointPass
+                        for (int ch = 0; ch < PixelBuffer.CHANNELS; ch++) {
+                            bgr[ch] = Pixels.saturate(bgr[ch] * 255f) / 255f;
+                        }
+                    }
+                    for (int ch = 0; ch < PixelBuffer.CHANNELS; ch++) {
+                        int v = Math.round(bgr[ch] * ColourLut.MAX_ENTRY);
+                        table[e + ch] = Math.max(0, Math.min(ColourLut.MAX_ENTRY, v));
+                    }
+                }
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,10 @@
+package com.project.imagetool.processing;
+
+/**
+ * Per-pixel colour transform on normalised BGR values.
+ * x and y are passed for filters whose colour depends on the pixel position.
+ */
+@FunctionalInterface
+public interface PixelMapper {
+    void map(int x, int y, float[] bgr);
+}
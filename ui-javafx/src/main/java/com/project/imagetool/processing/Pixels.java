@@ -0,0 +1,59 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.PixelBuffer;
+
+/**
+ * Pixel helpers shared by the in-process filters: 8-bit rounding, the glow on
+ * normalised float images and the gray/mask conversions.
+ */
+public final class Pixels {
+    // cv::addWeighted(img, 0.85, blur, 0.35, 0, img) used by the glow effects
+    private static final float GLOW_BASE = 0.85f;
+    private static final float GLOW_BLUR = 0.35f;
+    public static final double GLOW_SIGMA = 8;
+
+    private Pixels() {}
+
+    // saturate_cast<uchar> with cvRound (round half to even)
+    public static int saturate(float v) {
+        int r = (int) Math.rint(v);
+        return r < 0 ? 0 : Math.min(r, 255);
+    }
+
+    public static PixelBuffer fromUnitFloat(float[] img, int width, int height) {
+        PixelBuffer result = BufferPool.lease(width, height);
+        byte[] out = result.getData();
+        for (int i = 0; i < img.length; i++) {
+            out[i] = (byte) saturate(img[i] * 255f);
+        }
+        return result;
+    }
+
+    // Soft glow shared by Rose, SingleColour and Heart: img = 0.85 * img + 0.35 * gaussian(img)
+    public static void glow(float[] img, int width, int height, int ksize, double sigma) {
+        float[] blurred = BufferPool.leaseFloats(img.length);
+        System.arraycopy(img, 0, blurred, 0, img.length);
+        GaussianBlur.blur(blurred, width, height, PixelBuffer.CHANNELS, ksize, sigma);
+        for (int i = 0; i < img.length; i++) {
+            img[i] = img[i] * GLOW_BASE + blurred[i] * GLOW_BLUR;
+        }
+        BufferPool.release(blurred);
+    }
+
+    // cv::cvtColor(BGR2GRAY) on 8-bit data, fixed-point like OpenCV
+    public static int luma(int b, int g, int r) {
+        return (b * 1868 + g * 9617 + r * 4899 + (1 << 13)) >> 14;
+    }
+
+    // Single-channel 0/255 mask expanded back to BGR (cv::COLOR_GRAY2BGR)
+    public static PixelBuffer fromMask(byte[] mask, int width, int height) {
+        PixelBuffer result = BufferPool.lease(width, height);
+        byte[] out = result.getData();
+        for (int i = 0, j = 0; i < mask.length; i++, j += PixelBuffer.CHANNELS) {
+            out[j] = mask[i];
+            out[j + 1] = mask[i];
+            out[j + 2] = mask[i];
+        }
+        return result;
+    }
+}
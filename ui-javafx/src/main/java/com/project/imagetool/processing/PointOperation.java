@@ -0,0 +1,25 @@
+package com.project.imagetool.processing;
+
+/**
+ * A filter whose output pixel depends only on the input pixel at the same position,
+ * optionally followed by the soft glow. Consecutive point operations can be fused
+ * into a single traversal, see {@link FilterPipeline}.
+ */
+public interface PointOperation {
+
+    PixelMapper createMapper(int width, int height);
+
+    // Kernel size of the trailing glow blur, 0 when there is none; a glow ends a fused run
+    default int glowKernelSize() {
+        return 0;
+    }
+
+    default double glowSigma() {
+        return Pixels.GLOW_SIGMA;
+    }
+
+    // Pixels whose mapping depends on colour only, null if the mapping cannot be tabulated
+    default ColourClasses colourClasses(int width, int height) {
+        return null;
+    }
+}
@@ -0,0 +1,91 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.PixelBuffer;
+
+import java.util.List;
+
+/**
+ * Applies a run of point operations in one traversal without intermediate images.
+ * Every operation still sees 8-bit input, exactly as if the filters ran one after another;
+ * only the last one may have a glow, which then gets its float image directly.
+ */
+public final class PointPass {
+    private static final float TO_UNIT = 1f / 255f;
+
+    private PointPass() {}
+
+    public static PixelBuffer apply(PixelBuffer source, List<? extends PointOperation> ops) {
+        if (ops.isEmpty()) return source.copy();
+        PointOperation last = ops.get(ops.size() - 1);
+        return apply(source, createMappers(ops, source.getWidth(), source.getHeight()),
+                last.glowKernelSize(), last.glowSigma(), Region.whole(source));
+    }
+
+    public static PixelMapper[] createMappers(List<? extends PointOperation> ops, int frameWidth, int frameHeight) {
+        PixelMapper[] mappers = new PixelMapper[ops.size()];
+        for (int i = 0; i < mappers.length; i++) {
+            if (i < mappers.length - 1 && ops.get(i).glowKernelSize() > 0) {
+                throw new IllegalArgumentException("Only the last operation of a fused run may have a glow");
+            }
+            mappers[i] = ops.get(i).createMapper(frameWidth, frameHeight);
+        }
+        return mappers;
+    }
+
+    /**
+     * Runs mappers created for the full frame over source, which covers the part of
+     * the frame described by region; glow and glowSigma are the last operation's glow.
+     */
+    public static PixelBuffer apply(PixelBuffer source, PixelMapper[] mappers, int glow, double glowSigma,
+                                    Region region) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int count = mappers.length;
+        int originX = region.getOriginX();
+        int originY = region.getOriginY();
+
+        byte[] in = source.getData();
+        PixelBuffer result = glow > 0 ? null : BufferPool.lease(width, height);
+        byte[] out = glow > 0 ? null : result.getData();
+        float[] glowImage = glow > 0 ? BufferPool.leaseFloats(in.length) : null;
+        float[] bgr = new float[PixelBuffer.CHANNELS];
+
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, i += PixelBuffer.CHANNELS) {
+                int b = in[i] & 0xFF;
+                int g = in[i + 1] & 0xFF;
+                int r = in[i + 2] & 0xFF;
+
+                for (int k = 0; k < count; k++) {
+                    bgr[0] = b * TO_UNIT;
+                    bgr[1] = g * TO_UNIT;
+                    bgr[2] = r * TO_UNIT;
+                    mappers[k].map(originX + x, originY + y, bgr);
+                    if (k == count - 1 && glow > 0) break;
+                    b = Pixels.saturate(bgr[0] * 255f);
+                    g = Pixels.saturate(bgr[1] * 255f);
+                    r = Pixels.saturate(bgr[2] * 255f);
+                }
+
+                if (glow > 0) {
+                    glowImage[i] = bgr[0];
+                    glowImage[i + 1] = bgr[1];
+                    glowImage[i + 2] = bgr[2];
+                } else {
+                    out[i] = (byte) b;
+                    out[i + 1] = (byte) g;
+                    out[i + 2] = (byte) r;
+                }
+            }
+        }
+
+        if (glow > 0) {
+            Pixels.glow(glowImage, width, height, glow, glowSigma);
+            PixelBuffer glowed = Pixels.fromUnitFloat(glowImage, width, height);
+            BufferPool.release(glowImage);
+            return glowed;
+        }
+        return result;
+    }
+}
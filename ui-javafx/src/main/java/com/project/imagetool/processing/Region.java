@@ -0,0 +1,41 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.PixelBuffer;
+
+/**
+ * Where a buffer sits inside the full image: position-dependent filters
+ * (Rainbow, Heart) need absolute coordinates and the full frame size.
+ */
+public final class Region {
+    private final int originX;
+    private final int originY;
+    private final int frameWidth;
+    private final int frameHeight;
+
+    public Region(int originX, int originY, int frameWidth, int frameHeight) {
+        this.originX = originX;
+        this.originY = originY;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+    }
+
+    public static Region whole(PixelBuffer image) {
+        return new Region(0, 0, image.getWidth(), image.getHeight());
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginY() {
+        return originY;
+    }
+
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+}
@@ -0,0 +1,39 @@
+package com.project.imagetool.processing;
+
+import java.util.stream.IntStream;
+
+/**
+ * Splits image rows into bands processed in parallel; small images stay on the calling thread.
+ */
+final class RowBands {
+    private static final int MIN_BAND_PIXELS = 64 * 1024;
+
+    interface Band {
+        void run(int y0, int y1);
+    }
+
+    private RowBands() {}
+
+    static void forEach(int width, int height, int parallelism, Band band) {
+        forEach(split(width, height, parallelism), band);
+    }
+
+    // Band b covers rows bounds[b] to bounds[b + 1]
+    static int[] split(int width, int height, int parallelism) {
+        int bands = Math.max(1, Math.min(parallelism, (int) ((long) width * height / MIN_BAND_PIXELS)));
+        int[] bounds = new int[bands + 1];
+        for (int b = 0; b <= bands; b++) {
+            bounds[b] = height * b / bands;
+        }
+        return bounds;
+    }
+
+    static void forEach(int[] bounds, Band band) {
+        int bands = bounds.length - 1;
+        if (bands == 1) {
+            band.run(bounds[0], bounds[1]);
+            return;
+        }
+        IntStream.range(0, bands).parallel().forEach(b -> band.run(bounds[b], bounds[b + 1]));
+    }
+}
@@ -0,0 +1,72 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Intermediate results of the in-process pipeline, keyed by input identity plus
+ * the filter prefix that produced them, evicted least-recently-used under a byte budget.
+ * Cached buffers are shared, callers must not modify them.
+ */
+public class StageCache {
+    private final long maxBytes;
+    private final LinkedHashMap<String, PixelBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    public StageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    private static String key(String inputKey, List<ImageFilter> prefix) {
+        StringBuilder sb = new StringBuilder(inputKey);
+        for (ImageFilter filter : prefix) {
+            sb.append('\0').append(filter.signature());
+        }
+        return sb.toString();
+    }
+
+    public synchronized PixelBuffer get(String inputKey, List<ImageFilter> prefix) {
+        PixelBuffer cached = entries.get(key(inputKey, prefix));
+        if (cached != null) hits++; else misses++;
+        return cached;
+    }
+
+    public synchronized void put(String inputKey, List<ImageFilter> prefix, PixelBuffer image) {
+        long size = image.getData().length;
+        if (size > maxBytes) return;
+
+        PixelBuffer previous = entries.put(key(inputKey, prefix), image);
+        if (previous != null) bytes -= previous.getData().length;
+        bytes += size;
+
+        Iterator<Map.Entry<String, PixelBuffer>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().getValue().getData().length;
+            it.remove();
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+}
@@ -0,0 +1,140 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Runs a filter chain tile by tile so that the filters' intermediates (blur planes,
+ * glow sums, per-stage buffers) follow the tile size rather than the image size.
+ * Each tile is processed with enough surrounding context (the chain's halo) for its
+ * core to come out exactly as in a full-frame run; at the image borders the tile edge
+ * is the image edge, so border handling is unchanged.
+ *
+ * The image itself stays in memory whole. {@link #process} fills a second full-size
+ * buffer, so the peak is input + output + one tile; {@link #processInPlace} writes each
+ * row of tiles back over the input once no later tile reads it as context, which brings
+ * the peak down to the input plus a few rows of tiles. Filters whose output depends on
+ * the whole image (Edge) are run on the full frame with full-size buffers of their own.
+ */
+public class TiledExecutor {
+    private final int tileSize;
+
+    // Finished output rows waiting until no later tile reads the input rows they replace
+    private record Band(int y, PixelBuffer rows) {}
+
+    public TiledExecutor(int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+        }
+        this.tileSize = tileSize;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    // The result belongs to the caller; intermediates go back to the BufferPool
+    public PixelBuffer process(PixelBuffer input, List<ImageFilter> filters) {
+        return process(input, filters, false);
+    }
+
+    // Like process, but the input is overwritten and may itself be returned as the result
+    public PixelBuffer processInPlace(PixelBuffer input, List<ImageFilter> filters) {
+        return process(input, filters, true);
+    }
+
+    private PixelBuffer process(PixelBuffer input, List<ImageFilter> filters, boolean overwriteInput) {
+        PixelBuffer image = input;
+        List<ImageFilter> segment = new ArrayList<>();
+        for (ImageFilter filter : filters) {
+            if (filter.haloRadius() < 0) {
+                image = replace(input, image, runSegment(image, segment, overwriteInput || image != input));
+                segment.clear();
+                image = replace(input, image, filter.apply(image));
+            } else {
+                segment.add(filter);
+            }
+        }
+        return replace(input, image, runSegment(image, segment, overwriteInput || image != input));
+    }
+
+    private static PixelBuffer replace(PixelBuffer input, PixelBuffer previous, PixelBuffer next) {
+        if (previous != input && previous != next) BufferPool.release(previous);
+        return next;
+    }
+
+    private PixelBuffer runSegment(PixelBuffer image, List<ImageFilter> segment, boolean inPlace) {
+        if (segment.isEmpty()) return image;
+        FilterPipeline pipeline = FilterPipeline.compile(segment);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (width <= tileSize && height <= tileSize) {
+            return pipeline.run(image);
+        }
+
+        int halo = pipeline.getHaloRadius();
+        PixelBuffer output = inPlace ? image : BufferPool.lease(width, height);
+        Deque<Band> pending = new ArrayDeque<>();
+        for (int coreY = 0; coreY < height; coreY += tileSize) {
+            int coreH = Math.min(tileSize, height - coreY);
+            PixelBuffer target = output;
+            int targetY = coreY;
+            if (inPlace) {
+                target = BufferPool.lease(width, coreH);
+                targetY = 0;
+                pending.add(new Band(coreY, target));
+            }
+            for (int coreX = 0; coreX < width; coreX += tileSize) {
+                int coreW = Math.min(tileSize, width - coreX);
+                int x0 = Math.max(coreX - halo, 0);
+                int y0 = Math.max(coreY - halo, 0);
+                int x1 = Math.min(coreX + coreW + halo, width);
+                int y1 = Math.min(coreY + coreH + halo, height);
+
+                PixelBuffer tile = crop(image, x0, y0, x1 - x0, y1 - y0);
+                PixelBuffer result = pipeline.runRegion(tile, new Region(x0, y0, width, height));
+                paste(result, coreX - x0, coreY - y0, coreW, coreH, target, coreX, targetY);
+                BufferPool.release(tile);
+                if (result != tile) BufferPool.release(result);
+            }
+            // the next row of tiles reads from nextTop down
+            int nextTop = coreY + tileSize - halo;
+            while (!pending.isEmpty() && pending.peek().y() + pending.peek().rows().getHeight() <= nextTop) {
+                writeBack(pending.poll(), image);
+            }
+        }
+        while (!pending.isEmpty()) {
+            writeBack(pending.poll(), image);
+        }
+        return output;
+    }
+
+    private static void writeBack(Band band, PixelBuffer image) {
+        paste(band.rows(), 0, 0, image.getWidth(), band.rows().getHeight(), image, 0, band.y());
+        BufferPool.release(band.rows());
+    }
+
+    private static PixelBuffer crop(PixelBuffer image, int x, int y, int w, int h) {
+        PixelBuffer tile = BufferPool.lease(w, h);
+        int rowBytes = w * PixelBuffer.CHANNELS;
+        for (int row = 0; row < h; row++) {
+            System.arraycopy(image.getData(), (y + row) * image.getStride() + x * PixelBuffer.CHANNELS,
+                    tile.getData(), row * tile.getStride(), rowBytes);
+        }
+        return tile;
+    }
+
+    private static void paste(PixelBuffer tile, int srcX, int srcY, int w, int h,
+                              PixelBuffer target, int dstX, int dstY) {
+        int rowBytes = w * PixelBuffer.CHANNELS;
+        for (int row = 0; row < h; row++) {
+            System.arraycopy(tile.getData(), (srcY + row) * tile.getStride() + srcX * PixelBuffer.CHANNELS,
+                    target.getData(), (dstY + row) * target.getStride() + dstX * PixelBuffer.CHANNELS, rowBytes);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.project.imagetool.processing;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD versions of the blur row kernels. Only loaded when {@code jdk.incubator.vector}
+ * is in the boot layer; each lane adds the taps in the scalar order (mul, then add),
+ * so the results match the scalar loops bit for bit.
+ */
+final class VectorKernels {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {}
+
+    static void horizontal(float[] line, float[] kernel, int channels, float[] out, int outOff, int len) {
+        int ksize = kernel.length;
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            FloatVector acc = FloatVector.zero(SPECIES);
+            for (int k = 0; k < ksize; k++) {
+                acc = acc.add(FloatVector.fromArray(SPECIES, line, i + k * channels).mul(kernel[k]));
+            }
+            acc.intoArray(out, outOff + i);
+        }
+        for (; i < len; i++) {
+            float acc = 0;
+            for (int k = 0; k < ksize; k++) {
+                acc += line[i + k * channels] * kernel[k];
+            }
+            out[outOff + i] = acc;
+        }
+    }
+
+    static void vertical(float[][] rows, int[] offsets, float[] kernel, float[] out, int outOff, int len) {
+        int ksize = kernel.length;
+        int i = 0;
+        for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+            FloatVector acc = FloatVector.zero(SPECIES);
+            for (int k = 0; k < ksize; k++) {
+                acc = acc.add(FloatVector.fromArray(SPECIES, rows[k], offsets[k] + i).mul(kernel[k]));
+            }
+            acc.intoArray(out, outOff + i);
+        }
+        for (; i < len; i++) {
+            float acc = 0;
+            for (int k = 0; k < ksize; k++) {
+                acc += rows[k][offsets[k] + i] * kernel[k];
+            }
+            out[outOff + i] = acc;
+        }
+    }
+}
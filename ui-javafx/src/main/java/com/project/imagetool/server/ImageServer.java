@@ -0,0 +1,248 @@
+package com.project.imagetool.server;
+
+import com.project.imagetool.cli.FilterChainSpec;
+import com.project.imagetool.metrics.StageMetrics;
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.ImageJob;
+import com.project.imagetool.processing.BufferPool;
+import com.project.imagetool.service.ImageJobRunner;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP front end for the filter pipeline, one virtual thread per request.
+ * <ul>
+ *   <li>{@code POST /process?filters=gray,blur:9:2.0&format=png} with the image as body returns the filtered image</li>
+ *   <li>{@code GET /metrics} returns server counters and stage timings, {@code ?format=json} as JSON</li>
+ *   <li>{@code GET /health} returns {@code OK}</li>
+ * </ul>
+ * At most {@code maxConcurrentJobs} jobs run at once and up to {@code queueCapacity} more
+ * wait for a slot; anything beyond that is answered with 429 straight away.
+ */
+public class ImageServer implements AutoCloseable {
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "png", "image/png", "jpg", "image/jpeg", "bmp", "image/bmp");
+
+    private final ImageJobRunner runner;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore admission;
+    private final Semaphore jobSlots;
+    private final long maxUploadBytes;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /** Binds to the loopback interface; port 0 picks a free port, see {@link #getPort()}. */
+    public ImageServer(ImageJobRunner runner, int port, int maxConcurrentJobs, int queueCapacity,
+                       long maxUploadBytes) throws IOException {
+        if (maxConcurrentJobs <= 0) throw new IllegalArgumentException("Concurrent jobs must be positive");
+        if (queueCapacity < 0) throw new IllegalArgumentException("Queue capacity must not be negative");
+        this.runner = runner;
+        this.admission = new Semaphore(maxConcurrentJobs + queueCapacity);
+        this.jobSlots = new Semaphore(maxConcurrentJobs, true);
+        this.maxUploadBytes = maxUploadBytes;
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/process", this::handleProcess);
+        server.createContext("/metrics", this::handleMetrics);
+        server.createContext("/health", exchange -> respond(exchange, 200, "text/plain", "OK\n"));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    private void handleProcess(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "text/plain", "Use POST with the image as request body\n");
+                return;
+            }
+
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            List<ImageFilter> filters;
+            try {
+                filters = FilterChainSpec.parse(query.getOrDefault("filters", ""));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, "text/plain", e.getMessage() + "\n");
+                return;
+            }
+            String format = query.getOrDefault("format", "png").toLowerCase(Locale.ROOT);
+            if (format.equals("jpeg")) format = "jpg";
+            if (!CONTENT_TYPES.containsKey(format)) {
+                respond(exchange, 400, "text/plain", "Unsupported output format: " + format + "\n");
+                return;
+            }
+
+            if (!admission.tryAcquire()) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 429, "text/plain", "Too many requests\n");
+                return;
+            }
+            accepted.incrementAndGet();
+            try {
+                process(exchange, filters, format);
+            } finally {
+                admission.release();
+            }
+        }
+    }
+
+    private void process(HttpExchange exchange, List<ImageFilter> filters, String format) throws IOException {
+        byte[] body = readBody(exchange.getRequestBody());
+        if (body == null) {
+            respond(exchange, 413, "text/plain", "Image larger than " + maxUploadBytes + " bytes\n");
+            return;
+        }
+        String inputFormat = sniffFormat(body);
+        if (inputFormat == null) {
+            respond(exchange, 415, "text/plain", "Body must be a PNG, JPEG or BMP image\n");
+            return;
+        }
+
+        Path input = Files.createTempFile("imgtool_srv_in_", "." + inputFormat);
+        Path output = Files.createTempFile("imgtool_srv_out_", "." + format);
+        byte[] result;
+        try {
+            Files.write(input, body);
+            ImageJob job = new ImageJob(input, output);
+            for (ImageFilter filter : filters) {
+                job.addFilter(filter);
+            }
+
+            queued.incrementAndGet();
+            try {
+                jobSlots.acquire();
+            } finally {
+                queued.decrementAndGet();
+            }
+            running.incrementAndGet();
+            StageMetrics.Timer timer = StageMetrics.start();
+            try {
+                runner.run(job);
+                timer.stop("http.process");
+            } finally {
+                running.decrementAndGet();
+                jobSlots.release();
+            }
+
+            result = Files.readAllBytes(output);
+            completed.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.incrementAndGet();
+            respond(exchange, 503, "text/plain", "Server shutting down\n");
+            return;
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            respond(exchange, 500, "text/plain", "Processing failed: " + e.getMessage() + "\n");
+            return;
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPES.get(format));
+        exchange.sendResponseHeaders(200, result.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(result);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            boolean json = "json".equals(parseQuery(exchange.getRequestURI().getRawQuery()).get("format"));
+            if (json) {
+                String server = String.format(Locale.ROOT,
+                        "{\"accepted\": %d, \"rejected\": %d, \"completed\": %d, \"failed\": %d, \"running\": %d, \"queued\": %d}",
+                        accepted.get(), rejected.get(), completed.get(), failed.get(), running.get(), queued.get());
+                respond(exchange, 200, "application/json",
+                        "{\"server\": " + server + ",\n\"metrics\": " + StageMetrics.toJson() + "}\n");
+            } else {
+                String server = String.format(Locale.ROOT,
+                        "accepted %d, rejected %d, completed %d, failed %d, running %d, queued %d%n",
+                        accepted.get(), rejected.get(), completed.get(), failed.get(), running.get(), queued.get());
+                respond(exchange, 200, "text/plain", server + BufferPool.format() + "\n" + StageMetrics.format() + "\n");
+            }
+        }
+    }
+
+    // Reads the whole body, or returns null once it exceeds maxUploadBytes
+    private byte[] readBody(InputStream in) throws IOException {
+        byte[] data = in.readNBytes((int) Math.min(maxUploadBytes + 1, Integer.MAX_VALUE - 8));
+        return data.length > maxUploadBytes ? null : data;
+    }
+
+    // Extension from the magic bytes; cv::imread and ImageIO both detect the format from content anyway
+    static String sniffFormat(byte[] data) {
+        if (data.length >= 8 && (data[0] & 0xFF) == 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G') {
+            return "png";
+        }
+        if (data.length >= 3 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8 && (data[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (data.length >= 2 && data[0] == 'B' && data[1] == 'M') {
+            return "bmp";
+        }
+        return null;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
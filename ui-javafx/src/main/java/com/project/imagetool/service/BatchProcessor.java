@@ -0,0 +1,159 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.ImageJob;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs the same filter chain over many files on a fixed-size pool.
+ * A failing file is recorded in the summary and does not stop the others.
+ */
+public class BatchProcessor {
+    private static final List<String> IMAGE_EXTENSIONS = List.of(".png", ".jpg", ".jpeg", ".bmp");
+
+    private final ImageJobRunner runner;
+    private final int parallelism;
+
+    public BatchProcessor(ImageJobRunner runner) {
+        this(runner, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchProcessor(ImageJobRunner runner, int parallelism) {
+        if (parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive");
+        this.runner = runner;
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Accepts a directory (all images directly inside it) or a glob such as
+     * {@code /photos/*.jpg}; the glob is matched against file names in its parent directory.
+     */
+    public static List<Path> collectInputs(String spec) throws IOException {
+        Path asPath = Path.of(spec);
+        List<Path> inputs = new ArrayList<>();
+
+        if (Files.isDirectory(asPath)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(asPath)) {
+                for (Path p : stream) {
+                    if (Files.isRegularFile(p) && isImage(p)) inputs.add(p);
+                }
+            }
+        } else {
+            Path dir = asPath.getParent() == null ? Path.of(".") : asPath.getParent();
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + asPath.getFileName());
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path p : stream) {
+                    if (Files.isRegularFile(p) && matcher.matches(p.getFileName())) inputs.add(p);
+                }
+            }
+        }
+
+        inputs.sort(null);
+        return inputs;
+    }
+
+    private static boolean isImage(Path p) {
+        String name = p.getFileName().toString().toLowerCase(Locale.ROOT);
+        return IMAGE_EXTENSIONS.stream().anyMatch(name::endsWith);
+    }
+
+    public BatchSummary process(List<Path> inputs, Path outputDir, List<ImageFilter> filters,
+                                Consumer<BatchSummary.FileResult> progress)
+            throws IOException, InterruptedException {
+        Files.createDirectories(outputDir);
+        for (Path input : inputs) {
+            Path inputDir = input.toAbsolutePath().getParent();
+            if (inputDir != null && Files.isSameFile(inputDir, outputDir)) {
+                throw new IllegalArgumentException("Output folder " + outputDir + " contains the input images, which would be overwritten");
+            }
+        }
+        return process(inputs, input -> outputDir.resolve(input.getFileName()), filters, progress);
+    }
+
+    // outputFor maps each input to its output path; parent directories must already exist.
+    // Nothing runs if an output is one of the inputs; that is an IllegalArgumentException.
+    public BatchSummary process(List<Path> inputs, Function<Path, Path> outputFor, List<ImageFilter> filters,
+                                Consumer<BatchSummary.FileResult> progress)
+            throws IOException, InterruptedException {
+        List<Path> outputs = new ArrayList<>();
+        for (Path input : inputs) {
+            Path output = outputFor.apply(input);
+            if (Files.exists(output) && Files.isSameFile(input, output)) {
+                throw new IllegalArgumentException("Output " + output + " is an input image and would be overwritten");
+            }
+            outputs.add(output);
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "BatchWorker-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        long start = System.nanoTime();
+        List<Future<BatchSummary.FileResult>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < inputs.size(); i++) {
+                Path input = inputs.get(i);
+                Path output = outputs.get(i);
+                futures.add(pool.submit(() -> {
+                    BatchSummary.FileResult result = processOne(input, output, filters);
+                    if (progress != null) progress.accept(result);
+                    return result;
+                }));
+            }
+
+            List<BatchSummary.FileResult> results = new ArrayList<>();
+            for (Future<BatchSummary.FileResult> f : futures) {
+                try {
+                    results.add(f.get());
+                } catch (ExecutionException e) {
+                    // processOne never throws; only a failing progress callback ends up here
+                    throw new IllegalStateException("Batch progress callback failed", e.getCause());
+                }
+            }
+            return new BatchSummary(results, System.nanoTime() - start);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private BatchSummary.FileResult processOne(Path input, Path output, List<ImageFilter> filters) {
+        long start = System.nanoTime();
+        try {
+            long bytes = Files.size(input);
+            ImageJob job = new ImageJob(input, output);
+            for (ImageFilter filter : filters) {
+                job.addFilter(filter);
+            }
+            runner.run(job);
+            return new BatchSummary.FileResult(input, output, bytes, System.nanoTime() - start, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new BatchSummary.FileResult(input, output, 0, System.nanoTime() - start, e);
+        } catch (Exception e) {
+            return new BatchSummary.FileResult(input, output, 0, System.nanoTime() - start, e);
+        }
+    }
+}
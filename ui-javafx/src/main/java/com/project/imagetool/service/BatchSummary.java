@@ -0,0 +1,115 @@
+package com.project.imagetool.service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+public class BatchSummary {
+
+    public static class FileResult {
+        private final Path input;
+        private final Path output;
+        private final long bytes;
+        private final long latencyNanos;
+        private final Throwable error;
+
+        FileResult(Path input, Path output, long bytes, long latencyNanos, Throwable error) {
+            this.input = input;
+            this.output = output;
+            this.bytes = bytes;
+            this.latencyNanos = latencyNanos;
+            this.error = error;
+        }
+
+        public Path getInput() {
+            return input;
+        }
+
+        public Path getOutput() {
+            return output;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    private final List<FileResult> results;
+    private final long wallNanos;
+    private final long[] sortedLatencies;
+
+    BatchSummary(List<FileResult> results, long wallNanos) {
+        this.results = Collections.unmodifiableList(new ArrayList<>(results));
+        this.wallNanos = wallNanos;
+        this.sortedLatencies = results.stream()
+                .filter(FileResult::isSuccess)
+                .mapToLong(FileResult::getLatencyNanos)
+                .sorted()
+                .toArray();
+    }
+
+    public List<FileResult> getResults() {
+        return results;
+    }
+
+    public int getSucceeded() {
+        return sortedLatencies.length;
+    }
+
+    public int getFailed() {
+        return results.size() - sortedLatencies.length;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public double getImagesPerSecond() {
+        return wallNanos == 0 ? 0 : getSucceeded() / (wallNanos / 1e9);
+    }
+
+    public double getMegabytesPerSecond() {
+        long bytes = results.stream().filter(FileResult::isSuccess).mapToLong(FileResult::getBytes).sum();
+        return wallNanos == 0 ? 0 : (bytes / (1024.0 * 1024.0)) / (wallNanos / 1e9);
+    }
+
+    // Nearest-rank percentile of successful per-file latencies, in milliseconds
+    public double getLatencyPercentileMillis(double percentile) {
+        if (sortedLatencies.length == 0) return 0;
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+        int index = Math.min(Math.max(rank - 1, 0), sortedLatencies.length - 1);
+        return sortedLatencies[index] / 1e6;
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Batch finished: %d succeeded, %d failed in %.2f s%n",
+                getSucceeded(), getFailed(), wallNanos / 1e9));
+        sb.append(String.format(Locale.ROOT, "Throughput: %.2f images/s, %.2f MB/s%n",
+                getImagesPerSecond(), getMegabytesPerSecond()));
+        sb.append(String.format(Locale.ROOT, "Latency: p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                getLatencyPercentileMillis(50), getLatencyPercentileMillis(95),
+                getLatencyPercentileMillis(99), getLatencyPercentileMillis(100)));
+        for (FileResult r : results) {
+            if (!r.isSuccess()) {
+                sb.append("FAILED ").append(r.getInput()).append(": ").append(r.getError().getMessage())
+                        .append(System.lineSeparator());
+            }
+        }
+        return sb.toString();
+    }
+}
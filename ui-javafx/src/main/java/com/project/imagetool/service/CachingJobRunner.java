@@ -0,0 +1,52 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.model.ImageJob;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+// Serves repeated jobs from a ResultCache and only runs the delegate on a miss
+public class CachingJobRunner implements ImageJobRunner, Closeable {
+    private final ImageJobRunner delegate;
+    private final ResultCache cache;
+
+    public CachingJobRunner(ImageJobRunner delegate, ResultCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    public ImageJobRunner getDelegate() {
+        return delegate;
+    }
+
+    public ResultCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public void run(ImageJob job) throws IOException, InterruptedException {
+        // engines differ slightly in output, so they never share entries
+        String key = delegate.getClass().getSimpleName() + "-" + cache.keyFor(job);
+
+        byte[] cached = cache.get(key);
+        if (cached != null) {
+            Files.write(job.getOutputPath(), cached);
+            return;
+        }
+
+        delegate.run(job);
+        cache.put(key, Files.readAllBytes(job.getOutputPath()));
+    }
+
+    @Override
+    public List<String> intermediateFormats() {
+        return delegate.intermediateFormats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) closeable.close();
+    }
+}
@@ -0,0 +1,135 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.filter.BlurFilter;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.model.ImageFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Rewrites a filter chain into a cheaper one before it runs, using the algebraic
+ * properties the filters declare on {@link ImageFilter}.
+ * <ul>
+ *   <li>exact: a filter that is the identity on gray input is dropped when the chain so
+ *       far already produces a gray image, e.g. a second Gray, or Gray after Edge</li>
+ *   <li>approximate: two adjacent blurs become one with the summed support and the
+ *       summed variance, and a Gray directly before a filter that only reads
+ *       luma is dropped; either may move pixels by up to three levels</li>
+ * </ul>
+ */
+public final class ChainOptimizer {
+
+    public enum Mode { OFF, EXACT, APPROXIMATE }
+
+    // rewrites holds one line per applied rule, for the explain output
+    public record Result(List<ImageFilter> filters, List<String> rewrites) {
+        public boolean changed() {
+            return !rewrites.isEmpty();
+        }
+    }
+
+    private ChainOptimizer() {}
+
+    // -Dimagetool.optimizer=off|exact|approximate, exact by default
+    public static Mode configuredMode() {
+        String value = System.getProperty("imagetool.optimizer", "exact");
+        try {
+            return Mode.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown optimizer mode " + value + ", using exact");
+            return Mode.EXACT;
+        }
+    }
+
+    public static Result optimize(List<ImageFilter> chain, Mode mode) {
+        if (mode == Mode.OFF) return new Result(List.copyOf(chain), List.of());
+
+        List<ImageFilter> out = new ArrayList<>();
+        List<String> rewrites = new ArrayList<>();
+        for (int i = 0; i < chain.size(); i++) {
+            ImageFilter filter = chain.get(i);
+            ImageFilter previous = out.isEmpty() ? null : out.get(out.size() - 1);
+
+            if (filter.identityOnGray() && producesGrayImage(out)) {
+                rewrites.add("dropped " + filter.signature() + " at " + (i + 1) + ": its input is already gray");
+                continue;
+            }
+
+            if (mode == Mode.APPROXIMATE) {
+                if (previous instanceof BlurFilter first && filter instanceof BlurFilter second) {
+                    BlurFilter merged = merge(first, second);
+                    if (merged != null) {
+                        out.set(out.size() - 1, merged);
+                        rewrites.add("merged " + first.signature() + " and " + second.signature()
+                                + " at " + (i + 1) + " into " + merged.signature());
+                        continue;
+                    }
+                }
+                if (previous instanceof GrayFilter && filter.readsLumaOnly() && !(filter instanceof GrayFilter)) {
+                    out.remove(out.size() - 1);
+                    rewrites.add("dropped " + previous.signature() + " before " + filter.signature()
+                            + " at " + (i + 1) + ": only luma is read");
+                }
+            }
+            out.add(filter);
+        }
+        return new Result(List.copyOf(out), List.copyOf(rewrites));
+    }
+
+    // "GRAY(--gray);GRAY(--gray) -> GRAY(--gray)" followed by one indented line per rewrite
+    public static String explain(List<ImageFilter> original, Result result) {
+        StringBuilder sb = new StringBuilder()
+                .append(ResultCache.canonicalChain(original)).append(" -> ")
+                .append(ResultCache.canonicalChain(result.filters()));
+        for (String rewrite : result.rewrites()) {
+            sb.append(System.lineSeparator()).append("  ").append(rewrite);
+        }
+        return sb.toString();
+    }
+
+    private static boolean producesGrayImage(List<ImageFilter> chain) {
+        boolean gray = false;
+        for (ImageFilter filter : chain) {
+            gray = filter.producesGray() || (gray && filter.preservesGray());
+        }
+        return gray;
+    }
+
+    // Convolved kernels add their variances. The kernels are truncated, so the merged sigma is the one
+    // whose truncated kernel has the summed variance rather than sqrt(s1^2 + s2^2); null for invalid
+    // blurs, which must still fail as written
+    private static BlurFilter merge(BlurFilter first, BlurFilter second) {
+        int k1 = first.getKernelSize();
+        int k2 = second.getKernelSize();
+        if (k1 <= 0 || k1 % 2 == 0 || k2 <= 0 || k2 % 2 == 0 || first.getSigma() <= 0 || second.getSigma() <= 0) {
+            return null;
+        }
+        int kernel = k1 + k2 - 1;
+        double target = kernelVariance(k1, first.getSigma()) + kernelVariance(k2, second.getSigma());
+        // the variance grows with sigma towards that of a box filter, which it cannot exceed
+        double lo = 1e-3;
+        double hi = 1e3;
+        if (target >= kernelVariance(kernel, hi)) return null;
+        for (int i = 0; i < 60; i++) {
+            double mid = Math.sqrt(lo * hi);
+            if (kernelVariance(kernel, mid) < target) lo = mid; else hi = mid;
+        }
+        // rounded so the CLI argument stays short
+        double sigma = Math.round(Math.sqrt(lo * hi) * 10000) / 10000.0;
+        return new BlurFilter(kernel, sigma);
+    }
+
+    private static double kernelVariance(int size, double sigma) {
+        int radius = size / 2;
+        double sum = 0;
+        double moment = 0;
+        for (int x = -radius; x <= radius; x++) {
+            double w = Math.exp(-(x * x) / (2 * sigma * sigma));
+            sum += w;
+            moment += w * x * x;
+        }
+        return moment / sum;
+    }
+}
@@ -1,37 +1,172 @@
 package com.project.imagetool.service;
 
+import com.project.imagetool.filter.EdgeFilter;
+import com.project.imagetool.filter.LutFilter;
+import com.project.imagetool.metrics.StageMetrics;
 import com.project.imagetool.model.ImageFilter;
 import com.project.imagetool.model.ImageJob;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-public class CppApplicationService {
+public class CppApplicationService implements ImageJobRunner, Closeable {
     private final Path executablePath;
+    private volatile NativeWorkerPool workerPool;
+    private volatile List<String> formats;
+    private volatile List<String> features;
 
+    /** Spawns a new native process for every job. */
     public CppApplicationService(Path executablePath) {
+        this(executablePath, 0);
+    }
+
+    /**
+     * Keeps {@code workerCount} native processes alive and reuses them across jobs.
+     * A count of 0 falls back to spawning one process per job.
+     */
+    public CppApplicationService(Path executablePath, int workerCount) {
         this.executablePath = executablePath;
+        this.workerPool = workerCount > 0 ? new NativeWorkerPool(executablePath, workerCount) : null;
+    }
+
+    /** Looks for cpp/main in startDir and up to four of its parent directories. */
+    public static Path findExecutable(Path startDir) {
+        Path searchDir = startDir;
+        for (int i = 0; i < 5 && searchDir != null; i++) {
+            Path cppMain = searchDir.resolve("cpp/main");
+            if (Files.exists(cppMain)) {
+                return cppMain.toAbsolutePath();
+            }
+            searchDir = searchDir.getParent();
+        }
+        throw new RuntimeException("Could not find cpp/main executable. Searched from: " + startDir.toAbsolutePath());
+    }
+
+    public boolean isWorkerMode() {
+        return workerPool != null;
     }
 
+    @Override
     public void run(ImageJob job)
             throws IOException, InterruptedException {
-        List<String> command = new ArrayList<>();
-        command.add(executablePath.toString());
-        command.add(job.getInputPath().toString());
-        command.add(job.getOutputPath().toString());
+        checkFeatures(job);
+        List<String> args = buildArgs(job);
+
+        NativeWorkerPool pool = workerPool;
+        if (pool != null) {
+            try {
+                StageMetrics.Timer timer = StageMetrics.start();
+                pool.execute(args);
+                timer.stop("native.job");
+                return;
+            } catch (NativeWorkerPool.StartupException e) {
+                // executable without worker support: stay on the spawn-per-job path from now on
+                System.err.println(e.getMessage() + " - falling back to one process per job");
+                workerPool = null;
+                pool.close();
+            }
+        }
+
+        runSpawned(args);
+    }
+
+    /**
+     * Asks the executable once with {@code --formats}. Builds without the option fail
+     * it, and then get PNG and BMP, which every OpenCV build can read and write.
+     */
+    @Override
+    public List<String> intermediateFormats() {
+        List<String> result = formats;
+        if (result == null) {
+            result = queryFormats();
+            formats = result;
+        }
+        return result;
+    }
+
+    private List<String> queryFormats() {
+        List<String> reply = query("--formats", "FORMATS ");
+        return reply != null ? reply : List.of("bmp", "png");
+    }
+
+    /**
+     * A build that predates an option would ignore its arguments and quietly produce
+     * something else, so such jobs fail instead. Features are asked for once with
+     * {@code --features}; builds without the option have none.
+     */
+    private void checkFeatures(ImageJob job) throws IOException {
+        for (ImageFilter filter : job.getFilters()) {
+            if (filter instanceof LutFilter) {
+                throw new IOException("LUT stages run only in the in-process engine");
+            }
+            if (filter instanceof EdgeFilter edge && !edge.hasDefaultPreBlur() && !supportedFeatures().contains("edge-preblur")) {
+                throw new IOException(executablePath + " was built before the edge pre-blur could be changed;"
+                        + " rebuild it with make -C cpp");
+            }
+        }
+    }
+
+    private List<String> supportedFeatures() {
+        List<String> result = features;
+        if (result == null) {
+            List<String> reply = query("--features", "FEATURES ");
+            result = reply != null ? reply : List.of();
+            features = result;
+        }
+        return result;
+    }
+
+    // Words after prefix on the first line the executable prints for option, null if it does not know the option
+    private List<String> query(String option, String prefix) {
+        try {
+            Process process = new ProcessBuilder(executablePath.toString(), option)
+                    .redirectErrorStream(true).start();
+            process.getOutputStream().close();
+            String reply;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                reply = reader.readLine();
+            }
+            if (process.waitFor() == 0 && reply != null && reply.startsWith(prefix)) {
+                return List.of(reply.substring(prefix.length()).trim().split("\\s+"));
+            }
+        } catch (IOException e) {
+            System.err.println("Could not query native " + option + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private List<String> buildArgs(ImageJob job) {
+        List<String> args = new ArrayList<>();
+        args.add(job.getInputPath().toString());
+        args.add(job.getOutputPath().toString());
 
         // Polymorphism
         for(ImageFilter filter : job.getFilters()) {
-            command.addAll(filter.toCliArgs());
+            args.addAll(filter.toCliArgs());
         }
+        return args;
+    }
+
+    private void runSpawned(List<String> args)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(executablePath.toString());
+        command.addAll(args);
 
         ProcessBuilder pb = new ProcessBuilder(command);
         pb.redirectErrorStream(true);
 
+        // process start to exit, including the native decode/filter/encode it reports
+        StageMetrics.Timer timer = StageMetrics.start();
         Process process = pb.start();
 
         // Close the process stdin immediately since we don't write to it
@@ -43,7 +178,11 @@ public class CppApplicationService {
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    System.out.println(line);
+                    if (line.startsWith("TIMINGS ")) {
+                        StageMetrics.recordNative(line.substring("TIMINGS ".length()));
+                    } else {
+                        System.out.println(line);
+                    }
                 }
             } catch (IOException e) {
                 System.err.println("Error reading process output: " + e.getMessage());
@@ -52,8 +191,15 @@ public class CppApplicationService {
         outputReader.setDaemon(true);
         outputReader.start();
 
-        int exitCode = process.waitFor();
-        
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException e) {
+            // cancelled: stop the child instead of leaving it to finish on its own
+            terminate(process);
+            throw e;
+        }
+
         try {
             outputReader.join();
         } catch (InterruptedException e) {
@@ -63,5 +209,26 @@ public class CppApplicationService {
         if (exitCode != 0) {
             throw new RuntimeException("C++ app failed with code " + exitCode);
         }
+        timer.stop("native.spawn");
+    }
+
+    // Asks the process to exit, then kills it if it is still running after a second
+    static void terminate(Process process) {
+        process.destroy();
+        try {
+            if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        NativeWorkerPool pool = workerPool;
+        workerPool = null;
+        if (pool != null) pool.close();
     }
 }
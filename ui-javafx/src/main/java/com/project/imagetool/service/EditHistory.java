@@ -0,0 +1,275 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.model.PixelBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Multi-level undo/redo for the edited image. Each step stores the deflated XOR of the
+ * images before and after it, so the same delta serves both undo and redo, and unchanged
+ * pixels cost almost nothing. Steps that change the image size keep both images instead.
+ *
+ * Deltas stay in memory up to a byte budget; beyond it the oldest ones spill to disk.
+ * At most maxSteps undo steps are kept. Once older steps are dropped, or the history is
+ * cleared part way through editing, undoing everything no longer reaches the image the
+ * history was started with; {@link #isAtStart()} tells the two cases apart.
+ */
+public class EditHistory implements AutoCloseable {
+    private final long memoryBudgetBytes;
+    private final int maxSteps;
+    private final Deque<Step> undo = new ArrayDeque<>();
+    private final Deque<Step> redo = new ArrayDeque<>();
+    private long memoryBytes;
+    private long diskBytes;
+    // whether the oldest undo step starts from the image passed to the last restart
+    private boolean reachesStart = true;
+
+    public EditHistory(long memoryBudgetBytes, int maxSteps) {
+        if (maxSteps <= 0) {
+            throw new IllegalArgumentException("History must keep at least one step: " + maxSteps);
+        }
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.maxSteps = maxSteps;
+    }
+
+    private static final class Step {
+        final String label;
+        final int beforeWidth, beforeHeight, afterWidth, afterHeight;
+        // one XOR delta, or the full before and after images when the size changed
+        byte[][] parts;
+        Path spillFile;
+        long size;
+
+        Step(String label, PixelBuffer before, PixelBuffer after) {
+            this.label = label;
+            this.beforeWidth = before.getWidth();
+            this.beforeHeight = before.getHeight();
+            this.afterWidth = after.getWidth();
+            this.afterHeight = after.getHeight();
+
+            if (beforeWidth == afterWidth && beforeHeight == afterHeight) {
+                byte[] a = before.getData();
+                byte[] b = after.getData();
+                byte[] xor = new byte[a.length];
+                for (int i = 0; i < xor.length; i++) {
+                    xor[i] = (byte) (a[i] ^ b[i]);
+                }
+                parts = new byte[][] { deflate(xor) };
+            } else {
+                parts = new byte[][] { deflate(before.getData()), deflate(after.getData()) };
+            }
+            for (byte[] part : parts) size += part.length;
+        }
+
+        PixelBuffer apply(PixelBuffer current, boolean backwards) {
+            int fromW = backwards ? afterWidth : beforeWidth;
+            int fromH = backwards ? afterHeight : beforeHeight;
+            int toW = backwards ? beforeWidth : afterWidth;
+            int toH = backwards ? beforeHeight : afterHeight;
+            if (current.getWidth() != fromW || current.getHeight() != fromH) {
+                throw new IllegalStateException("Image does not match history step '" + label + "'");
+            }
+
+            byte[][] data = load();
+            if (data.length == 2) {
+                return new PixelBuffer(toW, toH, inflate(data[backwards ? 0 : 1], toW * toH * PixelBuffer.CHANNELS));
+            }
+            byte[] out = inflate(data[0], current.getData().length);
+            byte[] in = current.getData();
+            for (int i = 0; i < out.length; i++) {
+                out[i] ^= in[i];
+            }
+            return new PixelBuffer(toW, toH, out);
+        }
+
+        private byte[][] load() {
+            if (parts != null) return parts;
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(spillFile))) {
+                byte[][] data = new byte[in.readInt()][];
+                for (int i = 0; i < data.length; i++) {
+                    data[i] = in.readNBytes(in.readInt());
+                }
+                return data;
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot read history step from " + spillFile, ex);
+            }
+        }
+
+        void spill() throws IOException {
+            Path file = Files.createTempFile("imgtool_hist_", ".bin");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+                out.writeInt(parts.length);
+                for (byte[] part : parts) {
+                    out.writeInt(part.length);
+                    out.write(part);
+                }
+            }
+            spillFile = file;
+            parts = null;
+        }
+
+        void delete() {
+            if (spillFile != null) {
+                try { Files.deleteIfExists(spillFile); } catch (IOException ignore) {}
+            }
+        }
+    }
+
+    /** Records an edit; anything that could be redone is discarded. */
+    public synchronized void record(PixelBuffer before, PixelBuffer after, String label) {
+        for (Step step : redo) forget(step);
+        redo.clear();
+
+        Step step = new Step(label, before, after);
+        undo.push(step);
+        memoryBytes += step.size;
+        while (undo.size() > maxSteps) {
+            forget(undo.removeLast());
+            reachesStart = false;
+        }
+        enforceBudget();
+    }
+
+    public synchronized boolean canUndo() {
+        return !undo.isEmpty();
+    }
+
+    public synchronized boolean canRedo() {
+        return !redo.isEmpty();
+    }
+
+    /** True when nothing can be undone and the current image is the one the history started with. */
+    public synchronized boolean isAtStart() {
+        return undo.isEmpty() && reachesStart;
+    }
+
+    public synchronized String peekUndoLabel() {
+        return undo.isEmpty() ? null : undo.peek().label;
+    }
+
+    public synchronized String peekRedoLabel() {
+        return redo.isEmpty() ? null : redo.peek().label;
+    }
+
+    /** Returns the image before the most recent edit, given the current image. */
+    public synchronized PixelBuffer undo(PixelBuffer current) {
+        if (undo.isEmpty()) throw new IllegalStateException("Nothing to undo");
+        PixelBuffer previous = undo.peek().apply(current, true);
+        redo.push(undo.pop());
+        return previous;
+    }
+
+    /** Returns the image after the most recently undone edit, given the current image. */
+    public synchronized PixelBuffer redo(PixelBuffer current) {
+        if (redo.isEmpty()) throw new IllegalStateException("Nothing to redo");
+        PixelBuffer next = redo.peek().apply(current, false);
+        undo.push(redo.pop());
+        return next;
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+
+    /** Forgets every step; the current image no longer counts as the start. */
+    public synchronized void clear() {
+        for (Step step : undo) forget(step);
+        for (Step step : redo) forget(step);
+        undo.clear();
+        redo.clear();
+        reachesStart = false;
+    }
+
+    /** Forgets every step and makes the current image the start, e.g. after loading a new image. */
+    public synchronized void restart() {
+        clear();
+        reachesStart = true;
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    private void forget(Step step) {
+        if (step.parts != null) {
+            memoryBytes -= step.size;
+        } else {
+            diskBytes -= step.size;
+        }
+        step.delete();
+    }
+
+    // Spills the steps furthest from the current image first: oldest undo, then furthest redo
+    private void enforceBudget() {
+        spillWhileOverBudget(undo.descendingIterator());
+        spillWhileOverBudget(redo.descendingIterator());
+    }
+
+    private void spillWhileOverBudget(Iterator<Step> steps) {
+        while (memoryBytes > memoryBudgetBytes && steps.hasNext()) {
+            Step step = steps.next();
+            if (step.parts == null) continue;
+            try {
+                step.spill();
+                memoryBytes -= step.size;
+                diskBytes += step.size;
+            } catch (IOException ex) {
+                System.err.println("Could not spill history step to disk: " + ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 8));
+            byte[] chunk = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int size) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] out = new byte[size];
+            int n = 0;
+            while (n < size && !inflater.finished()) {
+                int read = inflater.inflate(out, n, size - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += read;
+            }
+            if (n != size) throw new IllegalStateException("Corrupt history step");
+            return out;
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Corrupt history step", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.model.PixelBuffer;
+import org.w3c.dom.Node;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Frame-by-frame access to image sequences: a folder of frame files, read in natural name
+ * order (frame2 before frame10), or an animated GIF, whose frames are composited onto the
+ * logical screen the way a viewer shows them.
+ */
+public final class FrameSequence {
+
+    // delayMillis is the GIF frame delay, 0 for frames read from a folder
+    public record Frame(int index, String name, PixelBuffer image, int delayMillis) {}
+
+    public interface Reader extends AutoCloseable {
+        // Number of frames, known up front for both sources
+        int count();
+
+        // Next frame, or null after the last one
+        Frame next() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    public interface Writer extends AutoCloseable {
+        // Frames arrive in index order
+        void write(Frame frame) throws IOException;
+
+        // Closing a folder writer has nothing to flush
+        @Override
+        default void close() throws IOException {}
+    }
+
+    private FrameSequence() {}
+
+    public static boolean isGif(Path path) {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gif");
+    }
+
+    public static Reader open(Path input) throws IOException {
+        if (Files.isDirectory(input)) return new FolderReader(input);
+        if (isGif(input)) return new GifReader(input);
+        throw new IOException("Expected a folder of frames or an animated GIF: " + input);
+    }
+
+    /** A .gif path writes an animated GIF, anything else a folder of frames. */
+    public static Writer create(Path output, int defaultDelayMillis) throws IOException {
+        if (isGif(output)) return new GifWriter(output, defaultDelayMillis);
+        Files.createDirectories(output);
+        return frame -> ImageCodec.write(frame.image(), output.resolve(frame.name()));
+    }
+
+    // "frame10.png" after "frame9.png": digit runs compare by value
+    static int compareNatural(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(j);
+            if (Character.isDigit(ca) && Character.isDigit(cb)) {
+                int si = i;
+                int sj = j;
+                while (i < a.length() && Character.isDigit(a.charAt(i))) i++;
+                while (j < b.length() && Character.isDigit(b.charAt(j))) j++;
+                String na = a.substring(si, i).replaceFirst("^0+(?=.)", "");
+                String nb = b.substring(sj, j).replaceFirst("^0+(?=.)", "");
+                int c = na.length() != nb.length() ? Integer.compare(na.length(), nb.length()) : na.compareTo(nb);
+                if (c != 0) return c;
+            } else {
+                if (ca != cb) return Character.compare(ca, cb);
+                i++;
+                j++;
+            }
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private static final class FolderReader implements Reader {
+        private final List<Path> frames;
+        private int next;
+
+        FolderReader(Path folder) throws IOException {
+            frames = BatchProcessor.collectInputs(folder.toString());
+            frames.sort(Comparator.comparing(p -> p.getFileName().toString(), FrameSequence::compareNatural));
+        }
+
+        @Override
+        public int count() {
+            return frames.size();
+        }
+
+        @Override
+        public Frame next() throws IOException {
+            if (next == frames.size()) return null;
+            Path path = frames.get(next);
+            return new Frame(next++, path.getFileName().toString(), ImageCodec.readLeased(path), 0);
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    private static final class GifReader implements Reader {
+        private static final String IMAGE_FORMAT = "javax_imageio_gif_image_1.0";
+        private static final String STREAM_FORMAT = "javax_imageio_gif_stream_1.0";
+
+        private final ImageInputStream in;
+        private final ImageReader reader;
+        private final int count;
+        private BufferedImage canvas;
+        private int next;
+
+        // disposal of the previous frame, applied before the next one is drawn
+        private String disposal = "none";
+        private int[] disposalRect;
+        private BufferedImage beforePrevious;
+
+        GifReader(Path path) throws IOException {
+            in = ImageIO.createImageInputStream(path.toFile());
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                if (in != null) in.close();
+                throw new IOException("Cannot read GIF: " + path);
+            }
+            reader = readers.next();
+            reader.setInput(in, false);
+            count = reader.getNumImages(true);
+
+            int width = 0;
+            int height = 0;
+            IIOMetadata stream = reader.getStreamMetadata();
+            Node screen = stream == null ? null : child(stream.getAsTree(STREAM_FORMAT), "LogicalScreenDescriptor");
+            if (screen != null) {
+                width = intAttribute(screen, "logicalScreenWidth", 0);
+                height = intAttribute(screen, "logicalScreenHeight", 0);
+            }
+            if (width <= 0 || height <= 0) {
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+            }
+            canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public Frame next() throws IOException {
+            if (next == count) return null;
+            BufferedImage image = reader.read(next);
+            Node tree = reader.getImageMetadata(next).getAsTree(IMAGE_FORMAT);
+            Node descriptor = child(tree, "ImageDescriptor");
+            Node control = child(tree, "GraphicControlExtension");
+            int left = descriptor == null ? 0 : intAttribute(descriptor, "imageLeftPosition", 0);
+            int top = descriptor == null ? 0 : intAttribute(descriptor, "imageTopPosition", 0);
+            int delay = control == null ? 0 : intAttribute(control, "delayTime", 0) * 10;
+
+            Graphics2D g = canvas.createGraphics();
+            try {
+                if (disposal.equals("restoreToBackgroundColor")) {
+                    g.setComposite(AlphaComposite.Clear);
+                    g.fillRect(disposalRect[0], disposalRect[1], disposalRect[2], disposalRect[3]);
+                    g.setComposite(AlphaComposite.SrcOver);
+                } else if (disposal.equals("restoreToPrevious") && beforePrevious != null) {
+                    canvas.setData(beforePrevious.getRaster());
+                }
+
+                disposal = control == null ? "none" : control.getAttributes().getNamedItem("disposalMethod").getNodeValue();
+                disposalRect = new int[] { left, top, image.getWidth(), image.getHeight() };
+                beforePrevious = disposal.equals("restoreToPrevious") ? copy(canvas) : null;
+                g.drawImage(image, left, top, null);
+            } finally {
+                g.dispose();
+            }
+
+            String name = String.format(Locale.ROOT, "frame_%05d.png", next + 1);
+            return new Frame(next++, name, ImageCodec.fromBufferedImage(canvas), delay);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.dispose();
+            in.close();
+        }
+
+        private static BufferedImage copy(BufferedImage image) {
+            BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+            copy.setData(image.getRaster());
+            return copy;
+        }
+    }
+
+    private static final class GifWriter implements Writer {
+        private static final String IMAGE_FORMAT = "javax_imageio_gif_image_1.0";
+
+        private final ImageOutputStream out;
+        private final ImageWriter writer;
+        private final int defaultDelayMillis;
+        private boolean first = true;
+
+        GifWriter(Path path, int defaultDelayMillis) throws IOException {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            Files.deleteIfExists(path);
+            this.defaultDelayMillis = defaultDelayMillis;
+            writer = ImageIO.getImageWritersByFormatName("gif").next();
+            out = ImageIO.createImageOutputStream(path.toFile());
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+        }
+
+        @Override
+        public void write(Frame frame) throws IOException {
+            BufferedImage image = ImageCodec.toBufferedImage(frame.image());
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param);
+
+            IIOMetadataNode root = new IIOMetadataNode(IMAGE_FORMAT);
+            IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+            control.setAttribute("disposalMethod", "none");
+            control.setAttribute("userInputFlag", "FALSE");
+            control.setAttribute("transparentColorFlag", "FALSE");
+            int delay = frame.delayMillis() > 0 ? frame.delayMillis() : defaultDelayMillis;
+            control.setAttribute("delayTime", Integer.toString(Math.max(0, delay / 10)));
+            control.setAttribute("transparentColorIndex", "0");
+            root.appendChild(control);
+            if (first) {
+                // NETSCAPE2.0 extension: loop forever
+                IIOMetadataNode extensions = new IIOMetadataNode("ApplicationExtensions");
+                IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+                loop.setAttribute("applicationID", "NETSCAPE");
+                loop.setAttribute("authenticationCode", "2.0");
+                loop.setUserObject(new byte[] { 1, 0, 0 });
+                extensions.appendChild(loop);
+                root.appendChild(extensions);
+                first = false;
+            }
+            metadata.mergeTree(IMAGE_FORMAT, root);
+            writer.writeToSequence(new IIOImage(image, null, metadata), param);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writer.endWriteSequence();
+            } finally {
+                writer.dispose();
+                out.close();
+            }
+        }
+    }
+
+    private static Node child(Node parent, String name) {
+        for (Node n = parent.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n.getNodeName().equals(name)) return n;
+        }
+        return null;
+    }
+
+    private static int intAttribute(Node node, String name, int fallback) {
+        Node attribute = node.getAttributes().getNamedItem(name);
+        if (attribute == null) return fallback;
+        try {
+            return Integer.parseInt(attribute.getNodeValue());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.BufferPool;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Decodes and encodes {@link PixelBuffer}s with ImageIO.
+ * Like {@code cv::imread(path)} the result is always 8-bit BGR: alpha is dropped,
+ * gray is replicated and 16-bit samples are reduced to their high byte.
+ * {@code .pxb} paths are raw {@link SharedPixelFile}s and skip ImageIO.
+ */
+public final class ImageCodec {
+    private static final ColorModel BGR = new BufferedImage(1, 1, BufferedImage.TYPE_3BYTE_BGR).getColorModel();
+
+    private ImageCodec() {}
+
+    // The result belongs to the caller and is never returned to the BufferPool
+    public static PixelBuffer read(Path path) throws IOException {
+        return BufferPool.detach(readLeased(path));
+    }
+
+    // Decodes into a buffer leased from the BufferPool; the caller releases it when done
+    public static PixelBuffer readLeased(Path path) throws IOException {
+        if (SharedPixelFile.isSharedPixelFile(path)) return SharedPixelFile.read(path);
+        BufferedImage img = ImageIO.read(path.toFile());
+        if (img == null) {
+            throw new IOException("Cannot load image: " + path);
+        }
+        return fromBufferedImage(img);
+    }
+
+    // Width and height from the file header, without decoding the pixels
+    public static int[] readSize(Path path) throws IOException {
+        if (SharedPixelFile.isSharedPixelFile(path)) return SharedPixelFile.readSize(path);
+        try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Cannot load image: " + path);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return new int[] { reader.getWidth(0), reader.getHeight(0) };
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public static void write(PixelBuffer image, Path path) throws IOException {
+        if (SharedPixelFile.isSharedPixelFile(path)) {
+            SharedPixelFile.write(image, path);
+            return;
+        }
+        String format = formatFor(path);
+        if (!ImageIO.write(wrap(image), format, path.toFile())) {
+            throw new IOException("Cannot save image at path: " + path);
+        }
+    }
+
+    // The result is leased from the BufferPool
+    public static PixelBuffer fromBufferedImage(BufferedImage img) {
+        int width = img.getWidth();
+        int height = img.getHeight();
+        PixelBuffer result = BufferPool.lease(width, height);
+        byte[] out = result.getData();
+
+        if (img.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            byte[] src = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+            if (src.length == out.length) {
+                System.arraycopy(src, 0, out, 0, out.length);
+                return result;
+            }
+        }
+
+        if (img.getColorModel() instanceof IndexColorModel) {
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                img.getRGB(0, y, width, 1, row, 0, width);
+                for (int x = 0, o = y * width * 3; x < width; x++, o += 3) {
+                    out[o] = (byte) row[x];
+                    out[o + 1] = (byte) (row[x] >> 8);
+                    out[o + 2] = (byte) (row[x] >> 16);
+                }
+            }
+            return result;
+        }
+
+        // read raw samples: getRGB would apply colour-space conversion to gray images
+        Raster raster = img.getRaster();
+        int bands = raster.getNumBands();
+        int shift = Math.max(0, raster.getSampleModel().getSampleSize(0) - 8);
+        int[] samples = new int[width * bands];
+        for (int y = 0; y < height; y++) {
+            raster.getPixels(0, y, width, 1, samples);
+            for (int x = 0, o = y * width * 3; x < width; x++, o += 3) {
+                int s = x * bands;
+                if (bands < 3) {
+                    byte gray = (byte) (samples[s] >> shift);
+                    out[o] = gray;
+                    out[o + 1] = gray;
+                    out[o + 2] = gray;
+                } else {
+                    out[o] = (byte) (samples[s + 2] >> shift);
+                    out[o + 1] = (byte) (samples[s + 1] >> shift);
+                    out[o + 2] = (byte) (samples[s] >> shift);
+                }
+            }
+        }
+        return result;
+    }
+
+    public static BufferedImage toBufferedImage(PixelBuffer image) {
+        BufferedImage img = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        byte[] dst = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+        System.arraycopy(image.getData(), 0, dst, 0, dst.length);
+        return img;
+    }
+
+    // A view of the pixels for encoding, without the copy toBufferedImage makes
+    private static BufferedImage wrap(PixelBuffer image) {
+        DataBufferByte buffer = new DataBufferByte(image.getData(), image.getData().length);
+        WritableRaster raster = Raster.createInterleavedRaster(buffer, image.getWidth(), image.getHeight(),
+                image.getStride(), PixelBuffer.CHANNELS, new int[] { 2, 1, 0 }, null);
+        return new BufferedImage(BGR, raster, false, null);
+    }
+
+    static String formatFor(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".jpg") || name.endsWith(".jpeg")) return "jpg";
+        if (name.endsWith(".bmp")) return "bmp";
+        if (name.endsWith(SharedPixelFile.EXTENSION)) return "pxb";
+        return "png";
+    }
+}
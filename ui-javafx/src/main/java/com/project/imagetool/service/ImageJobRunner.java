@@ -0,0 +1,16 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.model.ImageJob;
+
+import java.io.IOException;
+import java.util.List;
+
+// Executes an ImageJob: reads job.getInputPath(), applies the filters, writes job.getOutputPath()
+public interface ImageJobRunner {
+    void run(ImageJob job) throws IOException, InterruptedException;
+
+    // File extensions (without dot) the runner reads and writes, fastest first
+    default List<String> intermediateFormats() {
+        return List.of("png");
+    }
+}
@@ -0,0 +1,379 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.model.ImageJob;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs jobs on a fixed set of threads, interactive jobs ahead of every queued batch job.
+ * One extra thread only takes interactive jobs, so a long batch cannot hold them up.
+ *
+ * Work that mostly waits for other jobs, such as a batch driver, runs as a coordinator on a
+ * thread of its own, so it never holds a worker the jobs it waits for need.
+ *
+ * Cancelling a queued job removes it; cancelling a running job interrupts its thread,
+ * which makes the runners kill their native process. State changes are reported to the
+ * listeners on the thread that caused them.
+ */
+public class JobScheduler implements AutoCloseable {
+
+    public enum Priority { INTERACTIVE, BATCH }
+
+    public enum State { QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED }
+
+    // state is the one the job entered; the job itself may already have moved on
+    public interface Listener {
+        void stateChanged(Job<?> job, State state);
+    }
+
+    public final class Job<T> {
+        private final long id;
+        private final String name;
+        private final Priority priority;
+        private final Callable<T> work;
+        private final Runnable cleanup;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile State state = State.QUEUED;
+        private volatile boolean cancelRequested;
+        private Thread thread;
+        private T result;
+        private Throwable error;
+
+        private Job(long id, String name, Priority priority, Callable<T> work, Runnable cleanup) {
+            this.id = id;
+            this.name = name;
+            this.priority = priority;
+            this.work = work;
+            this.cleanup = cleanup;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        // Only meaningful once the job has SUCCEEDED
+        public T getResult() {
+            return result;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        /** Returns false if the job had already finished. */
+        public boolean cancel() {
+            boolean dequeued;
+            lock.lock();
+            try {
+                if (isDone() || cancelRequested) return false;
+                cancelRequested = true;
+                dequeued = queueFor(priority).remove(this);
+                if (!dequeued && thread != null) thread.interrupt();
+            } finally {
+                lock.unlock();
+            }
+            // a running job reports CANCELLED from its own thread once the work gives up
+            if (dequeued) finish(State.CANCELLED, null, null);
+            return true;
+        }
+
+        /** Waits for the job and returns its result, like Future.get. */
+        public T await() throws InterruptedException, ExecutionException {
+            done.await();
+            if (state == State.CANCELLED) throw new CancellationException(name + " cancelled");
+            if (state == State.FAILED) throw new ExecutionException(error);
+            return result;
+        }
+
+        private void run() {
+            T value;
+            try {
+                value = work.call();
+            } catch (Throwable t) {
+                boolean cancelled = cancelRequested
+                        && (t instanceof InterruptedException || t instanceof CancellationException || Thread.interrupted());
+                finish(cancelled ? State.CANCELLED : State.FAILED, null, cancelled ? null : t);
+                return;
+            }
+            finish(cancelRequested ? State.CANCELLED : State.SUCCEEDED, value, null);
+        }
+
+        private void finish(State finalState, T value, Throwable failure) {
+            result = value;
+            error = failure;
+            if (finalState == State.CANCELLED && cleanup != null) {
+                try {
+                    cleanup.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Cleanup of cancelled job " + name + " failed: " + e.getMessage());
+                }
+            }
+            state = finalState;
+            done.countDown();
+            notifyListeners(this, finalState);
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<Job<?>> interactive = new ArrayDeque<>();
+    private final Deque<Job<?>> batch = new ArrayDeque<>();
+    private final List<Job<?>> running = new ArrayList<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private boolean closed;
+
+    /** threads run any job; one more thread is kept for interactive jobs only. */
+    public JobScheduler(int threads) {
+        if (threads <= 0) throw new IllegalArgumentException("Scheduler needs at least one thread");
+        for (int i = 0; i <= threads; i++) {
+            boolean interactiveOnly = i == threads;
+            Thread t = new Thread(() -> workLoop(interactiveOnly),
+                    interactiveOnly ? "JobScheduler-interactive" : "JobScheduler-" + (i + 1));
+            t.setDaemon(true);
+            this.threads.add(t);
+            t.start();
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** cleanup runs once if the job is cancelled, e.g. to delete its temp files; may be null. */
+    public <T> Job<T> submit(String name, Priority priority, Callable<T> work, Runnable cleanup) {
+        Job<T> job = new Job<>(nextId.getAndIncrement(), name, priority, work, cleanup);
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException("Scheduler is closed");
+        } finally {
+            lock.unlock();
+        }
+        // reported before a worker can pick the job up, so listeners see QUEUED first
+        notifyListeners(job, State.QUEUED);
+        lock.lock();
+        try {
+            queueFor(priority).addLast(job);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return job;
+    }
+
+    /**
+     * Runs work on a new thread of its own instead of a worker, reported as a BATCH job.
+     * Cancelling it interrupts that thread like any running job.
+     */
+    public <T> Job<T> submitCoordinator(String name, Callable<T> work, Runnable cleanup) {
+        Job<T> job = new Job<>(nextId.getAndIncrement(), name, Priority.BATCH, work, cleanup);
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException("Scheduler is closed");
+        } finally {
+            lock.unlock();
+        }
+        notifyListeners(job, State.QUEUED);
+        Thread t = new Thread(() -> {
+            boolean start;
+            lock.lock();
+            try {
+                // a cancel before this point found neither a queue entry nor a thread to interrupt
+                start = !closed && !job.cancelRequested;
+                if (start) begin(job);
+            } finally {
+                lock.unlock();
+            }
+            if (start) {
+                execute(job);
+            } else {
+                job.finish(State.CANCELLED, null, null);
+            }
+        }, "JobScheduler-coordinator-" + job.getId());
+        t.setDaemon(true);
+        t.start();
+        return job;
+    }
+
+    /**
+     * Routes every job of the given runner through the scheduler at that priority.
+     * Interrupting the calling thread cancels the scheduled job, and a cancelled job
+     * leaves no partial output file behind.
+     */
+    public ImageJobRunner asRunner(ImageJobRunner delegate, Priority priority) {
+        return new ImageJobRunner() {
+            @Override
+            public void run(ImageJob job) throws IOException, InterruptedException {
+                Job<Void> scheduled = submit(job.getInputPath().getFileName().toString(), priority, () -> {
+                    delegate.run(job);
+                    return null;
+                }, () -> deleteQuietly(job));
+                try {
+                    scheduled.await();
+                } catch (InterruptedException e) {
+                    scheduled.cancel();
+                    throw e;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException io) throw io;
+                    if (cause instanceof RuntimeException re) throw re;
+                    throw new IOException(cause.getMessage(), cause);
+                }
+            }
+
+            @Override
+            public List<String> intermediateFormats() {
+                return delegate.intermediateFormats();
+            }
+        };
+    }
+
+    private static void deleteQuietly(ImageJob job) {
+        try {
+            Files.deleteIfExists(job.getOutputPath());
+        } catch (IOException e) {
+            System.err.println("Could not delete " + job.getOutputPath() + ": " + e.getMessage());
+        }
+    }
+
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return interactive.size() + batch.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Cancels every queued and running job, e.g. when the window closes. */
+    public void cancelAll() {
+        List<Job<?>> all = new ArrayList<>();
+        lock.lock();
+        try {
+            all.addAll(interactive);
+            all.addAll(batch);
+            all.addAll(running);
+        } finally {
+            lock.unlock();
+        }
+        for (Job<?> job : all) {
+            job.cancel();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        cancelAll();
+        for (Thread t : threads) {
+            try {
+                t.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void workLoop(boolean interactiveOnly) {
+        while (true) {
+            Job<?> job;
+            lock.lock();
+            try {
+                while ((job = next(interactiveOnly)) == null) {
+                    if (closed) return;
+                    available.awaitUninterruptibly();
+                }
+                begin(job);
+            } finally {
+                lock.unlock();
+            }
+            execute(job);
+        }
+    }
+
+    // Called with the lock held
+    private void begin(Job<?> job) {
+        job.thread = Thread.currentThread();
+        job.state = State.RUNNING;
+        running.add(job);
+    }
+
+    private void execute(Job<?> job) {
+        notifyListeners(job, State.RUNNING);
+        try {
+            job.run();
+        } finally {
+            lock.lock();
+            try {
+                running.remove(job);
+                job.thread = null;
+            } finally {
+                lock.unlock();
+            }
+            // a cancel that arrived after the work finished must not hit the next job
+            Thread.interrupted();
+        }
+    }
+
+    // Called with the lock held
+    private Job<?> next(boolean interactiveOnly) {
+        Job<?> job = interactive.pollFirst();
+        if (job == null && !interactiveOnly) job = batch.pollFirst();
+        return job;
+    }
+
+    private Deque<Job<?>> queueFor(Priority priority) {
+        return priority == Priority.INTERACTIVE ? interactive : batch;
+    }
+
+    private void notifyListeners(Job<?> job, State state) {
+        for (Listener listener : listeners) {
+            try {
+                listener.stateChanged(job, state);
+            } catch (RuntimeException e) {
+                System.err.println("Job listener failed: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -4,18 +4,71 @@ import javafx.application.Platform;
 import javafx.scene.control.TextArea;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class LogManager {
+/**
+ * Feeds the log pane: lines from the UI and new lines of processing_log.txt.
+ *
+ * The log file is tailed from a remembered byte offset, so each read costs only the
+ * new bytes. Lines reach the TextArea in batches through a bounded queue, and the
+ * TextArea itself is trimmed to the same line limit, so memory and update time do not
+ * grow with the session.
+ */
+public class LogManager implements AutoCloseable {
+    private static final String LOG_FILE_NAME = "processing_log.txt";
+    // bytes before the offset remembered to notice that the native side started a new log
+    private static final int TAIL_CHECK_BYTES = 64;
+    // reads larger than this only keep their end; older lines would be trimmed anyway
+    private static final int MAX_READ_BYTES = 1 << 20;
+
+    private final TextArea logTextArea;
+    private final int maxLines;
+
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+    private long droppedLines;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private int shownLines;
+
+    private final ExecutorService tailer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "LogReader");
+        t.setDaemon(true);
+        return t;
+    });
+    private Path logFile;
+    private long offset;
+    private byte[] tailCheck = new byte[0];
+    private final StringBuilder partialLine = new StringBuilder();
+    private WatchService watchService;
+
+    public LogManager(TextArea logTextArea, int maxLines) {
+        if (maxLines <= 0) {
+            throw new IllegalArgumentException("Line limit must be positive: " + maxLines);
+        }
+        this.logTextArea = logTextArea;
+        this.maxLines = maxLines;
+    }
 
     public static Path findProcessingLogFile() {
         Path currentDir = Path.of(System.getProperty("user.dir"));
         Path searchDir = currentDir;
 
         for (int i = 0; i < 6; i++) {
-            Path p = searchDir.resolve("processing_log.txt");
+            Path p = searchDir.resolve(LOG_FILE_NAME);
             if (Files.exists(p)) {
                 return p.toAbsolutePath();
             }
@@ -26,36 +79,172 @@ public class LogManager {
         return null;
     }
 
-    public static void appendProcessingLog(TextArea logTextArea) {
-        if (logTextArea == null) return;
+    /** Queues a line for the log pane; safe to call from any thread. */
+    public void append(String line) {
+        if (logTextArea == null) {
+            System.out.println(line);
+            return;
+        }
+        synchronized (pending) {
+            if (pending.size() == maxLines) {
+                pending.removeFirst();
+                droppedLines++;
+            }
+            pending.addLast(line);
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
 
-        Thread reader = new Thread(() -> {
+    /** Appends whatever was written to processing_log.txt since the last call. */
+    public void appendProcessingLog() {
+        tailer.execute(() -> {
             try {
-                Path p = findProcessingLogFile();
-                if (p == null || !Files.exists(p)) return;
-
-                List<String> lines = Files.readAllLines(p);
-                if (!lines.isEmpty()) {
-                    StringBuilder sb = new StringBuilder();
-                    for (String l : lines) {
-                        String t = l == null ? "" : l.trim();
-                        if ("=== Logger started ===".equals(t) || "=== Logger ended ===".equals(t)) continue;
-                        sb.append(l).append(System.lineSeparator());
+                readNewLines();
+            } catch (IOException ex) {
+                append("Failed to append processing log lines: " + ex.getMessage());
+            }
+        });
+    }
+
+    /** Also tails the log whenever its directory reports a change, without waiting for a job to end. */
+    public void startWatching() {
+        Path file = resolveLogFile();
+        Path dir = file != null ? file.getParent() : Path.of(System.getProperty("user.dir")).toAbsolutePath();
+        try {
+            watchService = dir.getFileSystem().newWatchService();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            System.err.println("Log watching disabled: " + ex.getMessage());
+            return;
+        }
+
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean logChanged = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path p && p.getFileName().toString().equals(LOG_FILE_NAME)) {
+                            logChanged = true;
+                        }
                     }
-                    final String content = sb.toString();
-                    Platform.runLater(() -> {
-                        logTextArea.appendText(content);
-                        logTextArea.positionCaret(logTextArea.getLength());
-                    });
+                    key.reset();
+                    if (logChanged) appendProcessingLog();
                 }
-            } catch (IOException ex) {
-                String msg = "Failed to append processing log lines: " + ex.getMessage();
-                System.err.println(msg);
-                Platform.runLater(() -> logTextArea.appendText(msg + System.lineSeparator()));
+            } catch (InterruptedException | ClosedWatchServiceException ignore) {
+                // closed
+            }
+        }, "LogWatcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @Override
+    public void close() {
+        tailer.shutdownNow();
+        if (watchService != null) {
+            try { watchService.close(); } catch (IOException ignore) {}
+        }
+    }
+
+    // runs on the tailer thread only
+    private void readNewLines() throws IOException {
+        Path file = resolveLogFile();
+        if (file == null) return;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset || !tailMatches(channel)) {
+                // the native side truncates the log when a new process starts
+                offset = 0;
+                partialLine.setLength(0);
+            }
+            if (size == offset) return;
+
+            long from = Math.max(offset, size - MAX_READ_BYTES);
+            boolean skipped = from > offset;
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - from));
+            while (buffer.hasRemaining() && channel.read(buffer, from + buffer.position()) >= 0) {
+                // keep reading until the snapshot size is reached
+            }
+            buffer.flip();
+            byte[] bytes = Arrays.copyOf(buffer.array(), buffer.limit());
+            offset = from + bytes.length;
+            tailCheck = Arrays.copyOfRange(bytes, Math.max(0, bytes.length - TAIL_CHECK_BYTES), bytes.length);
+
+            if (skipped) partialLine.setLength(0);
+            String text = partialLine + new String(bytes, StandardCharsets.UTF_8);
+            partialLine.setLength(0);
+
+            int start = 0;
+            int newline;
+            while ((newline = text.indexOf('\n', start)) >= 0) {
+                String line = text.substring(start, newline);
+                start = newline + 1;
+                if (skipped) {
+                    // the first line after a skip is incomplete
+                    skipped = false;
+                    continue;
+                }
+                String t = line.trim();
+                if ("=== Logger started ===".equals(t) || "=== Logger ended ===".equals(t)) continue;
+                append(line.endsWith("\r") ? line.substring(0, line.length() - 1) : line);
             }
-        }, "LogReader");
-        reader.setDaemon(true);
-        reader.start();
+            partialLine.append(text, start, text.length());
+        }
+    }
+
+    private boolean tailMatches(FileChannel channel) throws IOException {
+        if (tailCheck.length == 0) return true;
+        ByteBuffer buffer = ByteBuffer.allocate(tailCheck.length);
+        channel.read(buffer, offset - tailCheck.length);
+        return Arrays.equals(buffer.array(), tailCheck);
     }
 
+    private Path resolveLogFile() {
+        if (logFile == null || !Files.exists(logFile)) {
+            logFile = findProcessingLogFile();
+        }
+        return logFile;
+    }
+
+    // FX thread: one TextArea update per batch, then trim to the line limit
+    private void flush() {
+        flushScheduled.set(false);
+        StringBuilder sb = new StringBuilder();
+        synchronized (pending) {
+            if (droppedLines > 0) {
+                sb.append("... ").append(droppedLines).append(" lines skipped\n");
+                shownLines++;
+                droppedLines = 0;
+            }
+            for (String line : pending) {
+                // the TextArea stores plain \n line breaks
+                sb.append(line.replace('\r', ' ').replace('\n', ' ')).append('\n');
+            }
+            shownLines += pending.size();
+            pending.clear();
+        }
+        if (sb.isEmpty()) return;
+        logTextArea.appendText(sb.toString());
+
+        if (shownLines > maxLines) {
+            // the text is bounded by the line limit, so this scan is too
+            String text = logTextArea.getText();
+            int cut = 0;
+            for (int excess = shownLines - maxLines; excess > 0; excess--) {
+                int newline = text.indexOf('\n', cut);
+                if (newline < 0) {
+                    cut = text.length();
+                    break;
+                }
+                cut = newline + 1;
+            }
+            logTextArea.deleteText(0, cut);
+            shownLines = maxLines;
+        }
+        logTextArea.positionCaret(logTextArea.getLength());
+    }
 }
@@ -0,0 +1,120 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.metrics.StageMetrics;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One long-lived {@code cpp/main --worker} process.
+ * Jobs are sent as a {@code JOB <n>} header followed by n argument lines,
+ * the worker answers with a single {@code OK [<timings>]} or {@code ERR <message>} line.
+ * Replies are read on a separate thread so a waiting job can be interrupted, which kills the process.
+ */
+class NativeWorker implements AutoCloseable {
+    private final Process process;
+    private final BufferedWriter requests;
+    private final BufferedReader responses;
+    // the reader thread queues every reply line, then END once stdout closes
+    private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+    private static final String END = new String("END");
+
+    NativeWorker(Path executablePath) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(executablePath.toString(), "--worker");
+        // stdout carries the protocol, so diagnostics must not be merged into it
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        process = pb.start();
+
+        requests = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        responses = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+
+        String hello = responses.readLine();
+        if (!"READY".equals(hello)) {
+            process.destroyForcibly();
+            throw new IOException("Native worker did not start (got: " + hello + ")");
+        }
+
+        Thread reader = new Thread(this::readReplies, "NativeWorkerReader-" + process.pid());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void readReplies() {
+        try {
+            String line;
+            while ((line = responses.readLine()) != null) {
+                replies.add(line);
+            }
+        } catch (IOException ignore) {
+            // the process is gone; END below wakes up a waiting job
+        }
+        replies.add(END);
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    synchronized void execute(List<String> args) throws IOException, InterruptedException {
+        for (String arg : args) {
+            if (arg.indexOf('\n') >= 0 || arg.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("Worker arguments cannot contain line breaks: " + arg);
+            }
+        }
+
+        requests.write("JOB " + args.size());
+        requests.newLine();
+        for (String arg : args) {
+            requests.write(arg);
+            requests.newLine();
+        }
+        requests.flush();
+
+        String reply;
+        try {
+            reply = replies.take();
+        } catch (InterruptedException e) {
+            // the job was cancelled; the worker is still busy with it, so it cannot be reused
+            CppApplicationService.terminate(process);
+            throw e;
+        }
+        if (reply == END) {
+            throw new IOException("Native worker exited unexpectedly");
+        }
+        if (reply.startsWith("ERR")) {
+            throw new RuntimeException("C++ worker failed: " + reply.substring(3).trim());
+        }
+        if (!"OK".equals(reply) && !reply.startsWith("OK ")) {
+            throw new IOException("Unexpected reply from native worker: " + reply);
+        }
+        // older executables answer a bare OK without timings
+        StageMetrics.recordNative(reply.substring(2));
+    }
+
+    @Override
+    public void close() {
+        try {
+            requests.write("QUIT");
+            requests.newLine();
+            requests.flush();
+        } catch (IOException ignore) {}
+
+        try {
+            if (!process.waitFor(2, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.project.imagetool.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps up to {@code size} native workers alive and hands them out one job at a time.
+ * Workers are started lazily and replaced when they die.
+ */
+class NativeWorkerPool implements AutoCloseable {
+
+    /** The executable could not be started in worker mode (e.g. an older build without {@code --worker}). */
+    static class StartupException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        StartupException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private final Path executablePath;
+    private final int size;
+    private final BlockingQueue<NativeWorker> idle = new LinkedBlockingQueue<>();
+    private int started;
+    private volatile boolean closed;
+
+    NativeWorkerPool(Path executablePath, int size) {
+        if (size <= 0) throw new IllegalArgumentException("Worker pool size must be positive");
+        this.executablePath = executablePath;
+        this.size = size;
+    }
+
+    void execute(List<String> args) throws IOException, InterruptedException {
+        try {
+            executeOnce(args);
+        } catch (StartupException e) {
+            throw e;
+        } catch (IOException crashed) {
+            // the worker died mid-job; a fresh one gets a single retry
+            System.err.println("Native worker crashed, restarting: " + crashed.getMessage());
+            executeOnce(args);
+        }
+    }
+
+    private void executeOnce(List<String> args) throws IOException, InterruptedException {
+        NativeWorker worker = acquire();
+        try {
+            worker.execute(args);
+        } catch (IOException | InterruptedException e) {
+            retire(worker);
+            worker = null;
+            throw e;
+        } finally {
+            if (worker != null) release(worker);
+        }
+    }
+
+    private NativeWorker acquire() throws IOException, InterruptedException {
+        while (true) {
+            if (closed) throw new IllegalStateException("Worker pool is closed");
+            NativeWorker worker = idle.poll();
+            if (worker == null) {
+                if (reserveSlot()) {
+                    return start();
+                }
+                // poll rather than take so a slot freed by a crashed worker is noticed
+                worker = idle.poll(100, TimeUnit.MILLISECONDS);
+                if (worker == null) continue;
+            }
+            if (worker.isAlive()) {
+                return worker;
+            }
+            retire(worker);
+        }
+    }
+
+    private synchronized boolean reserveSlot() {
+        if (started >= size) return false;
+        started++;
+        return true;
+    }
+
+    private NativeWorker start() throws StartupException {
+        try {
+            return new NativeWorker(executablePath);
+        } catch (IOException e) {
+            synchronized (this) {
+                started--;
+            }
+            throw new StartupException("Could not start native worker: " + e.getMessage(), e);
+        }
+    }
+
+    private void release(NativeWorker worker) {
+        if (closed) {
+            retire(worker);
+        } else {
+            idle.offer(worker);
+        }
+    }
+
+    private void retire(NativeWorker worker) {
+        worker.close();
+        synchronized (this) {
+            started--;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        NativeWorker worker;
+        while ((worker = idle.poll()) != null) {
+            retire(worker);
+        }
+    }
+}
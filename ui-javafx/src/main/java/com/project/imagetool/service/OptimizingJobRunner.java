@@ -0,0 +1,99 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.ImageJob;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.BufferPool;
+import com.project.imagetool.processing.FilterPipeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs every job with the chain rewritten by {@link ChainOptimizer}; the caller's job is
+ * left as it was. With explain set, each rewrite is reported there. Verify mode also
+ * renders both chains in process and reports how far apart they are, so the rules can
+ * be checked against real images:
+ * {@code -Dimagetool.optimizer.verify=true}.
+ */
+public class OptimizingJobRunner implements ImageJobRunner, Closeable {
+    private static final boolean VERIFY = Boolean.getBoolean("imagetool.optimizer.verify");
+
+    private final ImageJobRunner delegate;
+    private final ChainOptimizer.Mode mode;
+    private final Consumer<String> explain;
+
+    // explain may be null
+    public OptimizingJobRunner(ImageJobRunner delegate, ChainOptimizer.Mode mode, Consumer<String> explain) {
+        this.delegate = delegate;
+        this.mode = mode;
+        this.explain = explain;
+    }
+
+    public ImageJobRunner getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void run(ImageJob job) throws IOException, InterruptedException {
+        ChainOptimizer.Result result = ChainOptimizer.optimize(job.getFilters(), mode);
+        if (!result.changed()) {
+            delegate.run(job);
+            return;
+        }
+        if (explain != null) explain.accept(ChainOptimizer.explain(job.getFilters(), result));
+
+        ImageJob rewritten = new ImageJob(job.getInputPath(), job.getOutputPath());
+        for (ImageFilter filter : result.filters()) {
+            rewritten.addFilter(filter);
+        }
+        delegate.run(rewritten);
+
+        if (VERIFY) verify(job, result.filters());
+    }
+
+    // Diagnostics only: a mismatch is reported, the job still succeeds
+    private void verify(ImageJob job, List<ImageFilter> optimized) {
+        try {
+            PixelBuffer input = ImageCodec.readLeased(job.getInputPath());
+            PixelBuffer original = FilterPipeline.compile(job.getFilters()).run(input);
+            PixelBuffer rewritten = FilterPipeline.compile(optimized).run(input);
+            byte[] expected = original.getData();
+            byte[] actual = rewritten.getData();
+            int maxDiff = 0;
+            long differing = 0;
+            for (int i = 0; i < expected.length; i++) {
+                int diff = Math.abs((expected[i] & 0xFF) - (actual[i] & 0xFF));
+                if (diff > 0) differing++;
+                maxDiff = Math.max(maxDiff, diff);
+            }
+            String line = "Optimizer verify " + job.getInputPath().getFileName() + ": max difference " + maxDiff
+                    + ", " + differing + " of " + expected.length + " samples differ";
+            BufferPool.release(input);
+            if (original != input) BufferPool.release(original);
+            if (rewritten != input && rewritten != original) BufferPool.release(rewritten);
+            if (mode == ChainOptimizer.Mode.EXACT && maxDiff > 0) {
+                System.err.println(line + " - an exact rewrite changed the output: "
+                        + ResultCache.canonicalChain(job.getFilters()));
+            } else if (explain != null) {
+                explain.accept(line);
+            } else {
+                System.err.println(line);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Optimizer verify failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<String> intermediateFormats() {
+        return delegate.intermediateFormats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) closeable.close();
+    }
+}
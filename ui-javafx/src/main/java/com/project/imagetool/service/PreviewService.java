@@ -0,0 +1,130 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.filter.BlurFilter;
+import com.project.imagetool.filter.ColourFilter;
+import com.project.imagetool.filter.EdgeFilter;
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.ImageScaler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Renders the current filter chain on a downscaled proxy of the image, in process.
+ * Requests are debounced, and a newer request aborts an in-flight render at the
+ * next stage boundary.
+ */
+public class PreviewService implements AutoCloseable {
+    private final InProcessFilterEngine engine;
+    private final long debounceMillis;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Preview");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledFuture<?> pending;
+
+    // only touched on the preview thread
+    private PixelBuffer proxy;
+    private String proxyKey;
+    private double proxyScale = 1;
+
+    public PreviewService(InProcessFilterEngine engine, long debounceMillis) {
+        this.engine = engine;
+        this.debounceMillis = debounceMillis;
+    }
+
+    // Decodes the image and keeps a proxy that fits into maxWidth x maxHeight
+    public void setSource(Path image, int maxWidth, int maxHeight) {
+        cancel();
+        executor.execute(() -> {
+            try {
+                PixelBuffer full = ImageCodec.read(image);
+                int[] size = ImageScaler.fitSize(full.getWidth(), full.getHeight(), maxWidth, maxHeight);
+                proxy = ImageScaler.downscale(full, size[0], size[1]);
+                proxyScale = (double) size[0] / full.getWidth();
+                proxyKey = "preview:" + image.toAbsolutePath() + ":" + Files.getLastModifiedTime(image).toMillis()
+                        + ":" + size[0] + "x" + size[1];
+            } catch (Exception e) {
+                proxy = null;
+                System.err.println("Could not prepare preview: " + e.getMessage());
+            }
+        });
+    }
+
+    public void request(List<ImageFilter> filters, Consumer<PixelBuffer> onResult, Consumer<Throwable> onError) {
+        long gen = generation.incrementAndGet();
+        synchronized (this) {
+            if (pending != null) pending.cancel(false);
+            pending = executor.schedule(() -> render(gen, filters, onResult, onError),
+                    debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void render(long gen, List<ImageFilter> filters, Consumer<PixelBuffer> onResult, Consumer<Throwable> onError) {
+        PixelBuffer source = proxy;
+        if (source == null || gen != generation.get()) return;
+
+        try {
+            PixelBuffer result = engine.process(proxyKey, source, scaledForProxy(filters),
+                    () -> gen != generation.get());
+            if (gen == generation.get()) onResult.accept(result);
+        } catch (CancellationException ignore) {
+            // superseded by a newer request
+        } catch (RuntimeException e) {
+            if (gen == generation.get()) onError.accept(e);
+        }
+    }
+
+    // Blurs, glows and the edge pre-blur are in pixels, so they shrink with the proxy to look like the full render
+    private List<ImageFilter> scaledForProxy(List<ImageFilter> filters) {
+        if (proxyScale >= 1) return filters;
+        List<ImageFilter> scaled = new ArrayList<>();
+        for (ImageFilter filter : filters) {
+            if (filter instanceof BlurFilter blur) {
+                scaled.add(new BlurFilter(scaledKernel(blur.getKernelSize()), scaledSigma(blur.getSigma())));
+            } else if (filter instanceof EdgeFilter edge && edge.getPreBlurKernel() > 0) {
+                scaled.add(new EdgeFilter(edge.getLow(), edge.getHigh(),
+                        scaledKernel(edge.getPreBlurKernel()), scaledSigma(edge.getPreBlurSigma())));
+            } else if (filter instanceof ColourFilter colour && colour.glowKernelSize() > 0) {
+                scaled.add(colour.withGlowScale(proxyScale));
+            } else {
+                scaled.add(filter);
+            }
+        }
+        return scaled;
+    }
+
+    private int scaledKernel(int kernel) {
+        return Math.max(1, (int) Math.round(kernel * proxyScale) | 1);
+    }
+
+    private double scaledSigma(double sigma) {
+        return Math.max(0.1, sigma * proxyScale);
+    }
+
+    public void cancel() {
+        generation.incrementAndGet();
+        synchronized (this) {
+            if (pending != null) pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
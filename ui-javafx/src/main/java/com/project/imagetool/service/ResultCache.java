@@ -0,0 +1,256 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.ImageJob;
+import com.project.imagetool.util.Hashing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache of encoded job results.
+ * The key is a SHA-256 over the input file bytes, the output format and the
+ * filter chain ({@code getType()} plus {@code toCliArgs()} of every filter).
+ * Entries live in an in-memory LRU tier backed by a size-bounded directory on disk.
+ */
+public class ResultCache {
+
+    public static class Stats {
+        public final long memoryHits;
+        public final long diskHits;
+        public final long misses;
+        public final long memoryEvictions;
+        public final long diskEvictions;
+        public final long memoryBytes;
+        public final long diskBytes;
+
+        Stats(long memoryHits, long diskHits, long misses, long memoryEvictions, long diskEvictions,
+              long memoryBytes, long diskBytes) {
+            this.memoryHits = memoryHits;
+            this.diskHits = diskHits;
+            this.misses = misses;
+            this.memoryEvictions = memoryEvictions;
+            this.diskEvictions = diskEvictions;
+            this.memoryBytes = memoryBytes;
+            this.diskBytes = diskBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "cache hits " + (memoryHits + diskHits) + " (memory " + memoryHits + ", disk " + diskHits
+                    + "), misses " + misses + ", evictions " + (memoryEvictions + diskEvictions)
+                    + " (memory " + memoryEvictions + ", disk " + diskEvictions + ")";
+        }
+    }
+
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+    private final Path directory;
+
+    // access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+    // keys whose disk file is being written or deleted
+    private final Set<String> busy = new HashSet<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong memoryEvictions = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+
+    public ResultCache(Path directory, long maxMemoryBytes, long maxDiskBytes) throws IOException {
+        this.directory = directory;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        Files.createDirectories(directory);
+        loadDiskIndex();
+    }
+
+    // Rebuilds the disk index from a previous session, oldest files first
+    private void loadDiskIndex() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.bin")) {
+            for (Path p : stream) files.add(p);
+        }
+        files.sort((a, b) -> {
+            try {
+                return Files.getLastModifiedTime(a).compareTo(Files.getLastModifiedTime(b));
+            } catch (IOException e) {
+                return 0;
+            }
+        });
+        for (Path p : files) {
+            String name = p.getFileName().toString();
+            long size = Files.size(p);
+            disk.put(name.substring(0, name.length() - 4), size);
+            diskBytes += size;
+        }
+        deleteEvicted(evictDisk());
+    }
+
+    public String keyFor(ImageJob job) throws IOException {
+        String key = Hashing.sha256Hex(job.getInputPath())
+                + "\0" + ImageCodec.formatFor(job.getOutputPath())
+                + "\0" + canonicalChain(job.getFilters());
+        return Hashing.sha256Hex(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // e.g. "GRAY();BLUR(--blur,9,2.0)"
+    public static String canonicalChain(List<ImageFilter> filters) {
+        StringBuilder sb = new StringBuilder();
+        for (ImageFilter filter : filters) {
+            if (sb.length() > 0) sb.append(';');
+            sb.append(filter.signature());
+        }
+        return sb.toString();
+    }
+
+    // Disk reads and writes happen outside the lock; only the index updates are synchronized
+    public byte[] get(String key) {
+        synchronized (this) {
+            byte[] cached = memory.get(key);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return cached;
+            }
+            if (disk.get(key) == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+
+        Path file = fileFor(key);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // deleted behind our back or evicted meanwhile: treat as a miss
+            synchronized (this) {
+                if (disk.containsKey(key) && !Files.exists(file)) diskBytes -= disk.remove(key);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        diskHits.incrementAndGet();
+        synchronized (this) {
+            putInMemory(key, bytes);
+        }
+        return bytes;
+    }
+
+    public void put(String key, byte[] bytes) {
+        synchronized (this) {
+            putInMemory(key, bytes);
+            if (bytes.length > maxDiskBytes || disk.containsKey(key) || !busy.add(key)) return;
+        }
+
+        // written under another name first, so a concurrent get never reads a partial entry
+        Path file = fileFor(key);
+        Path partial = directory.resolve(key + ".part");
+        boolean written = false;
+        try {
+            Files.write(partial, bytes);
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            written = true;
+        } catch (IOException e) {
+            System.err.println("Could not write cache entry: " + e.getMessage());
+            deleteQuietly(List.of(partial));
+        }
+
+        List<String> evicted = List.of();
+        synchronized (this) {
+            busy.remove(key);
+            if (written) {
+                disk.put(key, (long) bytes.length);
+                diskBytes += bytes.length;
+                evicted = evictDisk();
+                busy.addAll(evicted);
+            }
+        }
+        deleteEvicted(evicted);
+    }
+
+    private void putInMemory(String key, byte[] bytes) {
+        if (bytes.length > maxMemoryBytes) return;
+        byte[] previous = memory.put(key, bytes);
+        if (previous != null) memoryBytes -= previous.length;
+        memoryBytes += bytes.length;
+
+        Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+            Map.Entry<String, byte[]> eldest = it.next();
+            memoryBytes -= eldest.getValue().length;
+            it.remove();
+            memoryEvictions.incrementAndGet();
+        }
+    }
+
+    // Drops the least recently used entries from the index; the caller deletes their files
+    private List<String> evictDisk() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> it = disk.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            evicted.add(eldest.getKey());
+            diskBytes -= eldest.getValue();
+            it.remove();
+            diskEvictions.incrementAndGet();
+        }
+        return evicted;
+    }
+
+    // Keys stay busy until their file is gone, so a put of the same key cannot be deleted with it
+    private void deleteEvicted(List<String> keys) {
+        for (String key : keys) {
+            deleteQuietly(List.of(fileFor(key)));
+        }
+        synchronized (this) {
+            busy.removeAll(keys);
+        }
+    }
+
+    private static void deleteQuietly(List<Path> files) {
+        for (Path file : files) {
+            try { Files.deleteIfExists(file); } catch (Exception ignore) {}
+        }
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(key + ".bin");
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(memoryHits.get(), diskHits.get(), misses.get(),
+                memoryEvictions.get(), diskEvictions.get(), memoryBytes, diskBytes);
+    }
+
+    public void clear() {
+        List<String> keys;
+        synchronized (this) {
+            memory.clear();
+            memoryBytes = 0;
+            keys = new ArrayList<>(disk.keySet());
+            busy.addAll(keys);
+            disk.clear();
+            diskBytes = 0;
+        }
+        deleteEvicted(keys);
+    }
+}
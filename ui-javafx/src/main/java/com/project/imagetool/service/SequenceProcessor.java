@@ -0,0 +1,158 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.metrics.StageMetrics;
+import com.project.imagetool.model.ImageJob;
+import com.project.imagetool.processing.BufferPool;
+import com.project.imagetool.processing.FilterPipeline;
+
+import java.io.IOException;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs one filter chain over every frame of a sequence, with decode, filter and encode
+ * as pipeline stages connected by bounded queues, so the three overlap across frames.
+ * The input of the {@link ImageJob} is a folder of frames or an animated GIF, the output
+ * a folder (frames keep their names, GIF frames become frame_00001.png, ...) or a GIF.
+ *
+ * One thread decodes, filterThreads threads filter and one thread encodes, writing frames
+ * strictly in input order. The first failure stops every stage.
+ */
+public class SequenceProcessor {
+    private static final FrameSequence.Frame END = new FrameSequence.Frame(-1, null, null, 0);
+
+    private final int filterThreads;
+    private final int queueCapacity;
+    private final int frameDelayMillis;
+
+    /** frameDelayMillis is used for GIF output when the input frames carry no delay of their own. */
+    public SequenceProcessor(int filterThreads, int queueCapacity, int frameDelayMillis) {
+        if (filterThreads <= 0) throw new IllegalArgumentException("Filter threads must be positive");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("Queue capacity must be positive");
+        this.filterThreads = filterThreads;
+        this.queueCapacity = queueCapacity;
+        this.frameDelayMillis = frameDelayMillis;
+    }
+
+    // progress receives the number of frames written so far, from the encode thread
+    public SequenceSummary process(ImageJob job, IntConsumer progress) throws IOException, InterruptedException {
+        FilterPipeline pipeline = FilterPipeline.compile(job.getFilters());
+        BlockingQueue<FrameSequence.Frame> decoded = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<FrameSequence.Frame> filtered = new ArrayBlockingQueue<>(queueCapacity);
+        SequenceSummary.QueueDepth decodedDepth = new SequenceSummary.QueueDepth(queueCapacity);
+        SequenceSummary.QueueDepth filteredDepth = new SequenceSummary.QueueDepth(queueCapacity);
+        // frames decoded but not yet written, including those the encoder holds back for ordering
+        Semaphore inFlight = new Semaphore(2 * queueCapacity + filterThreads);
+        AtomicLong decodeNanos = new AtomicLong();
+        AtomicLong filterNanos = new AtomicLong();
+        AtomicLong encodeNanos = new AtomicLong();
+        int[] maxReorder = new int[1];
+        int[] written = new int[1];
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(filterThreads + 2, r -> {
+            Thread t = new Thread(r, "Sequence-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<Void> stages = new ExecutorCompletionService<>(pool);
+
+        long start = System.nanoTime();
+        try (FrameSequence.Reader reader = FrameSequence.open(job.getInputPath())) {
+            if (reader.count() == 0) throw new IOException("No frames in " + job.getInputPath());
+            try (FrameSequence.Writer writer = FrameSequence.create(job.getOutputPath(), frameDelayMillis)) {
+                stages.submit(() -> {
+                    while (true) {
+                        inFlight.acquire();
+                        StageMetrics.Timer timer = StageMetrics.start();
+                        long t0 = System.nanoTime();
+                        FrameSequence.Frame frame = reader.next();
+                        if (frame == null) break;
+                        decodeNanos.addAndGet(System.nanoTime() - t0);
+                        timer.stop("sequence.decode");
+                        decoded.put(frame);
+                        decodedDepth.sample(decoded.size());
+                    }
+                    for (int i = 0; i < filterThreads; i++) decoded.put(END);
+                    return null;
+                });
+
+                for (int i = 0; i < filterThreads; i++) {
+                    stages.submit(() -> {
+                        for (FrameSequence.Frame frame = decoded.take(); frame != END; frame = decoded.take()) {
+                            StageMetrics.Timer timer = StageMetrics.start();
+                            long t0 = System.nanoTime();
+                            FrameSequence.Frame result = new FrameSequence.Frame(frame.index(), frame.name(),
+                                    pipeline.run(frame.image()), frame.delayMillis());
+                            filterNanos.addAndGet(System.nanoTime() - t0);
+                            timer.stop("sequence.filter");
+                            if (result.image() != frame.image()) BufferPool.release(frame.image());
+                            filtered.put(result);
+                            filteredDepth.sample(filtered.size());
+                        }
+                        filtered.put(END);
+                        return null;
+                    });
+                }
+
+                stages.submit(() -> {
+                    // filter threads finish out of order; later frames wait here for the next one due
+                    TreeMap<Integer, FrameSequence.Frame> pending = new TreeMap<>();
+                    int ended = 0;
+                    while (ended < filterThreads) {
+                        FrameSequence.Frame frame = filtered.take();
+                        if (frame == END) {
+                            ended++;
+                            continue;
+                        }
+                        pending.put(frame.index(), frame);
+                        maxReorder[0] = Math.max(maxReorder[0], pending.size() - 1);
+                        while (!pending.isEmpty() && pending.firstKey() == written[0]) {
+                            StageMetrics.Timer timer = StageMetrics.start();
+                            long t0 = System.nanoTime();
+                            FrameSequence.Frame next = pending.pollFirstEntry().getValue();
+                            writer.write(next);
+                            BufferPool.release(next.image());
+                            encodeNanos.addAndGet(System.nanoTime() - t0);
+                            timer.stop("sequence.encode");
+                            inFlight.release();
+                            written[0]++;
+                            if (progress != null) progress.accept(written[0]);
+                        }
+                    }
+                    return null;
+                });
+
+                try {
+                    for (int i = 0; i < filterThreads + 2; i++) {
+                        stages.take().get();
+                    }
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException io) throw io;
+                    if (cause instanceof InterruptedException) throw new IOException("Sequence stage interrupted", cause);
+                    throw new IOException("Sequence processing failed: " + cause.getMessage(), cause);
+                } finally {
+                    // unblocks stages still waiting on a queue before the writer is closed
+                    pool.shutdownNow();
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return new SequenceSummary(written[0], filterThreads, System.nanoTime() - start,
+                decodeNanos.get(), filterNanos.get(), encodeNanos.get(),
+                decodedDepth, filteredDepth, maxReorder[0]);
+    }
+}
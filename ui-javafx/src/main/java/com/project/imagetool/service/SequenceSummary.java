@@ -0,0 +1,114 @@
+package com.project.imagetool.service;
+
+import java.util.Locale;
+
+public class SequenceSummary {
+
+    // Occupancy of a bounded queue, sampled each time a frame is put into it
+    public static class QueueDepth {
+        private final int capacity;
+        private long samples;
+        private long total;
+        private int max;
+
+        QueueDepth(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void sample(int depth) {
+            samples++;
+            total += depth;
+            max = Math.max(max, depth);
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public synchronized double getAverage() {
+            return samples == 0 ? 0 : (double) total / samples;
+        }
+
+        public synchronized int getMax() {
+            return max;
+        }
+    }
+
+    private final int frames;
+    private final int filterThreads;
+    private final long wallNanos;
+    private final long decodeNanos;
+    private final long filterNanos;
+    private final long encodeNanos;
+    private final QueueDepth decoded;
+    private final QueueDepth filtered;
+    private final int maxReorder;
+
+    SequenceSummary(int frames, int filterThreads, long wallNanos, long decodeNanos, long filterNanos,
+                    long encodeNanos, QueueDepth decoded, QueueDepth filtered, int maxReorder) {
+        this.frames = frames;
+        this.filterThreads = filterThreads;
+        this.wallNanos = wallNanos;
+        this.decodeNanos = decodeNanos;
+        this.filterNanos = filterNanos;
+        this.encodeNanos = encodeNanos;
+        this.decoded = decoded;
+        this.filtered = filtered;
+        this.maxReorder = maxReorder;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public double getFramesPerSecond() {
+        return wallNanos == 0 ? 0 : frames / (wallNanos / 1e9);
+    }
+
+    public QueueDepth getDecodedQueue() {
+        return decoded;
+    }
+
+    public QueueDepth getFilteredQueue() {
+        return filtered;
+    }
+
+    // Most frames held back by the encoder while waiting for an earlier one
+    public int getMaxReorder() {
+        return maxReorder;
+    }
+
+    // Busy time over the wall time, per thread of the stage; the stage near 100% is the bottleneck
+    public double getDecodeUtilisation() {
+        return utilisation(decodeNanos, 1);
+    }
+
+    public double getFilterUtilisation() {
+        return utilisation(filterNanos, filterThreads);
+    }
+
+    public double getEncodeUtilisation() {
+        return utilisation(encodeNanos, 1);
+    }
+
+    private double utilisation(long busyNanos, int threads) {
+        return wallNanos == 0 ? 0 : 100.0 * busyNanos / ((double) wallNanos * threads);
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Sequence finished: %d frames in %.2f s, %.2f frames/s%n",
+                frames, wallNanos / 1e9, getFramesPerSecond()));
+        sb.append(String.format(Locale.ROOT, "Stages busy: decode %.0f%%, filter %.0f%% (%d threads), encode %.0f%%%n",
+                getDecodeUtilisation(), getFilterUtilisation(), filterThreads, getEncodeUtilisation()));
+        sb.append(String.format(Locale.ROOT, "Queues: decoded avg %.1f max %d of %d, filtered avg %.1f max %d of %d,"
+                        + " reorder max %d%n",
+                decoded.getAverage(), decoded.getMax(), decoded.getCapacity(),
+                filtered.getAverage(), filtered.getMax(), filtered.getCapacity(), maxReorder));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.BufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Raw pixel buffer in a memory-mapped {@code .pxb} file, shared with cpp/main
+ * (see cpp/SharedPixelFile.hpp) so jobs pass pixels without PNG encode/decode.
+ *
+ * Layout, little-endian: "PXB1" magic, int32 width, height, channels, stride,
+ * 12 reserved bytes, then height rows of stride bytes of 8-bit BGR.
+ */
+public final class SharedPixelFile {
+    public static final String EXTENSION = ".pxb";
+    static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 'P' | 'X' << 8 | 'B' << 16 | '1' << 24;
+
+    private SharedPixelFile() {}
+
+    public static boolean isSharedPixelFile(Path path) {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(EXTENSION);
+    }
+
+    // tmpfs on Linux keeps the mapping in RAM; elsewhere the OS page cache does the same job
+    public static Path tempDirectory() {
+        Path shm = Path.of("/dev/shm");
+        if (Files.isDirectory(shm) && Files.isWritable(shm)) return shm;
+        return Path.of(System.getProperty("java.io.tmpdir"));
+    }
+
+    // The pixels are leased from the BufferPool
+    public static PixelBuffer read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a pixel buffer file: " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+
+            int magic = map.getInt(0);
+            int width = map.getInt(4);
+            int height = map.getInt(8);
+            int channels = map.getInt(12);
+            int stride = map.getInt(16);
+            if (magic != MAGIC || channels != PixelBuffer.CHANNELS || width <= 0 || height <= 0
+                    || stride < width * channels || HEADER_SIZE + (long) stride * height > channel.size()) {
+                throw new IOException("Invalid pixel buffer header: " + path);
+            }
+
+            PixelBuffer image = BufferPool.lease(width, height);
+            int rowBytes = image.getStride();
+            if (stride == rowBytes) {
+                map.get(HEADER_SIZE, image.getData(), 0, rowBytes * height);
+            } else {
+                for (int y = 0; y < height; y++) {
+                    map.get(HEADER_SIZE + y * stride, image.getData(), y * rowBytes, rowBytes);
+                }
+            }
+            return image;
+        }
+    }
+
+    public static int[] readSize(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // read the whole header
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a pixel buffer file: " + path);
+            }
+            return new int[] { header.getInt(4), header.getInt(8) };
+        }
+    }
+
+    public static void write(PixelBuffer image, Path path) throws IOException {
+        int size = HEADER_SIZE + image.getStride() * image.getHeight();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            map.putInt(0, MAGIC);
+            map.putInt(4, image.getWidth());
+            map.putInt(8, image.getHeight());
+            map.putInt(12, PixelBuffer.CHANNELS);
+            map.putInt(16, image.getStride());
+            map.put(HEADER_SIZE, image.getData());
+        }
+    }
+}
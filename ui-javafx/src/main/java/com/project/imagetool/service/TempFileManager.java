@@ -1,36 +1,60 @@
 package com.project.imagetool.service;
 
+import com.project.imagetool.model.PixelBuffer;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 
 public class TempFileManager {
+    private volatile String suffix;
     private Path tempOutputImage;
-    private Path prevOutputImage;
 
-    public Path getTempOutputImage() {
-        return tempOutputImage;
+    public TempFileManager() {
+        this(".png");
     }
 
-    public Path getPrevOutputImage() {
-        return prevOutputImage;
+    // suffix selects the intermediate format, e.g. SharedPixelFile.EXTENSION for raw shared pixels
+    public TempFileManager(String suffix) {
+        this.suffix = suffix;
     }
 
-    public Path createTempOutput() throws IOException {
-        tempOutputImage = Files.createTempFile("imgtool_", ".png");
+    public String getSuffix() {
+        return suffix;
+    }
+
+    // Applies to temp files created from now on; existing ones keep their format
+    public void setSuffix(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public Path getTempOutputImage() {
         return tempOutputImage;
     }
 
-    public Path createPrevFrom(Path source) throws IOException {
-        if (source == null) return null;
-        if (prevOutputImage != null && Files.exists(prevOutputImage)) {
-            try { Files.delete(prevOutputImage); } catch (Exception ignore) {}
-            prevOutputImage = null;
+    // A new temp file for a job to write; it only becomes the temp output through replaceTempOutput,
+    // so a file that is still being written is never shown, saved or processed further
+    public Path createTempOutput() throws IOException {
+        return createTempFile("imgtool_");
+    }
+
+    // Writes image to a new temp file, e.g. a state restored from the edit history
+    public Path createTempOutput(PixelBuffer image) throws IOException {
+        Path restored = createTempFile("imgtool_restored_");
+        try {
+            ImageCodec.write(image, restored);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(restored);
+            throw ex;
         }
-        prevOutputImage = Files.createTempFile("imgtool_prev_", ".png");
-        Files.copy(source, prevOutputImage, StandardCopyOption.REPLACE_EXISTING);
-        return prevOutputImage;
+        return restored;
+    }
+
+    // Makes a completed temp file the temp output and returns the previous one, which the caller deletes
+    public Path replaceTempOutput(Path completed) {
+        Path previous = tempOutputImage;
+        tempOutputImage = completed;
+        return previous;
     }
 
     public void deleteTempOutput() {
@@ -40,29 +64,14 @@ public class TempFileManager {
         tempOutputImage = null;
     }
 
-    public void deletePrevOutput() {
-        if (prevOutputImage != null && Files.exists(prevOutputImage)) {
-            try { Files.delete(prevOutputImage); } catch (Exception ignore) {}
-        }
-        prevOutputImage = null;
-    }
-
-    public Path restorePrevToTemp() throws IOException {
-        if (prevOutputImage == null || !Files.exists(prevOutputImage)) return null;
-        // delete current temp if exists
-        if (tempOutputImage != null && Files.exists(tempOutputImage)) {
-            try { Files.delete(tempOutputImage); } catch (Exception ignore) {}
+    private Path createTempFile(String prefix) throws IOException {
+        if (suffix.equals(SharedPixelFile.EXTENSION)) {
+            return Files.createTempFile(SharedPixelFile.tempDirectory(), prefix, suffix);
         }
-        Path restored = Files.createTempFile("imgtool_restored_", ".png");
-        Files.copy(prevOutputImage, restored, StandardCopyOption.REPLACE_EXISTING);
-        try { Files.delete(prevOutputImage); } catch (Exception ignore) {}
-        prevOutputImage = null;
-        tempOutputImage = restored;
-        return tempOutputImage;
+        return Files.createTempFile(prefix, suffix);
     }
 
     public void cleanupAll() {
         deleteTempOutput();
-        deletePrevOutput();
     }
 }
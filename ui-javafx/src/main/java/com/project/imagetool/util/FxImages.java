@@ -0,0 +1,24 @@
+package com.project.imagetool.util;
+
+import com.project.imagetool.model.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+public final class FxImages {
+    private FxImages() {}
+
+    public static WritableImage toFxImage(PixelBuffer image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] bgr = image.getData();
+
+        int[] argb = new int[width * height];
+        for (int i = 0, j = 0; i < argb.length; i++, j += PixelBuffer.CHANNELS) {
+            argb[i] = 0xFF000000 | (bgr[j + 2] & 0xFF) << 16 | (bgr[j + 1] & 0xFF) << 8 | (bgr[j] & 0xFF);
+        }
+
+        WritableImage fx = new WritableImage(width, height);
+        fx.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), argb, 0, width);
+        return fx;
+    }
+}
@@ -0,0 +1,209 @@
+package com.project.imagetool.util;
+
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.BufferPool;
+import com.project.imagetool.processing.ImageScaler;
+import com.project.imagetool.service.ImageCodec;
+import com.project.imagetool.service.SharedPixelFile;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.stage.Window;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Shows image files in an ImageView without decoding them on the FX thread, and only
+ * at the size the view needs. Decoded sizes form a small pyramid per image: the
+ * view-sized level, doubled until the source size, so zooming back to a level already
+ * seen does not decode again. Full resolution is only loaded once the zoomed view
+ * needs every source pixel. Must be used from the FX thread.
+ */
+public class ImageDisplayService implements AutoCloseable {
+    private final ImageView view;
+    // true while something else, e.g. the live preview, owns the view
+    private final BooleanSupplier overlayActive;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ImageDisplay");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Source source;
+    private long generation;
+
+    private static final class Source {
+        final Path path;
+        final int width;
+        final int height;
+        // decoded images by width
+        final TreeMap<Integer, Image> levels = new TreeMap<>();
+        int baseWidth;
+        int loading;
+        Image shown;
+        Runnable onShown;
+        Consumer<Exception> onError;
+
+        Source(Path path, int width, int height, Runnable onShown, Consumer<Exception> onError) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+            this.onShown = onShown;
+            this.onError = onError;
+        }
+    }
+
+    public ImageDisplayService(ImageView view, BooleanSupplier overlayActive) {
+        this.view = view;
+        this.overlayActive = overlayActive;
+    }
+
+    /**
+     * Replaces the displayed image with path. onShown runs once the first level is on
+     * screen, onError if the file cannot be decoded; either may be null.
+     */
+    public void show(Path path, Runnable onShown, Consumer<Exception> onError) {
+        long gen = ++generation;
+        executor.execute(() -> {
+            try {
+                int[] size = ImageCodec.readSize(path);
+                Platform.runLater(() -> {
+                    if (gen != generation) return;
+                    source = new Source(path, size[0], size[1], onShown, onError);
+                    update();
+                });
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    if (gen == generation) report(new Source(path, 0, 0, null, onError), e);
+                });
+            }
+        });
+    }
+
+    /** Picks the level for the current fit size, e.g. after zooming, and decodes it if needed. */
+    public void update() {
+        Source s = source;
+        if (s == null) return;
+        int needed = neededWidth(s);
+        if (s.baseWidth == 0) s.baseWidth = needed;
+        int width = s.baseWidth;
+        while (width < needed && width < s.width) width *= 2;
+        width = Math.min(width, s.width);
+
+        Image ready = s.levels.get(width);
+        if (ready != null) {
+            display(s, ready);
+            return;
+        }
+        // the nearest decoded level stands in, scaled by the view, until the right one is ready
+        Map.Entry<Integer, Image> near = s.levels.floorEntry(width);
+        if (near == null) near = s.levels.ceilingEntry(width);
+        if (near != null) display(s, near.getValue());
+        if (s.loading == 0) load(s, width);
+    }
+
+    /** Puts the current image back after an overlay, e.g. when the preview is switched off. */
+    public void restore() {
+        if (source != null && source.shown != null) view.setImage(source.shown);
+    }
+
+    public void clear() {
+        generation++;
+        source = null;
+        view.setImage(null);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // Source pixels across the fitted view, in device pixels
+    private int neededWidth(Source s) {
+        if (view.getFitWidth() <= 0 || view.getFitHeight() <= 0) return s.width;
+        Window window = view.getScene() != null ? view.getScene().getWindow() : null;
+        double scale = window != null ? window.getOutputScaleX() : 1;
+        int[] fit = ImageScaler.fitSize(s.width, s.height,
+                (int) Math.ceil(view.getFitWidth() * scale), (int) Math.ceil(view.getFitHeight() * scale));
+        return fit[0];
+    }
+
+    private void load(Source s, int width) {
+        s.loading = width;
+        boolean full = width == s.width;
+        int height = full ? s.height : Math.max(1, (int) Math.round((double) s.height * width / s.width));
+
+        if (SharedPixelFile.isSharedPixelFile(s.path)) {
+            // raw pixels: a plain copy out of the mapped file, then the box filter
+            executor.execute(() -> {
+                try {
+                    PixelBuffer image = SharedPixelFile.read(s.path);
+                    PixelBuffer scaled = full ? image : ImageScaler.downscale(image, width, height);
+                    Image fx = FxImages.toFxImage(scaled);
+                    BufferPool.release(image);
+                    Platform.runLater(() -> loaded(s, width, fx));
+                } catch (Exception e) {
+                    Platform.runLater(() -> failed(s, e));
+                }
+            });
+            return;
+        }
+
+        // JavaFX decodes on its own background thread and reports progress on the FX thread
+        String uri = s.path.toUri().toString();
+        Image image = full ? new Image(uri, true) : new Image(uri, width, height, false, true, true);
+        Runnable check = () -> {
+            if (s.loading != width) return;
+            if (image.isError()) {
+                Exception e = image.getException();
+                failed(s, e != null ? e : new IllegalStateException("Cannot load image: " + s.path));
+            } else if (image.getProgress() >= 1) {
+                loaded(s, width, image);
+            }
+        };
+        image.progressProperty().addListener((obs, oldV, newV) -> check.run());
+        image.errorProperty().addListener((obs, oldV, newV) -> check.run());
+        check.run();
+    }
+
+    private void loaded(Source s, int width, Image image) {
+        s.loading = 0;
+        if (s != source) return;
+        s.levels.put(width, image);
+        if (s.onShown != null) {
+            display(s, image);
+            Runnable onShown = s.onShown;
+            s.onShown = null;
+            s.onError = null;
+            onShown.run();
+        }
+        update();
+    }
+
+    private void failed(Source s, Exception e) {
+        s.loading = 0;
+        if (s == source) report(s, e);
+    }
+
+    private void report(Source s, Exception e) {
+        Consumer<Exception> onError = s.onError;
+        s.onShown = null;
+        s.onError = null;
+        if (onError != null) {
+            onError.accept(e);
+        } else {
+            System.err.println("Could not display " + s.path + ": " + e.getMessage());
+        }
+    }
+
+    private void display(Source s, Image image) {
+        s.shown = image;
+        if (!overlayActive.getAsBoolean()) view.setImage(image);
+    }
+}
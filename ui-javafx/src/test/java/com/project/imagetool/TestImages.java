@@ -0,0 +1,58 @@
+package com.project.imagetool;
+
+import com.project.imagetool.model.PixelBuffer;
+
+import java.util.Random;
+
+// Synthetic images for the tests: smooth gradients, hard edges and noise, so every filter has something to do
+public final class TestImages {
+
+    private TestImages() {}
+
+    public static PixelBuffer synthetic(int width, int height, long seed) {
+        Random random = new Random(seed);
+        PixelBuffer image = new PixelBuffer(width, height);
+        byte[] data = image.getData();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = (y * width + x) * PixelBuffer.CHANNELS;
+                // a bright disc and a dark diagonal band give edges in every direction
+                boolean disc = Math.hypot(x - width * 0.6, y - height * 0.4) < Math.min(width, height) * 0.25;
+                boolean band = Math.abs(x - y) < 6;
+                int base = disc ? 220 : band ? 20 : 0;
+                data[i] = (byte) clamp(base + x * 255 / width / 2 + random.nextInt(24));
+                data[i + 1] = (byte) clamp(base + y * 255 / height / 2 + random.nextInt(24));
+                data[i + 2] = (byte) clamp(base + (x + y) * 255 / (width + height) + random.nextInt(24));
+            }
+        }
+        return image;
+    }
+
+    public static PixelBuffer gray(int width, int height, long seed) {
+        PixelBuffer image = synthetic(width, height, seed);
+        byte[] data = image.getData();
+        for (int i = 0; i < data.length; i += PixelBuffer.CHANNELS) {
+            data[i + 1] = data[i];
+            data[i + 2] = data[i];
+        }
+        return image;
+    }
+
+    public static int maxDifference(PixelBuffer a, PixelBuffer b) {
+        if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight()) {
+            throw new AssertionError("Sizes differ: " + a.getWidth() + "x" + a.getHeight()
+                    + " and " + b.getWidth() + "x" + b.getHeight());
+        }
+        int max = 0;
+        byte[] da = a.getData();
+        byte[] db = b.getData();
+        for (int i = 0; i < da.length; i++) {
+            max = Math.max(max, Math.abs((da[i] & 0xFF) - (db[i] & 0xFF)));
+        }
+        return max;
+    }
+
+    private static int clamp(int v) {
+        return Math.max(0, Math.min(255, v));
+    }
+}
@@ -0,0 +1,63 @@
+package com.project.imagetool.cli;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.service.ImageCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeadlessMainTest {
+
+    @TempDir
+    Path dir;
+
+    private final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        PrintStream out = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+        PrintStream err = new PrintStream(errors, true, StandardCharsets.UTF_8);
+        return HeadlessMain.run(args, out, err);
+    }
+
+    private Path writePng(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        ImageIO.write(ImageCodec.toBufferedImage(TestImages.synthetic(40, 30, 3)), "png", file.toFile());
+        return file;
+    }
+
+    @Test
+    void outputFolderHoldingTheInputsIsAUsageError() throws IOException {
+        Path input = writePng(dir.resolve("in/a.png"));
+        byte[] before = Files.readAllBytes(input);
+
+        assertEquals(HeadlessMain.EXIT_USAGE, run("-q", "--engine", "java", "-f", "gray",
+                dir.resolve("in").toString(), dir.resolve("in").toString()));
+        assertTrue(errors.toString(StandardCharsets.UTF_8).contains("overwritten"));
+        assertArrayEquals(before, Files.readAllBytes(input));
+
+        assertEquals(HeadlessMain.EXIT_USAGE, run("-q", "--engine", "java", "-f", "gray",
+                input.toString(), input.toString()));
+        assertArrayEquals(before, Files.readAllBytes(input));
+    }
+
+    @Test
+    void failedImagesKeepExitCodeOne() throws IOException {
+        writePng(dir.resolve("in/a.png"));
+        Files.writeString(dir.resolve("in/broken.png"), "not a png");
+
+        assertEquals(HeadlessMain.EXIT_FAILED_IMAGES, run("-q", "--engine", "java", "-f", "gray",
+                dir.resolve("in").toString(), dir.resolve("out").toString()));
+        assertTrue(Files.exists(dir.resolve("out/a.png")));
+    }
+}
@@ -0,0 +1,60 @@
+package com.project.imagetool.filter;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.ImageScaler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColourFilterTest {
+
+    private static final PixelBuffer IMAGE = TestImages.synthetic(480, 360, 13);
+
+    private static double meanDifference(PixelBuffer a, PixelBuffer b) {
+        long sum = 0;
+        for (int i = 0; i < a.getData().length; i++) {
+            sum += Math.abs((a.getData()[i] & 0xFF) - (b.getData()[i] & 0xFF));
+        }
+        return (double) sum / a.getData().length;
+    }
+
+    // a quarter-size proxy should look like the full render scaled down
+    private static void assertScaledGlowMatchesTheFullRender(ColourFilter filter) {
+        int w = IMAGE.getWidth() / 4;
+        int h = IMAGE.getHeight() / 4;
+        PixelBuffer expected = ImageScaler.downscale(filter.apply(IMAGE), w, h);
+        PixelBuffer proxy = ImageScaler.downscale(IMAGE, w, h);
+
+        double scaled = meanDifference(expected, filter.withGlowScale(0.25).apply(proxy));
+        double unscaled = meanDifference(expected, filter.apply(proxy));
+        assertTrue(scaled < unscaled, filter.getType() + ": scaled glow " + scaled + " vs unscaled " + unscaled);
+    }
+
+    @Test
+    void unitScaleIsTheSameFilter() {
+        RoseFilter rose = new RoseFilter();
+        ColourFilter copy = rose.withGlowScale(1);
+        assertEquals(rose.signature(), copy.signature());
+        assertArrayEquals(rose.apply(IMAGE).getData(), copy.apply(IMAGE).getData());
+    }
+
+    @Test
+    void scaledGlowIsSmallerAndKeyedSeparately() {
+        ColourFilter heart = new HeartFilter().withGlowScale(0.25);
+        assertEquals(11, heart.glowKernelSize());
+        assertEquals(2.0, heart.glowSigma());
+        assertEquals(5, heart.haloRadius());
+        assertNotEquals(new HeartFilter().signature(), heart.signature());
+    }
+
+    @Test
+    void scaledGlowOnAProxyFollowsTheFullRender() {
+        assertScaledGlowMatchesTheFullRender(new RoseFilter());
+        assertScaledGlowMatchesTheFullRender(new SingleColourFilter(200, 30, 90));
+        assertScaledGlowMatchesTheFullRender(new HeartFilter());
+    }
+}
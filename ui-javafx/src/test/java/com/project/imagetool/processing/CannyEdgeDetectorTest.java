@@ -0,0 +1,52 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.model.PixelBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CannyEdgeDetectorTest {
+
+    // 1200x900 is large enough for 16 bands of the minimum size
+    private static final int WIDTH = 1200;
+    private static final int HEIGHT = 900;
+
+    private static void assertSameForEveryParallelism(PixelBuffer image) {
+        byte[] serial = CannyEdgeDetector.detect(image, 40, 120, 1);
+        for (int parallelism : new int[] { 2, 3, 7, 16 }) {
+            assertEquals(parallelism, RowBands.split(WIDTH, HEIGHT, parallelism).length - 1);
+            assertArrayEquals(serial, CannyEdgeDetector.detect(image, 40, 120, parallelism), "parallelism " + parallelism);
+        }
+    }
+
+    @Test
+    void bandsMatchOneThread() {
+        // the disc and the diagonal band cross every seam
+        assertSameForEveryParallelism(TestImages.synthetic(WIDTH, HEIGHT, 17));
+    }
+
+    @Test
+    void weakEdgeFollowsAStrongOneAcrossEverySeam() {
+        // a weak vertical step (gradient 60) whose only strong part (gradient 200) is in the first band
+        PixelBuffer image = new PixelBuffer(WIDTH, HEIGHT);
+        byte[] data = image.getData();
+        for (int y = 0; y < HEIGHT; y++) {
+            int right = y >= 10 && y < 20 ? 150 : 115;
+            for (int x = 0; x < WIDTH; x++) {
+                int i = (y * WIDTH + x) * PixelBuffer.CHANNELS;
+                Arrays.fill(data, i, i + PixelBuffer.CHANNELS, (byte) (x < WIDTH / 2 ? 100 : right));
+            }
+        }
+
+        byte[] serial = CannyEdgeDetector.detect(image, 40, 120, 1);
+        int bottom = (HEIGHT - 2) * WIDTH;
+        assertTrue(serial[bottom + WIDTH / 2 - 1] != 0 || serial[bottom + WIDTH / 2] != 0,
+                "hysteresis should reach the last rows");
+        assertSameForEveryParallelism(image);
+    }
+}
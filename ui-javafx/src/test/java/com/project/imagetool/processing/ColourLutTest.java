@@ -0,0 +1,70 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.filter.HeartFilter;
+import com.project.imagetool.filter.RainbowFilter;
+import com.project.imagetool.filter.RoseFilter;
+import com.project.imagetool.filter.SingleColourFilter;
+import com.project.imagetool.model.PixelBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColourLutTest {
+
+    // the README promises "a level or two" for -Dimagetool.lut=33
+    private static final int GRID_SIZE = 33;
+    private static final int MAX_LEVELS = 2;
+
+    private static final PixelBuffer IMAGE = TestImages.synthetic(211, 157, 3);
+
+    private static void assertLutCloseToExact(List<? extends PointOperation> ops) {
+        assertLutCloseToExact(ops, IMAGE);
+    }
+
+    private static void assertLutCloseToExact(List<? extends PointOperation> ops, PixelBuffer image) {
+        ColourLut lut = LutCompiler.compile(ops, image.getWidth(), image.getHeight(), GRID_SIZE);
+        assertNotNull(lut);
+        PointOperation last = ops.get(ops.size() - 1);
+        PixelBuffer tabulated = lut.apply(image, last.glowKernelSize(), last.glowSigma(), Region.whole(image));
+        PixelBuffer exact = PointPass.apply(image, ops);
+        int difference = TestImages.maxDifference(exact, tabulated);
+        assertTrue(difference <= MAX_LEVELS, ops + " differs by " + difference + " levels");
+    }
+
+    @Test
+    void grayStaysWithinTwoLevels() {
+        assertLutCloseToExact(List.of(new GrayFilter()));
+    }
+
+    @Test
+    void tintStaysWithinTwoLevels() {
+        assertLutCloseToExact(List.of(new SingleColourFilter(200, 30, 90)));
+    }
+
+    @Test
+    void glowAfterTheTableStaysWithinTwoLevels() {
+        assertLutCloseToExact(List.of(new GrayFilter(), new RoseFilter()));
+    }
+
+    @Test
+    void heartIsNeverTabulated() {
+        // its clipped 4x and 5x gains would be up to 8 levels off on this grid
+        assertNull(LutCompiler.compile(List.of(new GrayFilter(), new HeartFilter()), IMAGE.getWidth(), IMAGE.getHeight(), GRID_SIZE));
+    }
+
+    @Test
+    void rainbowColumnsOnANarrowImageStayWithinTwoLevels() {
+        // one class per column, few enough to tabulate
+        PixelBuffer narrow = TestImages.synthetic(12, 90, 4);
+        List<PointOperation> ops = List.of(new RainbowFilter(RainbowFilter.Mode.COLUMN), new SingleColourFilter(40, 220, 120));
+        assertEquals(12, LutCompiler.compile(ops, 12, 90, GRID_SIZE).getClassCount());
+        assertLutCloseToExact(ops, narrow);
+    }
+}
@@ -0,0 +1,82 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.filter.LutFilter;
+import com.project.imagetool.filter.SingleColourFilter;
+import com.project.imagetool.model.PixelBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CubeFileTest {
+
+    // the same grid and bound as ColourLutTest
+    private static final int GRID_SIZE = 33;
+    private static final int MAX_LEVELS = 2;
+
+    private static final PixelBuffer IMAGE = TestImages.synthetic(211, 157, 7);
+
+    @TempDir
+    Path dir;
+
+    private Path roundTrip(PointOperation op, String name) throws IOException {
+        ColourLut written = LutCompiler.compile(List.of(op), IMAGE.getWidth(), IMAGE.getHeight(), GRID_SIZE);
+        Path file = dir.resolve(name);
+        CubeFile.write(written, file, name);
+
+        ColourLut read = CubeFile.read(file);
+        assertEquals(GRID_SIZE, read.getSize());
+        // six decimals are finer than one 8.8 fixed-point step
+        assertArrayEquals(written.table(0), read.table(0));
+
+        int difference = TestImages.maxDifference(PointPass.apply(IMAGE, List.of(op)),
+                read.apply(IMAGE, op.glowKernelSize(), op.glowSigma(), Region.whole(IMAGE)));
+        assertTrue(difference <= MAX_LEVELS, name + " differs by " + difference + " levels");
+        return file;
+    }
+
+    @Test
+    void grayRoundTripsThroughAFileAndRunsAsAFilter() throws IOException {
+        Path file = roundTrip(new GrayFilter(), "gray.cube");
+
+        PixelBuffer filtered = new LutFilter(file).apply(IMAGE);
+        int difference = TestImages.maxDifference(new GrayFilter().apply(IMAGE), filtered);
+        assertTrue(difference <= MAX_LEVELS, "lut stage differs by " + difference + " levels");
+    }
+
+    @Test
+    void tintTableRoundTripsBeforeItsGlow() throws IOException {
+        roundTrip(new SingleColourFilter(200, 30, 90), "tint.cube");
+    }
+
+    @Test
+    void cacheKeysFollowTheTableRatherThanThePath() throws IOException {
+        Path gray = roundTrip(new GrayFilter(), "gray.cube");
+        Path copy = Files.copy(gray, dir.resolve("copy.cube"));
+        Path tint = roundTrip(new SingleColourFilter(200, 30, 90), "tint.cube");
+
+        assertEquals(new LutFilter(gray).signature(), new LutFilter(copy).signature());
+        assertNotEquals(new LutFilter(gray).signature(), new LutFilter(tint).signature());
+    }
+
+    @Test
+    void malformedFilesAreRejected() throws IOException {
+        Path missingSize = Files.writeString(dir.resolve("missing.cube"), "0 0 0\n");
+        Path shortTable = Files.writeString(dir.resolve("short.cube"), "LUT_3D_SIZE 2\n0 0 0\n1 1 1\n");
+        Path oneDimensional = Files.writeString(dir.resolve("1d.cube"), "LUT_1D_SIZE 2\n0 0 0\n1 1 1\n");
+        assertThrows(IOException.class, () -> CubeFile.read(missingSize));
+        assertThrows(IOException.class, () -> CubeFile.read(shortTable));
+        assertThrows(IOException.class, () -> CubeFile.read(oneDimensional));
+    }
+}
@@ -0,0 +1,66 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.filter.BlurFilter;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.filter.HeartFilter;
+import com.project.imagetool.filter.RainbowFilter;
+import com.project.imagetool.filter.RoseFilter;
+import com.project.imagetool.filter.SingleColourFilter;
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilterPipelineTest {
+
+    private static PixelBuffer oneByOne(List<ImageFilter> filters, PixelBuffer image) {
+        for (ImageFilter filter : filters) {
+            image = filter.apply(image);
+        }
+        return image;
+    }
+
+    private static void assertFusedMatches(List<ImageFilter> filters, int expectedStages) {
+        PixelBuffer image = TestImages.synthetic(173, 121, 7);
+        FilterPipeline pipeline = FilterPipeline.compile(filters);
+        assertEquals(expectedStages, pipeline.getStageCount(), pipeline.toString());
+        assertArrayEquals(oneByOne(filters, image).getData(), pipeline.run(image).getData(), pipeline.toString());
+    }
+
+    @Test
+    void fusedGrayAndRainbowMatchFilterByFilter() {
+        assertFusedMatches(List.of(new GrayFilter(), new RainbowFilter(RainbowFilter.Mode.COLUMN)), 1);
+    }
+
+    @Test
+    void fusedRunEndingInGlowMatchesFilterByFilter() {
+        assertFusedMatches(List.of(new RainbowFilter(), new GrayFilter(), new RoseFilter()), 1);
+    }
+
+    @Test
+    void glowEndsTheRun() {
+        assertFusedMatches(List.of(new SingleColourFilter(200, 30, 90), new GrayFilter(), new HeartFilter()), 2);
+    }
+
+    @Test
+    void blurIsABarrierBetweenFusedRuns() {
+        assertFusedMatches(List.of(new GrayFilter(), new RainbowFilter(), new BlurFilter(5, 1.5),
+                new RainbowFilter(RainbowFilter.Mode.COLUMN), new RoseFilter()), 3);
+    }
+
+    @Test
+    void bindingFollowsTheFrameSize() {
+        // one compiled pipeline reused for two sizes must not keep the first size's mappers
+        List<ImageFilter> filters = List.of(new HeartFilter(), new RainbowFilter());
+        FilterPipeline pipeline = FilterPipeline.compile(filters);
+        for (PixelBuffer image : List.of(TestImages.synthetic(90, 60, 1), TestImages.synthetic(61, 97, 2),
+                TestImages.synthetic(90, 60, 3))) {
+            assertArrayEquals(oneByOne(filters, image).getData(), pipeline.run(image).getData());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.model.PixelBuffer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class GaussianBlurTest {
+
+    // {width, height, kernel, sigma}; the small images are narrower or shorter than the kernel
+    private static final double[][] CASES = {
+            { 97, 61, 9, 2.0 },
+            { 64, 48, 25, 8.0 },
+            { 5, 40, 9, 3.0 },
+            { 40, 3, 7, 1.5 },
+            { 2, 2, 7, 2.0 },
+            { 1, 17, 5, 1.0 },
+            { 1, 1, 3, 0.8 },
+    };
+
+    // gfedcb|abcdefgh|gfedcba, written out independently of GaussianBlur.reflect101
+    private static int reflect(int p, int len) {
+        if (len == 1) return 0;
+        int period = 2 * len - 2;
+        p = Math.floorMod(p, period);
+        return p < len ? p : period - p;
+    }
+
+    // cv::getGaussianKernel in double precision
+    private static double[] kernel(int ksize, double sigma) {
+        double[] k = new double[ksize];
+        double sum = 0;
+        for (int i = 0; i < ksize; i++) {
+            double x = i - (ksize - 1) / 2.0;
+            k[i] = Math.exp(-x * x / (2 * sigma * sigma));
+            sum += k[i];
+        }
+        for (int i = 0; i < ksize; i++) k[i] /= sum;
+        return k;
+    }
+
+    // Direct 2-D convolution with the outer product of the kernel
+    private static PixelBuffer naiveBlur(PixelBuffer src, int ksize, double sigma) {
+        double[] k = kernel(ksize, sigma);
+        int r = ksize / 2;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        PixelBuffer out = new PixelBuffer(w, h);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                for (int c = 0; c < PixelBuffer.CHANNELS; c++) {
+                    double sum = 0;
+                    for (int dy = -r; dy <= r; dy++) {
+                        for (int dx = -r; dx <= r; dx++) {
+                            int i = (reflect(y + dy, h) * w + reflect(x + dx, w)) * PixelBuffer.CHANNELS + c;
+                            sum += (src.getData()[i] & 0xFF) * k[dy + r] * k[dx + r];
+                        }
+                    }
+                    out.getData()[(y * w + x) * PixelBuffer.CHANNELS + c] = (byte) Math.min(255, Math.round(sum));
+                }
+            }
+        }
+        return out;
+    }
+
+    @Test
+    void matchesANaive2dConvolution() {
+        for (double[] c : CASES) {
+            int w = (int) c[0], h = (int) c[1], ksize = (int) c[2];
+            PixelBuffer image = TestImages.synthetic(w, h, w * 31 + h);
+            int difference = TestImages.maxDifference(naiveBlur(image, ksize, c[3]), GaussianBlur.blur(image, ksize, c[3]));
+            // float accumulation can land on the other side of a .5
+            assertTrue(difference <= 1, w + "x" + h + " k" + ksize + " differs by " + difference);
+        }
+    }
+
+    @Test
+    void kernelIsTheNormalisedGaussian() {
+        float[] k = GaussianBlur.kernel(7, 1.5);
+        double[] expected = kernel(7, 1.5);
+        for (int i = 0; i < k.length; i++) {
+            assertEquals(expected[i], k[i], 1e-7);
+            assertEquals(k[i], k[k.length - 1 - i]);
+        }
+    }
+
+    @Test
+    void vectorAndScalarKernelsAgreeBitForBit() {
+        assumeTrue(GaussianBlur.isVectorized(), "jdk.incubator.vector is not available");
+        try {
+            for (double[] c : CASES) {
+                int w = (int) c[0], h = (int) c[1], ksize = (int) c[2];
+                PixelBuffer image = TestImages.synthetic(w, h, w + h);
+                float[] floats = new float[image.getData().length];
+                for (int i = 0; i < floats.length; i++) floats[i] = (image.getData()[i] & 0xFF) / 255f;
+                float[] scalarFloats = floats.clone();
+
+                byte[] vector = GaussianBlur.blur(image, ksize, c[3]).getData();
+                GaussianBlur.blur(floats, w, h, PixelBuffer.CHANNELS, ksize, c[3]);
+                GaussianBlur.setVectorized(false);
+                byte[] scalar = GaussianBlur.blur(image, ksize, c[3]).getData();
+                GaussianBlur.blur(scalarFloats, w, h, PixelBuffer.CHANNELS, ksize, c[3]);
+                GaussianBlur.setVectorized(true);
+
+                assertArrayEquals(scalar, vector, w + "x" + h + " k" + ksize);
+                assertArrayEquals(scalarFloats, floats, w + "x" + h + " k" + ksize + " float");
+            }
+        } finally {
+            GaussianBlur.setVectorized(true);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.project.imagetool.processing;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.filter.BlurFilter;
+import com.project.imagetool.filter.EdgeFilter;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.filter.HeartFilter;
+import com.project.imagetool.filter.RainbowFilter;
+import com.project.imagetool.filter.RoseFilter;
+import com.project.imagetool.filter.SingleColourFilter;
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class TiledExecutorTest {
+
+    // 601x433 is no multiple of any tile size below, so the last row and column of tiles are partial
+    private static final PixelBuffer IMAGE = TestImages.synthetic(601, 433, 11);
+
+    private static void assertTiledMatchesWhole(List<ImageFilter> filters, int... tileSizes) {
+        byte[] whole = FilterPipeline.compile(filters).run(IMAGE).getData();
+        for (int tileSize : tileSizes) {
+            PixelBuffer tiled = new TiledExecutor(tileSize).process(IMAGE, filters);
+            assertArrayEquals(whole, tiled.getData(), "tile size " + tileSize);
+
+            PixelBuffer copy = new PixelBuffer(IMAGE.getWidth(), IMAGE.getHeight(), IMAGE.getData().clone());
+            PixelBuffer inPlace = new TiledExecutor(tileSize).processInPlace(copy, filters);
+            assertArrayEquals(whole, inPlace.getData(), "tile size " + tileSize + ", in place");
+        }
+    }
+
+    @Test
+    void blurThenGlow() {
+        assertTiledMatchesWhole(List.of(new BlurFilter(9, 2.0), new HeartFilter()), 128, 257, 500);
+    }
+
+    @Test
+    void glowBetweenColourFiltersAndBlur() {
+        assertTiledMatchesWhole(List.of(new RoseFilter(), new BlurFilter(5, 1.0), new SingleColourFilter(200, 30, 90)),
+                128, 257, 500);
+    }
+
+    @Test
+    void positionDependentColoursFollowTheFrame() {
+        assertTiledMatchesWhole(List.of(new RainbowFilter(), new GrayFilter(), new BlurFilter(7, 3.0)), 128, 257, 500);
+    }
+
+    @Test
+    void wholeImageFilterSplitsTheChain() {
+        assertTiledMatchesWhole(List.of(new BlurFilter(3, 1.0), new EdgeFilter(50, 150), new BlurFilter(5, 2.0)),
+                128, 257, 500);
+    }
+
+    @Test
+    void haloWiderThanATile() {
+        // the two blurs need 11 pixels of context, more than half of a 20 pixel tile
+        assertTiledMatchesWhole(List.of(new BlurFilter(15, 4.0), new RoseFilter(), new BlurFilter(9, 2.0)), 20, 37);
+    }
+
+    @Test
+    void imageSmallerThanATileRunsWhole() {
+        assertTiledMatchesWhole(List.of(new BlurFilter(9, 2.0), new RainbowFilter(RainbowFilter.Mode.COLUMN)), 1024);
+    }
+}
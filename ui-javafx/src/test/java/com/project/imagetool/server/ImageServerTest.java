@@ -0,0 +1,119 @@
+package com.project.imagetool.server;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.service.ImageCodec;
+import com.project.imagetool.service.ImageJobRunner;
+import com.project.imagetool.service.InProcessFilterEngine;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageServerTest {
+
+    private static final PixelBuffer IMAGE = TestImages.synthetic(96, 64, 8);
+    private static final long MAX_UPLOAD = 1L << 20;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private static byte[] png(PixelBuffer image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(ImageCodec.toBufferedImage(image), "png", out);
+        return out.toByteArray();
+    }
+
+    private static ImageServer start(ImageJobRunner runner, int parallel, int queue, long maxUpload) throws IOException {
+        ImageServer server = new ImageServer(runner, 0, parallel, queue, maxUpload);
+        server.start();
+        return server;
+    }
+
+    private static HttpRequest post(ImageServer server, String query, byte[] body) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/process?" + query))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String text(HttpResponse<byte[]> response) {
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void processesAnImageWithTheJavaEngine() throws Exception {
+        try (ImageServer server = start(new InProcessFilterEngine(), 2, 4, MAX_UPLOAD)) {
+            HttpResponse<byte[]> response = send(post(server, "filters=gray&format=png", png(IMAGE)));
+
+            assertEquals(200, response.statusCode(), text(response));
+            assertEquals("image/png", response.headers().firstValue("Content-Type").orElse(""));
+            PixelBuffer result = ImageCodec.fromBufferedImage(ImageIO.read(new ByteArrayInputStream(response.body())));
+            assertArrayEquals(new GrayFilter().apply(IMAGE).getData(), result.getData());
+
+            HttpResponse<byte[]> metrics = send(HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + server.getPort() + "/metrics?format=json")).build());
+            assertEquals(200, metrics.statusCode());
+            assertTrue(metrics.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+            String json = text(metrics);
+            assertTrue(json.contains("\"accepted\": 1") && json.contains("\"completed\": 1"), json);
+            assertTrue(json.contains("\"metrics\": "), json);
+        }
+    }
+
+    @Test
+    void rejectsBadRequests() throws Exception {
+        try (ImageServer server = start(new InProcessFilterEngine(), 2, 4, 1024)) {
+            assertEquals(400, send(post(server, "filters=", png(IMAGE))).statusCode());
+            assertEquals(400, send(post(server, "filters=sharpen", png(IMAGE))).statusCode());
+            assertEquals(400, send(post(server, "filters=gray&format=tiff", png(IMAGE))).statusCode());
+            // the synthetic image does not compress below the 1 KB limit
+            assertEquals(413, send(post(server, "filters=gray", png(IMAGE))).statusCode());
+            assertEquals(415, send(post(server, "filters=gray", "not an image".getBytes(StandardCharsets.UTF_8)))
+                    .statusCode());
+        }
+    }
+
+    @Test
+    void answers429WhenTheOnlySlotIsTaken() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InProcessFilterEngine engine = new InProcessFilterEngine();
+        ImageJobRunner gated = job -> {
+            entered.countDown();
+            release.await();
+            engine.run(job);
+        };
+
+        try (ImageServer server = start(gated, 1, 0, MAX_UPLOAD)) {
+            byte[] body = png(IMAGE);
+            CompletableFuture<HttpResponse<byte[]>> first =
+                    client.sendAsync(post(server, "filters=gray", body), HttpResponse.BodyHandlers.ofByteArray());
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+            HttpResponse<byte[]> second = send(post(server, "filters=gray", body));
+            assertEquals(429, second.statusCode());
+            assertEquals("1", second.headers().firstValue("Retry-After").orElse(""));
+
+            release.countDown();
+            assertEquals(200, first.get(10, TimeUnit.SECONDS).statusCode());
+            assertEquals(200, send(post(server, "filters=gray", body)).statusCode());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.filter.BlurFilter;
+import com.project.imagetool.filter.EdgeFilter;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.filter.HeartFilter;
+import com.project.imagetool.filter.RainbowFilter;
+import com.project.imagetool.filter.RoseFilter;
+import com.project.imagetool.filter.SingleColourFilter;
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.FilterPipeline;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainOptimizerTest {
+
+    // the bound ChainOptimizer documents for its approximate rules
+    private static final int APPROXIMATE_LEVELS = 3;
+
+    private static final PixelBuffer IMAGE = TestImages.synthetic(241, 167, 9);
+
+    private static PixelBuffer render(List<ImageFilter> filters) {
+        return FilterPipeline.compile(filters).run(IMAGE);
+    }
+
+    private static List<ImageFilter> assertRewritten(List<ImageFilter> chain, ChainOptimizer.Mode mode,
+                                                     int expectedLength) {
+        ChainOptimizer.Result result = ChainOptimizer.optimize(chain, mode);
+        assertTrue(result.changed(), ChainOptimizer.explain(chain, result));
+        assertEquals(expectedLength, result.filters().size(), ChainOptimizer.explain(chain, result));
+        return result.filters();
+    }
+
+    private static void assertExact(List<ImageFilter> chain, int expectedLength) {
+        List<ImageFilter> optimized = assertRewritten(chain, ChainOptimizer.Mode.EXACT, expectedLength);
+        assertArrayEquals(render(chain).getData(), render(optimized).getData(), ResultCache.canonicalChain(optimized));
+    }
+
+    private static void assertApproximate(List<ImageFilter> chain, int expectedLength) {
+        assertFalse(ChainOptimizer.optimize(chain, ChainOptimizer.Mode.EXACT).changed(),
+                "an approximate rule must not apply in exact mode");
+        List<ImageFilter> optimized = assertRewritten(chain, ChainOptimizer.Mode.APPROXIMATE, expectedLength);
+        int difference = TestImages.maxDifference(render(chain), render(optimized));
+        assertTrue(difference <= APPROXIMATE_LEVELS, ResultCache.canonicalChain(optimized) + " is off by " + difference);
+    }
+
+    private static void assertUnchanged(List<ImageFilter> chain) {
+        for (ChainOptimizer.Mode mode : ChainOptimizer.Mode.values()) {
+            ChainOptimizer.Result result = ChainOptimizer.optimize(chain, mode);
+            assertFalse(result.changed(), mode + ": " + ChainOptimizer.explain(chain, result));
+            assertEquals(chain, result.filters());
+        }
+    }
+
+    @Test
+    void secondGrayIsDroppedExactly() {
+        assertExact(List.of(new GrayFilter(), new GrayFilter()), 1);
+    }
+
+    @Test
+    void grayAfterEdgeAndBlurIsDroppedExactly() {
+        assertExact(List.of(new EdgeFilter(50, 150), new BlurFilter(5, 1.5), new GrayFilter()), 2);
+    }
+
+    @Test
+    void grayAfterAGrayTintIsDroppedExactly() {
+        assertExact(List.of(new SingleColourFilter(180, 180, 180), new GrayFilter()), 1);
+    }
+
+    @Test
+    void adjacentBlursMergeWithinTheBound() {
+        assertApproximate(List.of(new BlurFilter(5, 1.0), new BlurFilter(7, 2.0)), 1);
+        assertApproximate(List.of(new RoseFilter(), new BlurFilter(3, 0.8), new BlurFilter(9, 3.0)), 2);
+    }
+
+    @Test
+    void grayBeforeALumaOnlyFilterIsDroppedWithinTheBound() {
+        assertApproximate(List.of(new GrayFilter(), new RainbowFilter(RainbowFilter.Mode.COLUMN)), 1);
+        assertApproximate(List.of(new GrayFilter(), new SingleColourFilter(200, 30, 90)), 1);
+    }
+
+    @Test
+    void nonMatchingChainsAreLeftAlone() {
+        assertUnchanged(List.of(new GrayFilter(), new HeartFilter(), new GrayFilter()));
+        assertUnchanged(List.of(new BlurFilter(5, 1.0), new GrayFilter(), new BlurFilter(5, 1.0)));
+        assertUnchanged(List.of(new SingleColourFilter(200, 30, 90), new GrayFilter()));
+        assertUnchanged(List.of(new RainbowFilter(), new EdgeFilter(50, 150)));
+    }
+}
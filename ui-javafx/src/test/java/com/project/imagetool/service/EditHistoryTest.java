@@ -0,0 +1,140 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.filter.BlurFilter;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.filter.RoseFilter;
+import com.project.imagetool.model.PixelBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EditHistoryTest {
+
+    // the loaded image followed by the result of each edit
+    private static List<PixelBuffer> edits(EditHistory history) {
+        List<PixelBuffer> states = new ArrayList<>(List.of(TestImages.synthetic(160, 120, 5)));
+        states.add(new GrayFilter().apply(states.get(0)));
+        states.add(new BlurFilter(7, 2.0).apply(states.get(1)));
+        states.add(new RoseFilter().apply(states.get(2)));
+        for (int i = 1; i < states.size(); i++) {
+            history.record(states.get(i - 1), states.get(i), "step " + i);
+        }
+        return states;
+    }
+
+    private static void assertSameImage(PixelBuffer expected, PixelBuffer actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertArrayEquals(expected.getData(), actual.getData());
+    }
+
+    private static void assertUndoRedoRestoresEveryState(EditHistory history, List<PixelBuffer> states) {
+        PixelBuffer current = states.get(states.size() - 1);
+        for (int i = states.size() - 2; i >= 0; i--) {
+            current = history.undo(current);
+            assertSameImage(states.get(i), current);
+        }
+        assertFalse(history.canUndo());
+        for (int i = 1; i < states.size(); i++) {
+            current = history.redo(current);
+            assertSameImage(states.get(i), current);
+        }
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    void undoThenRedoRestoresTheExactImages() {
+        try (EditHistory history = new EditHistory(64L << 20, 20)) {
+            List<PixelBuffer> states = edits(history);
+            assertEquals("step 3", history.peekUndoLabel());
+            assertUndoRedoRestoresEveryState(history, states);
+            assertEquals(0, history.getDiskBytes());
+        }
+    }
+
+    @Test
+    void stepsThatChangeTheSizeAreRestored() {
+        try (EditHistory history = new EditHistory(64L << 20, 20)) {
+            PixelBuffer small = TestImages.synthetic(80, 50, 1);
+            PixelBuffer large = TestImages.synthetic(97, 61, 2);
+            history.record(small, large, "resize");
+            assertSameImage(small, history.undo(large));
+            assertSameImage(large, history.redo(small));
+        }
+    }
+
+    @Test
+    void onlyTheNewestStepsAreKept() {
+        try (EditHistory history = new EditHistory(64L << 20, 2)) {
+            List<PixelBuffer> states = edits(history);
+            PixelBuffer current = history.undo(states.get(3));
+            current = history.undo(current);
+            assertSameImage(states.get(1), current);
+            assertFalse(history.canUndo());
+        }
+    }
+
+    @Test
+    void undoingEverythingReachesTheStartOnlyWhenNoStepWasDropped() {
+        try (EditHistory history = new EditHistory(64L << 20, 20)) {
+            List<PixelBuffer> states = edits(history);
+            assertFalse(history.isAtStart());
+            assertUndoRedoRestoresEveryState(history, states);
+            history.undo(history.undo(history.undo(states.get(3))));
+            assertTrue(history.isAtStart());
+        }
+        try (EditHistory history = new EditHistory(64L << 20, 2)) {
+            // the oldest step is dropped, so undoing everything stops at the gray image
+            List<PixelBuffer> states = edits(history);
+            PixelBuffer current = states.get(3);
+            while (history.canUndo()) current = history.undo(current);
+            assertSameImage(states.get(1), current);
+            assertFalse(history.isAtStart());
+
+            history.restart();
+            assertTrue(history.isAtStart());
+        }
+        try (EditHistory history = new EditHistory(64L << 20, 20)) {
+            // cleared after a step could not be recorded: the shown image is not the loaded one
+            List<PixelBuffer> states = edits(history);
+            history.clear();
+            assertFalse(history.isAtStart());
+            history.record(states.get(3), states.get(0), "after clearing");
+            assertSameImage(states.get(3), history.undo(states.get(0)));
+            assertFalse(history.isAtStart());
+        }
+    }
+
+    @Test
+    void stepsBeyondTheMemoryBudgetSpillToDisk() {
+        try (EditHistory history = new EditHistory(1, 20)) {
+            List<PixelBuffer> states = edits(history);
+            assertTrue(history.getMemoryBytes() <= 1);
+            assertTrue(history.getDiskBytes() > 0);
+            assertUndoRedoRestoresEveryState(history, states);
+
+            history.clear();
+            assertEquals(0, history.getMemoryBytes());
+            assertEquals(0, history.getDiskBytes());
+        }
+    }
+
+    @Test
+    void recordingDiscardsTheRedoSteps() {
+        try (EditHistory history = new EditHistory(64L << 20, 20)) {
+            List<PixelBuffer> states = edits(history);
+            PixelBuffer current = history.undo(states.get(3));
+            PixelBuffer other = new BlurFilter(3, 1.0).apply(current);
+            history.record(current, other, "other");
+            assertFalse(history.canRedo());
+            assertSameImage(current, history.undo(other));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.TestImages;
+import com.project.imagetool.filter.BlurFilter;
+import com.project.imagetool.filter.EdgeFilter;
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.filter.RoseFilter;
+import com.project.imagetool.model.ImageFilter;
+import com.project.imagetool.model.PixelBuffer;
+import com.project.imagetool.processing.StageCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InProcessFilterEngineTest {
+
+    private static final PixelBuffer IMAGE = TestImages.synthetic(320, 240, 21);
+    private static final String KEY = "image";
+
+    private static final GrayFilter GRAY = new GrayFilter();
+    private static final BlurFilter BLUR = new BlurFilter(7, 2.0);
+
+    private static byte[] uncached(List<ImageFilter> filters) {
+        return new InProcessFilterEngine().process(IMAGE, filters).getData();
+    }
+
+    @Test
+    void changedEdgeThresholdsResumeFromTheCachedBlur() {
+        StageCache cache = new StageCache(64L << 20);
+        InProcessFilterEngine engine = new InProcessFilterEngine(cache);
+        List<ImageFilter> first = List.of(GRAY, BLUR, new EdgeFilter(50, 150));
+        List<ImageFilter> second = List.of(GRAY, BLUR, new EdgeFilter(20, 90));
+
+        assertArrayEquals(uncached(first), engine.process(KEY, IMAGE, first).getData());
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+
+        byte[] resumed = engine.process(KEY, IMAGE, second).getData();
+        // the whole chain misses, Gray+Blur hits, and only Edge runs
+        assertEquals(hits + 1, cache.getHits());
+        assertEquals(misses + 1, cache.getMisses());
+        assertArrayEquals(uncached(second), resumed);
+    }
+
+    @Test
+    void cancelledRunLeavesOnlyFinishedStagesInTheCache() {
+        StageCache cache = new StageCache(64L << 20);
+        InProcessFilterEngine engine = new InProcessFilterEngine(cache);
+        List<ImageFilter> chain = List.of(GRAY, BLUR, new EdgeFilter(50, 150), new RoseFilter());
+
+        // cancelled once Gray and Blur are done
+        AtomicInteger polls = new AtomicInteger();
+        assertThrows(CancellationException.class,
+                () -> engine.process(KEY, IMAGE, chain, () -> polls.incrementAndGet() == 2));
+        PixelBuffer blurred = cache.get(KEY, chain.subList(0, 2));
+        assertNotNull(blurred);
+        assertNull(cache.get(KEY, chain.subList(0, 3)));
+        byte[] expected = uncached(chain.subList(0, 2));
+        assertArrayEquals(expected, blurred.getData());
+
+        // a cached buffer that had also gone back to the BufferPool would be overwritten by these runs
+        for (int i = 0; i < 4; i++) {
+            uncached(List.of(new BlurFilter(5, 1.0), new RoseFilter()));
+        }
+        assertArrayEquals(expected, blurred.getData());
+
+        assertArrayEquals(uncached(chain), engine.process(KEY, IMAGE, chain).getData());
+    }
+}
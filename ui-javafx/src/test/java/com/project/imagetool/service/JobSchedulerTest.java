@@ -0,0 +1,214 @@
+package com.project.imagetool.service;
+
+import com.project.imagetool.filter.GrayFilter;
+import com.project.imagetool.model.ImageJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobSchedulerTest {
+
+    @TempDir
+    Path dir;
+
+    // Submits a job that holds its thread until release is counted down
+    private static JobScheduler.Job<Void> block(JobScheduler scheduler, JobScheduler.Priority priority,
+                                                CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        JobScheduler.Job<Void> job = scheduler.submit("blocker", priority, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        }, null);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        return job;
+    }
+
+    @Test
+    void queuedInteractiveJobRunsAheadOfQueuedBatchJobs() throws Exception {
+        try (JobScheduler scheduler = new JobScheduler(1)) {
+            // occupy the worker and the interactive-only thread
+            CountDownLatch releaseWorker = new CountDownLatch(1);
+            CountDownLatch releaseInteractive = new CountDownLatch(1);
+            block(scheduler, JobScheduler.Priority.BATCH, releaseWorker);
+            block(scheduler, JobScheduler.Priority.INTERACTIVE, releaseInteractive);
+
+            List<String> order = Collections.synchronizedList(new ArrayList<>());
+            List<JobScheduler.Job<Void>> jobs = new ArrayList<>();
+            for (String name : List.of("batch 1", "batch 2")) {
+                jobs.add(scheduler.submit(name, JobScheduler.Priority.BATCH, () -> {
+                    order.add(name);
+                    return null;
+                }, null));
+            }
+            jobs.add(scheduler.submit("interactive", JobScheduler.Priority.INTERACTIVE, () -> {
+                order.add("interactive");
+                return null;
+            }, null));
+            assertEquals(3, scheduler.getQueuedCount());
+
+            releaseWorker.countDown();
+            for (JobScheduler.Job<Void> job : jobs) job.await();
+            assertEquals(List.of("interactive", "batch 1", "batch 2"), order);
+            releaseInteractive.countDown();
+        }
+    }
+
+    @Test
+    void cancelledQueuedJobNeverRunsAndIsCleanedUp() throws Exception {
+        try (JobScheduler scheduler = new JobScheduler(1)) {
+            CountDownLatch release = new CountDownLatch(1);
+            block(scheduler, JobScheduler.Priority.BATCH, release);
+
+            AtomicBoolean ran = new AtomicBoolean();
+            CountDownLatch cleanedUp = new CountDownLatch(1);
+            JobScheduler.Job<Void> queued = scheduler.submit("queued", JobScheduler.Priority.BATCH, () -> {
+                ran.set(true);
+                return null;
+            }, cleanedUp::countDown);
+
+            assertTrue(queued.cancel());
+            assertEquals(JobScheduler.State.CANCELLED, queued.getState());
+            assertEquals(0, cleanedUp.getCount());
+            assertEquals(0, scheduler.getQueuedCount());
+            assertThrows(CancellationException.class, queued::await);
+
+            // once a later job has run on the same worker, the cancelled one would have run too
+            release.countDown();
+            scheduler.submit("later", JobScheduler.Priority.BATCH, () -> null, null).await();
+            assertFalse(ran.get());
+        }
+    }
+
+    @Test
+    void cancellingARunningRunnerJobInterruptsItAndDeletesItsOutput() throws Exception {
+        try (JobScheduler scheduler = new JobScheduler(1)) {
+            ImageJob job = new ImageJob(dir.resolve("in.png"), dir.resolve("out.png"));
+            CountDownLatch started = new CountDownLatch(1);
+            AtomicBoolean interrupted = new AtomicBoolean();
+            ImageJobRunner runner = scheduler.asRunner(imageJob -> {
+                // a partial output, as a runner stopped mid-write would leave
+                Files.writeString(imageJob.getOutputPath(), "partial");
+                started.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                    throw e;
+                }
+            }, JobScheduler.Priority.BATCH);
+
+            AtomicReference<JobScheduler.Job<?>> scheduled = new AtomicReference<>();
+            scheduler.addListener((j, state) -> scheduled.compareAndSet(null, j));
+            AtomicReference<Throwable> callerError = new AtomicReference<>();
+            Thread caller = new Thread(() -> {
+                try {
+                    runner.run(job);
+                } catch (Exception e) {
+                    callerError.set(e);
+                }
+            });
+            caller.start();
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertTrue(Files.exists(job.getOutputPath()));
+
+            assertTrue(scheduled.get().cancel());
+            assertThrows(CancellationException.class, scheduled.get()::await);
+            assertTrue(interrupted.get());
+            assertEquals(JobScheduler.State.CANCELLED, scheduled.get().getState());
+            assertFalse(Files.exists(job.getOutputPath()));
+            caller.join(10_000);
+            assertTrue(callerError.get() instanceof CancellationException, String.valueOf(callerError.get()));
+        }
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void cancellingANativeJobKillsItsProcess() throws Exception {
+        // stands in for cpp/main: ignores its arguments and runs for a minute
+        Path executable = Files.writeString(dir.resolve("main"), "#!/bin/sh\nexec sleep 60\n");
+        Files.setPosixFilePermissions(executable, PosixFilePermissions.fromString("rwx------"));
+        CppApplicationService service = new CppApplicationService(executable);
+        ImageJob job = new ImageJob(dir.resolve("in.png"), dir.resolve("out.png"));
+        job.addFilter(new GrayFilter());
+
+        try (JobScheduler scheduler = new JobScheduler(1)) {
+            JobScheduler.Job<Void> scheduled = scheduler.submit("native", JobScheduler.Priority.BATCH, () -> {
+                service.run(job);
+                return null;
+            }, null);
+
+            ProcessHandle process = null;
+            for (long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10); process == null; Thread.sleep(20)) {
+                assertTrue(System.nanoTime() < deadline, "the process was not started");
+                Optional<ProcessHandle> child = ProcessHandle.current().children()
+                        .filter(h -> h.info().command().map(c -> c.endsWith("sleep")).orElse(false))
+                        .findFirst();
+                process = child.orElse(null);
+            }
+
+            assertTrue(scheduled.cancel());
+            assertThrows(CancellationException.class, scheduled::await);
+            assertFalse(process.isAlive());
+        }
+    }
+
+    @Test
+    void coordinatorWaitsForBatchJobsWithoutTakingTheOnlyWorker() {
+        try (JobScheduler scheduler = new JobScheduler(1)) {
+            JobScheduler.Job<Integer> driver = scheduler.submitCoordinator("driver", () -> {
+                List<JobScheduler.Job<Integer>> jobs = new ArrayList<>();
+                for (int i = 1; i <= 4; i++) {
+                    int value = i;
+                    jobs.add(scheduler.submit("image " + i, JobScheduler.Priority.BATCH, () -> value, null));
+                }
+                int sum = 0;
+                for (JobScheduler.Job<Integer> job : jobs) sum += job.await();
+                return sum;
+            }, null);
+
+            assertEquals(10, assertTimeoutPreemptively(Duration.ofSeconds(10), driver::await));
+            assertEquals(JobScheduler.State.SUCCEEDED, driver.getState());
+        }
+    }
+
+    @Test
+    void cancellingACoordinatorInterruptsItsWait() throws Exception {
+        try (JobScheduler scheduler = new JobScheduler(1)) {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch cleanedUp = new CountDownLatch(1);
+            JobScheduler.Job<Void> driver = scheduler.submitCoordinator("driver", () -> {
+                started.countDown();
+                new CountDownLatch(1).await();
+                return null;
+            }, cleanedUp::countDown);
+
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertTrue(driver.cancel());
+            assertThrows(CancellationException.class, driver::await);
+            assertEquals(JobScheduler.State.CANCELLED, driver.getState());
+            assertTrue(cleanedUp.await(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.project.imagetool.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] entry(int key, int length) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) key);
+        return bytes;
+    }
+
+    @Test
+    void entriesSurviveANewSessionThroughTheDiskTier() throws Exception {
+        new ResultCache(directory, 1 << 20, 1 << 20).put("a", entry(1, 100));
+
+        ResultCache reopened = new ResultCache(directory, 1 << 20, 1 << 20);
+        assertArrayEquals(entry(1, 100), reopened.get("a"));
+        assertEquals(1, reopened.getStats().diskHits);
+        assertArrayEquals(entry(1, 100), reopened.get("a"));
+        assertEquals(1, reopened.getStats().memoryHits);
+        assertNull(reopened.get("b"));
+    }
+
+    @Test
+    void diskTierEvictsTheLeastRecentlyUsedEntries() throws Exception {
+        ResultCache cache = new ResultCache(directory, 0, 250);
+        for (int key = 0; key < 5; key++) {
+            cache.put("k" + key, entry(key, 100));
+        }
+
+        assertTrue(cache.getStats().diskBytes <= 250);
+        assertEquals(3, cache.getStats().diskEvictions);
+        assertNull(cache.get("k0"));
+        assertArrayEquals(entry(4, 100), cache.get("k4"));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void concurrentReadersNeverSeePartialEntries() throws Exception {
+        // no memory tier, so every hit is read back from disk while other threads write and evict
+        ResultCache cache = new ResultCache(directory, 0, 64 * 1024);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 300; i++) {
+                        int key = (i * 7 + thread) % 20;
+                        byte[] cached = cache.get("k" + key);
+                        if (cached == null) {
+                            cache.put("k" + key, entry(key, 10_000));
+                        } else {
+                            assertArrayEquals(entry(key, 10_000), cached);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ResultCache.Stats stats = cache.getStats();
+        assertTrue(stats.diskBytes <= 64 * 1024);
+        assertTrue(stats.diskHits > 0);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(stats.diskBytes, files.filter(p -> p.toString().endsWith(".bin")).count() * 10_000);
+        }
+    }
+}